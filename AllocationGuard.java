@@ -0,0 +1,83 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * AllocationGuard watches how many bytes a thread allocates per frame. The
+ * render thread should allocate nothing once its caches are warm; with
+ * -Dmarrow.allocBudget=bytes set, GamePanel checks every frame against that
+ * budget and prints a warning, at most once a second, for frames that go over.
+ * Without the property the guard is off and every call returns immediately.
+ */
+public class AllocationGuard {
+    private static final long WARNING_INTERVAL_NANOS = 1_000_000_000L;
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final long budgetBytes;
+    private long frameStart;
+    private long lastWarning;
+    private long framesOver = 0;
+    private long worstFrame = 0;
+
+    public AllocationGuard(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * A guard for the budget in -Dmarrow.allocBudget, off (negative budget) if it is not set.
+     */
+    public static AllocationGuard fromSystemProperty() {
+        return new AllocationGuard(Long.getLong("marrow.allocBudget", -1));
+    }
+
+    /**
+     * Whether the JVM can count allocated bytes per thread.
+     */
+    public static boolean isSupported() {
+        return THREADS != null;
+    }
+
+    /**
+     * Bytes allocated by the calling thread so far, or 0 if the JVM cannot tell.
+     */
+    public static long currentThreadAllocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    public boolean isEnabled() {
+        return budgetBytes >= 0 && THREADS != null;
+    }
+
+    /**
+     * Marks the start of a frame on the calling thread.
+     */
+    public void beginFrame() {
+        if (!isEnabled()) return;
+        frameStart = THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Checks the bytes allocated on the calling thread since beginFrame.
+     */
+    public void endFrame() {
+        if (!isEnabled()) return;
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - frameStart;
+        if (bytes <= budgetBytes) return;
+        framesOver++;
+        worstFrame = Math.max(worstFrame, bytes);
+        long now = System.nanoTime();
+        if (now - lastWarning >= WARNING_INTERVAL_NANOS) {
+            lastWarning = now;
+            System.out.println("Frame allocated " + bytes + " bytes, over the budget of " + budgetBytes
+                    + " (" + framesOver + " frames over, worst " + worstFrame + ")");
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+        if (!threads.isThreadAllocatedMemorySupported()) return null;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * BalanceConfig holds the tunable balance values of the game: crit chances,
+ * damage and defense ranges, starting stats, upgrade steps and enemy scaling.
+ * Instances are immutable; with() returns a copy with one value changed, which
+ * is how the balance sweep explores the parameter space.
+ */
+public class BalanceConfig {
+    public static final String DEFAULT_CONFIG_FILE = "data/balance.properties";
+
+    // Default values, in the order they are documented
+    private static final String[][] DEFAULTS = {
+        {"playerCritChance", "0.01"},      // 1% chance for player
+        {"playerCritMultiplier", "2.0"},
+        {"enemyCritChance", "0.20"},       // 20% chance for enemy
+        {"enemyCritMultiplier", "1.5"},    // 1.5x damage for enemy crits
+        {"minDamage", "3"},
+        {"maxDamage", "5"},
+        {"minEnemyDamage", "1"},
+        {"maxEnemyDamage", "3"},
+        {"minDefense", "2"},
+        {"maxDefense", "4"},
+        {"initialEnemyHP", "15"},
+        {"initialPlayerHP", "10"},
+        {"initialPlayerDefense", "5"},
+        {"attackUpgradeStep", "0.5"},
+        {"shieldUpgradeStep", "0.5"},
+        {"hpScaleInterval", "2"},          // Every 2 enemies...
+        {"hpScaleAmount", "3"},            // ...add 3 HP
+        {"damageScaleInterval", "3"},      // Every 3 enemies, increase damage range by 1
+        {"armorScaleInterval", "2"},       // Every 2 enemies, armored enemy
+        {"penetrationInterval", "4"}       // Every other armored enemy has penetration
+    };
+
+    private final Map<String, Double> values;
+
+    // Typed copies of the values for the game loop
+    public final double playerCritChance;
+    public final double playerCritMultiplier;
+    public final double enemyCritChance;
+    public final double enemyCritMultiplier;
+    public final int minDamage;
+    public final int maxDamage;
+    public final int minEnemyDamage;
+    public final int maxEnemyDamage;
+    public final int minDefense;
+    public final int maxDefense;
+    public final int initialEnemyHP;
+    public final int initialPlayerHP;
+    public final int initialPlayerDefense;
+    public final double attackUpgradeStep;
+    public final double shieldUpgradeStep;
+    public final int hpScaleInterval;
+    public final int hpScaleAmount;
+    public final int damageScaleInterval;
+    public final int armorScaleInterval;
+    public final int penetrationInterval;
+
+    private BalanceConfig(Map<String, Double> values) {
+        this.values = Collections.unmodifiableMap(values);
+
+        playerCritChance = values.get("playerCritChance");
+        playerCritMultiplier = values.get("playerCritMultiplier");
+        enemyCritChance = values.get("enemyCritChance");
+        enemyCritMultiplier = values.get("enemyCritMultiplier");
+        minDamage = intValue("minDamage");
+        maxDamage = intValue("maxDamage");
+        minEnemyDamage = intValue("minEnemyDamage");
+        maxEnemyDamage = intValue("maxEnemyDamage");
+        minDefense = intValue("minDefense");
+        maxDefense = intValue("maxDefense");
+        initialEnemyHP = intValue("initialEnemyHP");
+        initialPlayerHP = intValue("initialPlayerHP");
+        initialPlayerDefense = intValue("initialPlayerDefense");
+        attackUpgradeStep = values.get("attackUpgradeStep");
+        shieldUpgradeStep = values.get("shieldUpgradeStep");
+        hpScaleInterval = intValue("hpScaleInterval");
+        hpScaleAmount = intValue("hpScaleAmount");
+        damageScaleInterval = intValue("damageScaleInterval");
+        armorScaleInterval = intValue("armorScaleInterval");
+        penetrationInterval = intValue("penetrationInterval");
+
+        if (hpScaleInterval < 1 || damageScaleInterval < 1 || armorScaleInterval < 1 || penetrationInterval < 1) {
+            throw new IllegalArgumentException("Scaling intervals must be at least 1");
+        }
+        if (maxEnemyDamage < minEnemyDamage || maxDefense < minDefense) {
+            throw new IllegalArgumentException("Damage and defense ranges must not be empty");
+        }
+    }
+
+    private int intValue(String key) {
+        return (int)Math.round(values.get(key));
+    }
+
+    /**
+     * Returns the built-in balance values.
+     */
+    public static BalanceConfig defaults() {
+        Map<String, Double> values = new TreeMap<>();
+        for (String[] entry : DEFAULTS) {
+            values.put(entry[0], Double.parseDouble(entry[1]));
+        }
+        return new BalanceConfig(values);
+    }
+
+    /**
+     * Loads balance values from a properties file on top of the defaults.
+     * Falls back to the defaults if the file is missing or invalid.
+     */
+    public static BalanceConfig load(String path) {
+        BalanceConfig config = defaults();
+        File file = new File(path);
+        if (!file.exists()) return config;
+
+        try (InputStream in = new FileInputStream(file)) {
+            Properties properties = new Properties();
+            properties.load(in);
+            for (String key : properties.stringPropertyNames()) {
+                config = config.with(key, Double.parseDouble(properties.getProperty(key).trim()));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return defaults();
+        }
+        return config;
+    }
+
+    /**
+     * Returns a copy of this config with one value changed.
+     * @throws IllegalArgumentException If the key is not a balance value
+     */
+    public BalanceConfig with(String key, double value) {
+        if (!values.containsKey(key)) {
+            throw new IllegalArgumentException("Unknown balance value: " + key);
+        }
+        Map<String, Double> changed = new TreeMap<>(values);
+        changed.put(key, value);
+        return new BalanceConfig(changed);
+    }
+
+    /**
+     * Returns a value by name.
+     * @throws IllegalArgumentException If the key is not a balance value
+     */
+    public double get(String key) {
+        Double value = values.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown balance value: " + key);
+        }
+        return value;
+    }
+
+    public boolean has(String key) {
+        return values.containsKey(key);
+    }
+
+    /**
+     * All values by name, sorted.
+     */
+    public Map<String, Double> getValues() {
+        return values;
+    }
+
+    /**
+     * A stable 64-bit FNV-1a hash of every value, used to key cached results.
+     */
+    public long hash() {
+        long hash = 0xcbf29ce484222325L;
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            String text = entry.getKey() + "=" + entry.getValue() + ";";
+            for (int i = 0; i < text.length(); i++) {
+                hash ^= text.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
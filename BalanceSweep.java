@@ -0,0 +1,400 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BalanceSweep plays many headless runs for each point of a grid or random
+ * sample of balance values and writes the resulting round distributions.
+ *
+ * Points run in parallel across cores. Every point uses the same run seeds, so
+ * differences between points come from the balance values rather than luck.
+ * Finished points are cached by their values, policy, run count, seed and the
+ * data files, so re-running a sweep only plays the points that changed.
+ *
+ * Usage: java BalanceSweep [options]
+ *   --grid key=start:end:steps    Sweep a value over evenly spaced steps (repeatable)
+ *   --random N key=min:max ...    Sample N points uniformly from the given ranges
+ *   --base file                   Balance values to start from (default data/balance.properties)
+ *   --runs N                      Runs per point (default 1000)
+ *   --seed N                      Base seed (default 1)
+ *   --policy random|greedy        How cards and upgrades are picked (default greedy)
+ *   --threads N                   Worker threads (default: available processors)
+ *   --out file                    Results CSV (default sweep.csv)
+ *   --cache-dir dir               Result cache (default sweep-cache), --no-cache to disable
+ *
+ * With exactly two --grid values a heatmap of the median round is also written
+ * next to the results, e.g. sweep-heatmap.csv.
+ */
+public class BalanceSweep {
+    static final String DEFAULT_CACHE_DIR = "sweep-cache";
+    private static final String[] DATA_FILES = {
+        CombatPipeline.DEFAULT_RULES_FILE, EnemyCatalog.DEFAULT_CATALOG_FILE, CardCatalog.DEFAULT_CATALOG_FILE
+    };
+
+    /**
+     * A swept value and the values it takes.
+     */
+    private static final class Axis {
+        final String key;
+        final double[] values;
+
+        Axis(String key, double[] values) {
+            this.key = key;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Round distribution of one point. Also used by SimulationService, which shares the cache.
+     */
+    static final class Result {
+        final double mean;
+        final int median;
+        final int p10;
+        final int p90;
+        final int max;
+        final int timeouts;
+        final boolean cached;
+
+        Result(double mean, int median, int p10, int p90, int max, int timeouts, boolean cached) {
+            this.mean = mean;
+            this.median = median;
+            this.p10 = p10;
+            this.p90 = p90;
+            this.max = max;
+            this.timeouts = timeouts;
+            this.cached = cached;
+        }
+
+        String encode() {
+            return mean + "," + median + "," + p10 + "," + p90 + "," + max + "," + timeouts;
+        }
+
+        static Result decode(String line) {
+            String[] parts = line.trim().split(",");
+            return new Result(Double.parseDouble(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                              Integer.parseInt(parts[3]), Integer.parseInt(parts[4]), Integer.parseInt(parts[5]), true);
+        }
+    }
+
+    private final String policy;
+    private final int runs;
+    private final long seed;
+    private final File cacheDir;
+    private final long dataHash;
+
+    private BalanceSweep(String policy, int runs, long seed, File cacheDir) {
+        this.policy = policy;
+        this.runs = runs;
+        this.seed = seed;
+        this.cacheDir = cacheDir;
+        this.dataHash = hashDataFiles();
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Axis> grid = new ArrayList<>();
+        List<String> randomRanges = new ArrayList<>();
+        int randomPoints = 0;
+        String basePath = BalanceConfig.DEFAULT_CONFIG_FILE;
+        int runs = 1000;
+        long seed = 1;
+        String policy = "greedy";
+        int threads = Runtime.getRuntime().availableProcessors();
+        String out = "sweep.csv";
+        String cacheDir = DEFAULT_CACHE_DIR;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--grid": grid.add(parseGridAxis(args[++i])); break;
+                case "--random":
+                    randomPoints = Integer.parseInt(args[++i]);
+                    while (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                        randomRanges.add(args[++i]);
+                    }
+                    break;
+                case "--base": basePath = args[++i]; break;
+                case "--runs": runs = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--policy": policy = args[++i]; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--out": out = args[++i]; break;
+                case "--cache-dir": cacheDir = args[++i]; break;
+                case "--no-cache": cacheDir = null; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        BalanceConfig base = BalanceConfig.load(basePath);
+        SimulationPolicy.byName(policy, seed); // Fail fast on a bad name
+
+        // Points to play, as the changed values of each
+        List<String> keys = new ArrayList<>();
+        List<double[]> points = new ArrayList<>();
+        if (!grid.isEmpty()) {
+            for (Axis axis : grid) {
+                keys.add(axis.key);
+            }
+            addGridPoints(grid, 0, new double[grid.size()], points);
+        } else if (randomPoints > 0) {
+            double[][] ranges = new double[randomRanges.size()][];
+            for (int r = 0; r < ranges.length; r++) {
+                String[] keyRange = randomRanges.get(r).split("=", 2);
+                String[] bounds = keyRange[1].split(":");
+                keys.add(keyRange[0]);
+                ranges[r] = new double[] {Double.parseDouble(bounds[0]), Double.parseDouble(bounds[1])};
+            }
+            Random sampler = new Random(seed);
+            for (int p = 0; p < randomPoints; p++) {
+                double[] point = new double[ranges.length];
+                for (int r = 0; r < ranges.length; r++) {
+                    point[r] = ranges[r][0] + sampler.nextDouble() * (ranges[r][1] - ranges[r][0]);
+                }
+                points.add(point);
+            }
+        } else {
+            points.add(new double[0]);
+        }
+
+        BalanceConfig[] configs = new BalanceConfig[points.size()];
+        for (int p = 0; p < configs.length; p++) {
+            BalanceConfig config = base;
+            for (int k = 0; k < keys.size(); k++) {
+                config = config.with(keys.get(k), points.get(p)[k]);
+            }
+            configs[p] = config;
+        }
+
+        System.out.println("Balance sweep: " + configs.length + " points x " + runs + " runs, policy " + policy
+                           + ", " + threads + " threads");
+        BalanceSweep sweep = new BalanceSweep(policy, runs, seed, cacheDir != null ? new File(cacheDir) : null);
+        long start = System.nanoTime();
+        Result[] results = sweep.run(configs, threads);
+        long elapsed = System.nanoTime() - start;
+
+        int cachedCount = 0;
+        for (Result result : results) {
+            if (result.cached) cachedCount++;
+        }
+        System.out.printf("Done in %.1f s (%d of %d points from cache)%n", elapsed / 1e9, cachedCount, results.length);
+
+        writeResults(out, keys, points, results);
+        System.out.println("Results written to " + out);
+        if (grid.size() == 2) {
+            String heatmap = heatmapPath(out);
+            writeHeatmap(heatmap, grid, results);
+            System.out.println("Median round heatmap written to " + heatmap);
+        }
+    }
+
+    private static Axis parseGridAxis(String spec) {
+        String[] keyRange = spec.split("=", 2);
+        String[] parts = keyRange[1].split(":");
+        double startValue = Double.parseDouble(parts[0]);
+        double endValue = Double.parseDouble(parts[1]);
+        int steps = parts.length > 2 ? Integer.parseInt(parts[2]) : 5;
+        double[] values = new double[Math.max(1, steps)];
+        for (int i = 0; i < values.length; i++) {
+            double value = values.length == 1 ? startValue : startValue + (endValue - startValue) * i / (values.length - 1);
+            values[i] = Math.round(value * 1e6) / 1e6; // Keep 0.3 from printing as 0.30000000000000004
+        }
+        return new Axis(keyRange[0], values);
+    }
+
+    private static void addGridPoints(List<Axis> grid, int axis, double[] point, List<double[]> points) {
+        if (axis == grid.size()) {
+            points.add(point.clone());
+            return;
+        }
+        for (double value : grid.get(axis).values) {
+            point[axis] = value;
+            addGridPoints(grid, axis + 1, point, points);
+        }
+    }
+
+    /**
+     * Plays every point on a fixed pool, returning results in point order.
+     */
+    private Result[] run(BalanceConfig[] configs, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Result>> futures = new ArrayList<>(configs.length);
+            for (BalanceConfig config : configs) {
+                futures.add(pool.submit(() -> playPoint(config)));
+            }
+            Result[] results = new Result[configs.length];
+            for (int p = 0; p < results.length; p++) {
+                results[p] = futures.get(p).get();
+                if ((p + 1) % 10 == 0 || p + 1 == results.length) {
+                    System.out.println("  " + (p + 1) + "/" + results.length + " points");
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Result playPoint(BalanceConfig config) {
+        File cacheFile = cacheFile(config);
+        if (cacheFile != null && cacheFile.exists()) {
+            try {
+                return Result.decode(new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8));
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace(); // Replay the point below
+            }
+        }
+
+        int[] rounds = new int[runs];
+        int timeouts = 0;
+        for (int i = 0; i < runs; i++) {
+            GameLogic game = new GameLogic(config, seed + i);
+            SimulationPolicy runPolicy = SimulationPolicy.byName(policy, seed + i);
+            rounds[i] = RunSimulator.playRun(game, runPolicy, RunSimulator.DEFAULT_MAX_TURNS);
+            if (!game.isPlayerDead()) timeouts++;
+        }
+        Result result = summarize(rounds, timeouts);
+
+        if (cacheFile != null) {
+            writeCache(cacheFile, result);
+        }
+        return result;
+    }
+
+    /**
+     * The distribution of the rounds reached; sorts them.
+     */
+    static Result summarize(int[] rounds, int timeouts) {
+        long total = 0;
+        for (int round : rounds) {
+            total += round;
+        }
+        Arrays.sort(rounds);
+        return new Result((double)total / rounds.length, percentile(rounds, 0.5), percentile(rounds, 0.1),
+                          percentile(rounds, 0.9), rounds[rounds.length - 1], timeouts, false);
+    }
+
+    private static int percentile(int[] sorted, double fraction) {
+        int index = (int)Math.ceil(sorted.length * fraction) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    // Cache
+
+    private File cacheFile(BalanceConfig config) {
+        if (cacheDir == null) return null;
+        return new File(cacheDir, String.format("%016x.txt", cacheKey(config, policy, runs, seed, dataHash)));
+    }
+
+    /**
+     * The key a point's result is cached under.
+     * @param dataHash hashDataFiles at the time
+     */
+    static long cacheKey(BalanceConfig config, String policy, int runs, long seed, long dataHash) {
+        long key = config.hash();
+        key = mix(key, policy.hashCode());
+        key = mix(key, runs);
+        key = mix(key, seed);
+        return mix(key, dataHash);
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    static long hashDataFiles() {
+        long hash = 0xcbf29ce484222325L;
+        for (String path : DATA_FILES) {
+            try {
+                Path file = Paths.get(path);
+                if (!Files.exists(file)) continue;
+                for (byte b : Files.readAllBytes(file)) {
+                    hash ^= b & 0xFF;
+                    hash *= 0x100000001b3L;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return hash;
+    }
+
+    static void writeCache(File cacheFile, Result result) {
+        try {
+            cacheFile.getParentFile().mkdirs();
+            Path temp = Paths.get(cacheFile.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+            Files.write(temp, result.encode().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Output
+
+    private static void writeResults(String path, List<String> keys, List<double[]> points, Result[] results)
+            throws IOException {
+        try (PrintWriter writer = new PrintWriter(path)) {
+            StringBuilder header = new StringBuilder();
+            for (String key : keys) {
+                header.append(key).append(',');
+            }
+            header.append("mean_round,median_round,p10_round,p90_round,max_round,timeouts");
+            writer.println(header);
+            for (int p = 0; p < results.length; p++) {
+                StringBuilder row = new StringBuilder();
+                for (double value : points.get(p)) {
+                    row.append(value).append(',');
+                }
+                row.append(String.format("%.3f", results[p].mean)).append(',')
+                   .append(results[p].median).append(',')
+                   .append(results[p].p10).append(',')
+                   .append(results[p].p90).append(',')
+                   .append(results[p].max).append(',')
+                   .append(results[p].timeouts);
+                writer.println(row);
+            }
+        }
+    }
+
+    private static String heatmapPath(String out) {
+        return out.endsWith(".csv") ? out.substring(0, out.length() - 4) + "-heatmap.csv" : out + "-heatmap.csv";
+    }
+
+    /**
+     * Median round as a matrix: rows are the first grid value, columns the second.
+     */
+    private static void writeHeatmap(String path, List<Axis> grid, Result[] results) throws IOException {
+        Axis rows = grid.get(0);
+        Axis columns = grid.get(1);
+        try (PrintWriter writer = new PrintWriter(path)) {
+            StringBuilder header = new StringBuilder(rows.key + "\\" + columns.key);
+            for (double value : columns.values) {
+                header.append(',').append(value);
+            }
+            writer.println(header);
+            for (int r = 0; r < rows.values.length; r++) {
+                StringBuilder row = new StringBuilder(String.valueOf(rows.values[r]));
+                for (int c = 0; c < columns.values.length; c++) {
+                    row.append(',').append(results[r * columns.values.length + c].median);
+                }
+                writer.println(row);
+            }
+        }
+    }
+}
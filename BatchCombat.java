@@ -0,0 +1,384 @@
+/**
+ * BatchCombat plays many games at once with every game's state held in
+ * primitive arrays, one slot ("lane") per game, instead of one GameLogic
+ * object per game.
+ *
+ * A turn is two passes over the lanes. The first fills the turn's random draws
+ * for every lane in bulk; the second plays a card and the enemy's reply for
+ * every lane. Both loops are branch-free: every outcome is computed and the
+ * right one picked with 0/1 masks, so random rolls cause no mispredicted
+ * branches and the JIT is free to vectorise.
+ * Lanes that beat their enemy are then moved to the next round by a short
+ * scalar pass. Once enough games have ended, the live lanes are packed to the
+ * front of the arrays so later turns only loop over games still in play.
+ *
+ * The rules follow GameLogic.handleAttackCard, handleDefenseCard,
+ * calculateEnemyDamage and applyDamage with the default combat rules table
+ * (crit, penetration, armor for the player; crit, defense for the enemy).
+ * Hands are not modelled: the chosen card type is assumed to be in hand.
+ * Each lane has its own random stream, so results are reproducible for a
+ * seed but are not draw-for-draw identical to GameLogic.
+ */
+public class BatchCombat {
+    // Card choices for step()
+    public static final int CARD_ATTACK = 0;
+    public static final int CARD_DEFENSE = 1;
+
+    private final BalanceConfig config;
+    private final ScalingTable scalingTable;
+    private final EnemyCatalog enemyCatalog;
+    private final int size;
+    private final long seed;
+
+    // Slots in play are 0..active-1; finished games are packed out of that range
+    private int active;
+    private final int[] gameOfSlot;
+    private final int[] slotOfGame;     // -1 once the game has been packed out
+    private final int[] finalRound;
+
+    // Per-lane random state (xorshift64)
+    private final long[] rng;
+
+    // Per-lane draws for the current turn
+    private final double[] damageRoll;
+    private final int[] critRoll;        // Crit rolls are 31-bit ints, compared by sign
+    private final double[] defenseRoll;
+    private final double[] enemyDamageRoll;
+    private final int[] enemyCritRoll;
+
+    // Game state, structure of arrays
+    private final int[] hp;
+    private final int[] def;
+    private final int[] enemyHP;
+    private final int[] armor;
+    private final int[] penetration;     // 1 if the enemy's armor penetrates
+    private final int[] damageBonus;
+    private final int[] alive;           // 1 while the player lives
+    private final int[] enemiesDefeated;
+
+    // Base stats and upgrades
+    private final int[] basePlayerHP;
+    private final int[] basePlayerDefense;
+    private final double[] baseMinDamage;
+    private final double[] baseMaxDamage;
+    private final double[] baseMinDefense;
+    private final int[] attackUpgrades;
+    private final int[] shieldUpgrades;
+
+    private int aliveCount;
+
+    /**
+     * @param config The balance values every lane plays with
+     * @param size Number of games
+     * @param seed Seed for the lanes' random streams
+     */
+    public BatchCombat(BalanceConfig config, int size, long seed) {
+        this.config = config;
+        this.size = size;
+        this.seed = seed;
+        scalingTable = new ScalingTable(config.initialEnemyHP, config.hpScaleInterval, config.hpScaleAmount,
+                                        config.damageScaleInterval, config.armorScaleInterval, config.penetrationInterval);
+        enemyCatalog = EnemyCatalog.load(EnemyCatalog.DEFAULT_CATALOG_FILE);
+
+        gameOfSlot = new int[size];
+        slotOfGame = new int[size];
+        finalRound = new int[size];
+
+        rng = new long[size];
+        damageRoll = new double[size];
+        critRoll = new int[size];
+        defenseRoll = new double[size];
+        enemyDamageRoll = new double[size];
+        enemyCritRoll = new int[size];
+
+        hp = new int[size];
+        def = new int[size];
+        enemyHP = new int[size];
+        armor = new int[size];
+        penetration = new int[size];
+        damageBonus = new int[size];
+        alive = new int[size];
+        enemiesDefeated = new int[size];
+
+        basePlayerHP = new int[size];
+        basePlayerDefense = new int[size];
+        baseMinDamage = new double[size];
+        baseMaxDamage = new double[size];
+        baseMinDefense = new double[size];
+        attackUpgrades = new int[size];
+        shieldUpgrades = new int[size];
+
+        reset();
+    }
+
+    /**
+     * Starts a fresh run in every lane.
+     */
+    public void reset() {
+        for (int i = 0; i < size; i++) {
+            gameOfSlot[i] = i;
+            slotOfGame[i] = i;
+            finalRound[i] = 0;
+
+            // SplitMix64 of the lane number, so neighbouring lanes are uncorrelated
+            long z = seed + (i + 1) * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            z ^= z >>> 31;
+            rng[i] = z != 0 ? z : 1;
+
+            basePlayerHP[i] = config.initialPlayerHP;
+            basePlayerDefense[i] = config.initialPlayerDefense;
+            baseMinDamage[i] = config.minDamage;
+            baseMaxDamage[i] = config.maxDamage;
+            baseMinDefense[i] = config.minDefense;
+            attackUpgrades[i] = 0;
+            shieldUpgrades[i] = 0;
+            enemiesDefeated[i] = 0;
+            alive[i] = 1;
+            spawnEnemy(i);
+        }
+        active = size;
+        aliveCount = size;
+    }
+
+    /**
+     * Fills in the greedy choice for every lane: defend while defense is below
+     * the enemy's base maximum damage, otherwise attack. Matches the "greedy"
+     * SimulationPolicy.
+     */
+    public void chooseGreedy(int[] actions) {
+        int threshold = config.maxEnemyDamage;
+        for (int i = 0; i < active; i++) {
+            actions[i] = def[i] < threshold ? CARD_DEFENSE : CARD_ATTACK;
+        }
+    }
+
+    /**
+     * Plays one turn in every live lane: the chosen card, then the enemy's
+     * attack if it survived. Lanes that won move on to their next enemy.
+     * @param actions CARD_ATTACK or CARD_DEFENSE per slot, as filled by chooseGreedy;
+     *                slots move when finished games are packed out
+     * @return Number of lanes still alive
+     */
+    public int step(int[] actions) {
+        fillDraws();
+
+        final int playerCritThreshold = critThreshold(config.playerCritChance);
+        final double playerCritMultiplier = config.playerCritMultiplier;
+        final int enemyCritThreshold = critThreshold(config.enemyCritChance);
+        final double enemyCritMultiplier = config.enemyCritMultiplier;
+        final int defenseSpan = config.maxDefense - config.minDefense + 1;
+        final int minEnemyDamage = config.minEnemyDamage;
+        final int enemyDamageSpan = config.maxEnemyDamage - config.minEnemyDamage + 1;
+
+        // Masks are 0 or 1; (-x) >>> 31 is 1 when x > 0, (a - b) >>> 31 is 1 when a < b
+        final int active = this.active;
+        int victories = 0;
+        for (int i = 0; i < active; i++) {
+            int live = alive[i];
+            int attacking = live & (actions[i] ^ 1);
+            int defending = live & actions[i];
+
+            // Attack card: roll, crit (floor), then penetration or armor break
+            int damage = (int)(damageRoll[i] * (baseMaxDamage[i] - baseMinDamage[i]) + baseMinDamage[i]);
+            int crit = (critRoll[i] - playerCritThreshold) >>> 31;
+            damage += crit * ((int)(damage * playerCritMultiplier) - damage);
+            int armored = (-armor[i]) >>> 31;
+            int penetrates = armored & penetration[i];
+            int breaks = armored & (penetration[i] ^ 1);
+            damage = penetrates * Math.max(0, damage - armor[i]) + (armored ^ 1) * damage;
+            enemyHP[i] = Math.max(0, enemyHP[i] - attacking * damage);
+            armor[i] *= (attacking & breaks) ^ 1;
+
+            // Defense card: floor(roll + base minimum)
+            int gain = (int)((int)(defenseRoll[i] * defenseSpan) + baseMinDefense[i]);
+            def[i] += defending * gain;
+
+            // Enemy attack if it survived: roll, crit (ceil), defense absorbs first
+            int strikes = live & ((-enemyHP[i]) >>> 31);
+            int enemyDamage = (int)(enemyDamageRoll[i] * (enemyDamageSpan + damageBonus[i])) + minEnemyDamage;
+            int enemyCrit = (enemyCritRoll[i] - enemyCritThreshold) >>> 31;
+            enemyDamage += enemyCrit * ((int)Math.ceil(enemyDamage * enemyCritMultiplier) - enemyDamage);
+            int absorbed = Math.min(def[i], enemyDamage);
+            def[i] -= strikes * absorbed;
+            hp[i] = Math.max(0, hp[i] - strikes * (enemyDamage - absorbed));
+            alive[i] = live & ((-hp[i]) >>> 31);
+
+            victories += live & (strikes ^ 1);
+        }
+
+        if (victories > 0) {
+            for (int i = 0; i < active; i++) {
+                if (alive[i] == 1 && enemyHP[i] == 0) {
+                    nextRound(i);
+                }
+            }
+        }
+
+        int count = 0;
+        for (int i = 0; i < active; i++) {
+            count += alive[i];
+        }
+        aliveCount = count;
+        if (count < active - (active >> 2)) {
+            compact();
+        }
+        return count;
+    }
+
+    /**
+     * A chance as a threshold for 31-bit crit rolls.
+     */
+    private static int critThreshold(double chance) {
+        return (int)Math.max(0, Math.min(chance * 0x1.0p31, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Packs live slots to the front, recording the final round of every
+     * finished game on the way out.
+     */
+    private void compact() {
+        int to = 0;
+        for (int from = 0; from < active; from++) {
+            int game = gameOfSlot[from];
+            if (alive[from] == 0) {
+                finalRound[game] = enemiesDefeated[from] + 1;
+                slotOfGame[game] = -1;
+                continue;
+            }
+            if (to != from) {
+                moveSlot(from, to);
+            }
+            gameOfSlot[to] = game;
+            slotOfGame[game] = to;
+            to++;
+        }
+        active = to;
+    }
+
+    private void moveSlot(int from, int to) {
+        rng[to] = rng[from];
+        hp[to] = hp[from];
+        def[to] = def[from];
+        enemyHP[to] = enemyHP[from];
+        armor[to] = armor[from];
+        penetration[to] = penetration[from];
+        damageBonus[to] = damageBonus[from];
+        alive[to] = alive[from];
+        enemiesDefeated[to] = enemiesDefeated[from];
+        basePlayerHP[to] = basePlayerHP[from];
+        basePlayerDefense[to] = basePlayerDefense[from];
+        baseMinDamage[to] = baseMinDamage[from];
+        baseMaxDamage[to] = baseMaxDamage[from];
+        baseMinDefense[to] = baseMinDefense[from];
+        attackUpgrades[to] = attackUpgrades[from];
+        shieldUpgrades[to] = shieldUpgrades[from];
+    }
+
+    /**
+     * Plays greedy turns until every lane has died or the turn limit is reached.
+     * @return Turns played
+     */
+    public int runGreedy(int maxTurns) {
+        int[] actions = new int[size];
+        int turns = 0;
+        while (aliveCount > 0 && turns < maxTurns) {
+            chooseGreedy(actions);
+            step(actions);
+            turns++;
+        }
+        return turns;
+    }
+
+    /**
+     * Draws every random number the turn needs, for all lanes in one pass.
+     * Each 64-bit step gives two 32-bit draws, plenty for these rolls.
+     */
+    private void fillDraws() {
+        final int active = this.active;
+        for (int i = 0; i < active; i++) {
+            long x = rng[i];
+            x ^= x << 13; x ^= x >>> 7; x ^= x << 17;
+            damageRoll[i] = (x >>> 32) * 0x1.0p-32;
+            critRoll[i] = (int)x & Integer.MAX_VALUE;
+            x ^= x << 13; x ^= x >>> 7; x ^= x << 17;
+            defenseRoll[i] = (x >>> 32) * 0x1.0p-32;
+            enemyDamageRoll[i] = (x & 0xFFFFFFFFL) * 0x1.0p-32;
+            x ^= x << 13; x ^= x >>> 7; x ^= x << 17;
+            enemyCritRoll[i] = (int)(x >>> 33);
+            rng[i] = x;
+        }
+    }
+
+    private double nextDouble(int lane) {
+        long x = rng[lane];
+        x ^= x << 13; x ^= x >>> 7; x ^= x << 17;
+        rng[lane] = x;
+        return (x >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Spawns the next enemy and takes an upgrade, in the order the victory
+     * dialog does: resetGame, then applyUpgrade. Upgrades follow the greedy
+     * policy, alternating attack and health.
+     */
+    private void nextRound(int lane) {
+        spawnEnemy(lane);
+
+        enemiesDefeated[lane]++;
+        if (enemiesDefeated[lane] % 2 == 1) {
+            attackUpgrades[lane]++;
+            baseMaxDamage[lane] = config.maxDamage + attackUpgrades[lane] * config.attackUpgradeStep;
+        } else {
+            basePlayerHP[lane]++;
+            hp[lane] = basePlayerHP[lane];
+        }
+    }
+
+    /**
+     * Resets the lane's counters and rolls its enemy, like GameLogic.resetCounters.
+     */
+    private void spawnEnemy(int lane) {
+        int round = enemiesDefeated[lane];
+        int enemyId = enemyCatalog.sample(nextDouble(lane));
+
+        hp[lane] = basePlayerHP[lane];
+        def[lane] = basePlayerDefense[lane];
+        enemyHP[lane] = scalingTable.getEnemyHP(round);
+        damageBonus[lane] = scalingTable.getDamageBonus(round);
+        armor[lane] = scalingTable.getArmor(round);
+        penetration[lane] = scalingTable.hasArmorPenetration(round) ? 1 : 0;
+        if (enemyId >= 0) {
+            enemyHP[lane] += enemyCatalog.getHpBonus(enemyId);
+            damageBonus[lane] += enemyCatalog.getDamageBonus(enemyId);
+            armor[lane] += enemyCatalog.getArmorBonus(enemyId);
+        }
+        if (armor[lane] <= 0) {
+            armor[lane] = 0;
+            penetration[lane] = 0;
+        }
+    }
+
+    // Getters
+    public int size() { return size; }
+    public int getAliveCount() { return aliveCount; }
+
+    /**
+     * Whether the game is still in play.
+     * @param game Game index, 0..size-1
+     */
+    public boolean isAlive(int game) {
+        int slot = slotOfGame[game];
+        return slot >= 0 && alive[slot] == 1;
+    }
+
+    /**
+     * The round the game is on, or died in, as shown on the death screen.
+     * @param game Game index, 0..size-1
+     */
+    public int getRound(int game) {
+        int slot = slotOfGame[game];
+        return slot >= 0 ? enemiesDefeated[slot] + 1 : finalRound[game];
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CardCatalog holds the card definitions loaded from a data file.
+ * Cards are referred to everywhere else by their integer id.
+ */
+public class CardCatalog {
+    public static final String DEFAULT_CATALOG_FILE = "data/cards.txt";
+
+    // Card types
+    public static final int TYPE_ATTACK = 0;
+    public static final int TYPE_DEFENSE = 1;
+
+    private final String[] names;
+    private final int[] types;
+    private final String[] spritePaths;
+    private final int[] copies;
+    private final CardEffect[] effects;
+
+    private CardCatalog(List<String[]> rows) {
+        int count = rows.size();
+        names = new String[count];
+        types = new int[count];
+        spritePaths = new String[count];
+        copies = new int[count];
+        effects = new CardEffect[count];
+        Map<String, CardEffect> distinct = new HashMap<>(); // Cards with the same definition share one effect
+
+        for (int i = 0; i < count; i++) {
+            String[] row = rows.get(i);
+            names[i] = row[0];
+            types[i] = parseType(row[1]);
+            spritePaths[i] = row[2];
+            copies[i] = row.length > 3 ? Integer.parseInt(row[3]) : 1;
+            String definition = row.length > 4 ? row[4] : defaultEffect(types[i]);
+            effects[i] = distinct.computeIfAbsent(definition, CardEffect::parse);
+        }
+    }
+
+    private static int parseType(String type) {
+        switch (type) {
+            case "attack": return TYPE_ATTACK;
+            case "defense": return TYPE_DEFENSE;
+            default: throw new IllegalArgumentException("Unknown card type: " + type);
+        }
+    }
+
+    // Cards without an effect column do what their type always did
+    private static String defaultEffect(int type) {
+        return type == TYPE_DEFENSE ? "defend" : "damage";
+    }
+
+    /**
+     * Loads the catalog from the given file. Falls back to the built-in
+     * attack and defense cards if the file is missing or invalid.
+     */
+    public static CardCatalog load(String path) {
+        File file = new File(path);
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                List<String[]> rows = new ArrayList<>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    // The effect is the rest of the line, so it may contain commas
+                    String[] row = line.split("\\s*,\\s*", 5);
+                    if (row.length < 3) {
+                        throw new IllegalArgumentException("Invalid card entry: " + line);
+                    }
+                    rows.add(row);
+                }
+                if (!rows.isEmpty()) {
+                    return new CardCatalog(rows);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                e.printStackTrace();
+            }
+        }
+        return createDefault();
+    }
+
+    private static CardCatalog createDefault() {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[] {"attack", "attack", "sprites/attack.png", "12"});
+        rows.add(new String[] {"defense", "defense", "sprites/defense.png", "8"});
+        return new CardCatalog(rows);
+    }
+
+    /**
+     * Builds the card id list for a starting deck, one entry per copy.
+     */
+    public int[] buildDeckList() {
+        int total = 0;
+        for (int count : copies) {
+            total += count;
+        }
+
+        int[] cards = new int[total];
+        int next = 0;
+        for (int id = 0; id < copies.length; id++) {
+            for (int c = 0; c < copies[id]; c++) {
+                cards[next++] = id;
+            }
+        }
+        return cards;
+    }
+
+    // Getters
+    public int size() { return names.length; }
+    public String getName(int id) { return names[id]; }
+    public int getType(int id) { return types[id]; }
+    public boolean isDefense(int id) { return types[id] == TYPE_DEFENSE; }
+    public String getSpritePath(int id) { return spritePaths[id]; }
+    public int getCopies(int id) { return copies[id]; }
+    public CardEffect getEffect(int id) { return effects[id]; }
+
+    /**
+     * Plays a card's effect on the game.
+     */
+    public void playEffect(int id, GameLogic game) {
+        effects[id].apply(game);
+    }
+}
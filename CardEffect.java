@@ -0,0 +1,205 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CardEffect is what a card does when played, defined in the card data as a
+ * list of steps separated by commas:
+ *
+ *   damage              roll the player's attack range and resolve it through the combat rules
+ *   damage 3..5         deal 3 to 5 base damage instead
+ *   defend              roll the player's defense gain range
+ *   defend 2..4         gain 2 to 4 defense instead
+ *   heal 1              restore 1 HP (a range like 1..3 works too)
+ *   pierce              modifier: this card's damage ignores enemy armor without breaking it
+ *
+ * e.g. "damage 3..5, pierce" or "defend, heal 1".
+ *
+ * Playing a card walks its steps and calls the matching GameLogic
+ * operations. compile folds the steps into a MethodHandle chain instead, for
+ * CardEffectBenchmark to compare with: called through one shared invokeExact
+ * site, the chains cannot be inlined, and on a catalog of hundreds of distinct
+ * effects they play several times slower than walking the steps.
+ */
+public final class CardEffect {
+    // Step operations
+    private static final int OP_DAMAGE = 0;
+    private static final int OP_DEFEND = 1;
+    private static final int OP_HEAL = 2;
+
+    private static final int PLAYER_RANGE = -1; // min and max when the step uses the player's own range
+    private static final MethodType EFFECT_TYPE = MethodType.methodType(void.class, GameLogic.class);
+
+    // GameLogic's effect operations, looked up the first time an effect is compiled
+    private static final class Operations {
+        static final MethodHandle DAMAGE;
+        static final MethodHandle DAMAGE_RANGE;
+        static final MethodHandle DEFEND;
+        static final MethodHandle DEFEND_RANGE;
+        static final MethodHandle HEAL;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                DAMAGE = lookup.findVirtual(GameLogic.class, "effectDamage",
+                        MethodType.methodType(void.class, boolean.class));
+                DAMAGE_RANGE = lookup.findVirtual(GameLogic.class, "effectDamage",
+                        MethodType.methodType(void.class, int.class, int.class, boolean.class));
+                DEFEND = lookup.findVirtual(GameLogic.class, "effectDefend", MethodType.methodType(void.class));
+                DEFEND_RANGE = lookup.findVirtual(GameLogic.class, "effectDefend",
+                        MethodType.methodType(void.class, int.class, int.class));
+                HEAL = lookup.findVirtual(GameLogic.class, "effectHeal",
+                        MethodType.methodType(void.class, int.class, int.class));
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+    private final String definition;
+    private final int[] ops;
+    private final int[] mins;
+    private final int[] maxes;
+    private final boolean pierce;
+
+    private CardEffect(String definition, int[] ops, int[] mins, int[] maxes, boolean pierce) {
+        this.definition = definition;
+        this.ops = ops;
+        this.mins = mins;
+        this.maxes = maxes;
+        this.pierce = pierce;
+    }
+
+    /**
+     * Parses an effect definition.
+     * @throws IllegalArgumentException If the definition is not valid
+     */
+    public static CardEffect parse(String definition) {
+        List<int[]> steps = new ArrayList<>();
+        boolean pierce = false;
+        for (String part : definition.split(",")) {
+            String[] words = part.trim().split("\\s+");
+            if (words[0].isEmpty()) {
+                throw new IllegalArgumentException("Empty step in card effect: " + definition);
+            }
+            if (words.length > 2) {
+                throw new IllegalArgumentException("Invalid card effect step: " + part.trim());
+            }
+            int op;
+            switch (words[0]) {
+                case "damage": op = OP_DAMAGE; break;
+                case "defend": op = OP_DEFEND; break;
+                case "heal": op = OP_HEAL; break;
+                case "pierce":
+                    if (words.length > 1) {
+                        throw new IllegalArgumentException("pierce takes no value: " + part.trim());
+                    }
+                    pierce = true;
+                    continue;
+                default: throw new IllegalArgumentException("Unknown card effect step: " + words[0]);
+            }
+            int[] range = words.length > 1 ? parseRange(words[1]) : new int[] {PLAYER_RANGE, PLAYER_RANGE};
+            if (op == OP_HEAL && range[0] == PLAYER_RANGE) {
+                throw new IllegalArgumentException("heal needs an amount: " + part.trim());
+            }
+            steps.add(new int[] {op, range[0], range[1]});
+        }
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("Card effect has no steps: " + definition);
+        }
+
+        int[] ops = new int[steps.size()];
+        int[] mins = new int[steps.size()];
+        int[] maxes = new int[steps.size()];
+        for (int i = 0; i < ops.length; i++) {
+            ops[i] = steps.get(i)[0];
+            mins[i] = steps.get(i)[1];
+            maxes[i] = steps.get(i)[2];
+        }
+        return new CardEffect(definition.trim(), ops, mins, maxes, pierce);
+    }
+
+    // "3" or "3..5"
+    private static int[] parseRange(String text) {
+        int split = text.indexOf("..");
+        int min = Integer.parseInt(split < 0 ? text : text.substring(0, split));
+        int max = split < 0 ? min : Integer.parseInt(text.substring(split + 2));
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("Invalid range: " + text);
+        }
+        return new int[] {min, max};
+    }
+
+    /**
+     * Folds the steps, last first, into one (GameLogic)void handle with the
+     * same result as apply. Only CardEffectBenchmark plays effects this way.
+     */
+    MethodHandle compile() {
+        MethodHandle chain = MethodHandles.empty(EFFECT_TYPE);
+        for (int i = ops.length - 1; i >= 0; i--) {
+            chain = MethodHandles.foldArguments(chain, bindStep(i));
+        }
+        return chain.asType(EFFECT_TYPE);
+    }
+
+    private MethodHandle bindStep(int i) {
+        boolean playerRange = mins[i] == PLAYER_RANGE;
+        switch (ops[i]) {
+            case OP_DAMAGE:
+                return playerRange
+                        ? MethodHandles.insertArguments(Operations.DAMAGE, 1, pierce)
+                        : MethodHandles.insertArguments(Operations.DAMAGE_RANGE, 1, mins[i], maxes[i], pierce);
+            case OP_DEFEND:
+                return playerRange
+                        ? Operations.DEFEND
+                        : MethodHandles.insertArguments(Operations.DEFEND_RANGE, 1, mins[i], maxes[i]);
+            default:
+                return MethodHandles.insertArguments(Operations.HEAL, 1, mins[i], maxes[i]);
+        }
+    }
+
+    /**
+     * Plays the effect on the game, step by step.
+     */
+    public void apply(GameLogic game) {
+        for (int i = 0; i < ops.length; i++) {
+            boolean playerRange = mins[i] == PLAYER_RANGE;
+            switch (ops[i]) {
+                case OP_DAMAGE:
+                    if (playerRange) {
+                        game.effectDamage(pierce);
+                    } else {
+                        game.effectDamage(mins[i], maxes[i], pierce);
+                    }
+                    break;
+                case OP_DEFEND:
+                    if (playerRange) {
+                        game.effectDefend();
+                    } else {
+                        game.effectDefend(mins[i], maxes[i]);
+                    }
+                    break;
+                default:
+                    game.effectHeal(mins[i], maxes[i]);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Whether the effect deals damage.
+     */
+    public boolean dealsDamage() {
+        for (int op : ops) {
+            if (op == OP_DAMAGE) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return definition;
+    }
+}
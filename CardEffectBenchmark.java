@@ -0,0 +1,124 @@
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * CardEffectBenchmark compares playing card effects by walking their steps,
+ * as the game does, with calling the MethodHandle chains CardEffect.compile
+ * folds them into, over a generated catalog of random effect definitions.
+ * Both paths play the same cards on identically seeded headless games, and
+ * the final states are compared as a check.
+ *
+ * Usage: java CardEffectBenchmark [cards] [plays] [iterations]
+ */
+public class CardEffectBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final long SEED = 1;
+
+    public static void main(String[] args) {
+        int cards = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int plays = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        CardEffect[] effects = generateCatalog(cards, new Random(SEED));
+        int[] order = new int[plays];
+        Random random = new Random(SEED + 1);
+        for (int i = 0; i < plays; i++) {
+            order[i] = random.nextInt(cards);
+        }
+
+        System.out.println("=== Card Effect Benchmark ===");
+        System.out.println("Cards: " + cards + ", plays per iteration: " + plays);
+        for (int i = 0; i < Math.min(3, cards); i++) {
+            System.out.println("  e.g. " + effects[i]);
+        }
+
+        long distinct = Arrays.stream(effects).map(CardEffect::toString).distinct().count();
+        System.out.println(distinct + " distinct effects");
+        MethodHandle[] compiled = new MethodHandle[cards];
+        for (int i = 0; i < cards; i++) {
+            compiled[i] = effects[i].compile();
+        }
+
+        double interpretedRate = measure("Interpreted", iterations, effects, compiled, order, false);
+        double compiledRate = measure("Compiled", iterations, effects, compiled, order, true);
+        System.out.printf("Compiled vs interpreted: %.2fx%n", compiledRate / interpretedRate);
+
+        GameLogic a = play(effects, compiled, order, false);
+        GameLogic b = play(effects, compiled, order, true);
+        boolean same = a.getHpCounter() == b.getHpCounter() && a.getDefCounter() == b.getDefCounter()
+                && a.getEnemyHP() == b.getEnemyHP();
+        System.out.println("Same final state: " + same);
+    }
+
+    /**
+     * Random definitions using every step kind.
+     */
+    static CardEffect[] generateCatalog(int count, Random random) {
+        CardEffect[] effects = new CardEffect[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder definition = new StringBuilder();
+            int steps = 1 + random.nextInt(3);
+            for (int s = 0; s < steps; s++) {
+                if (s > 0) definition.append(", ");
+                int min = 1 + random.nextInt(4);
+                int max = min + random.nextInt(3);
+                switch (random.nextInt(5)) {
+                    case 0: definition.append("damage"); break;
+                    case 1: definition.append("damage ").append(min).append("..").append(max); break;
+                    case 2: definition.append("defend"); break;
+                    case 3: definition.append("defend ").append(min).append("..").append(max); break;
+                    default: definition.append("heal ").append(min); break;
+                }
+            }
+            if (random.nextInt(4) == 0) {
+                definition.append(", pierce");
+            }
+            effects[i] = CardEffect.parse(definition.toString());
+        }
+        return effects;
+    }
+
+    /**
+     * Runs warm-up iterations, then timed ones, and prints the best rate.
+     * @return Plays per second in the best iteration
+     */
+    private static double measure(String name, int iterations, CardEffect[] effects, MethodHandle[] compiled,
+                                  int[] order, boolean useCompiled) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            play(effects, compiled, order, useCompiled);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            play(effects, compiled, order, useCompiled);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double rate = order.length / (best / 1e9);
+        System.out.printf("%-12s %14.0f plays/s  (best %.1f ms)%n", name, rate, best / 1e6);
+        return rate;
+    }
+
+    private static GameLogic play(CardEffect[] effects, MethodHandle[] compiled, int[] order, boolean useCompiled) {
+        GameLogic game = new GameLogic(BalanceConfig.defaults(), SEED);
+        for (int card : order) {
+            if (useCompiled) {
+                invoke(compiled[card], game);
+            } else {
+                effects[card].apply(game);
+            }
+        }
+        return game;
+    }
+
+    // The one call site every compiled effect goes through, as CardCatalog.playEffect would be
+    private static void invoke(MethodHandle effect, GameLogic game) {
+        try {
+            effect.invokeExact(game);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import java.util.function.DoubleSupplier;
+
+/**
+ * CombatBenchmark compares the throughput of BatchCombat with playing the
+ * same number of games on headless GameLogic objects, both with the greedy
+ * policy. Mean rounds are printed too, as a check that the two agree.
+ *
+ * Usage: java CombatBenchmark [games] [iterations]
+ */
+public class CombatBenchmark {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final long SEED = 1;
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        BalanceConfig config = BalanceConfig.load(BalanceConfig.DEFAULT_CONFIG_FILE);
+
+        System.out.println("=== Combat Benchmark ===");
+        System.out.println("Games per iteration: " + games);
+
+        double objectRate = measure("GameLogic objects", iterations, () -> playObjects(config, games), games);
+        double batchRate = measure("BatchCombat", iterations, () -> playBatch(config, games), games);
+        System.out.printf("Speedup: %.1fx%n", batchRate / objectRate);
+    }
+
+    /**
+     * Runs warm-up iterations, then timed ones, and prints the best rate.
+     * @return Games per second in the best iteration
+     */
+    private static double measure(String name, int iterations, DoubleSupplier play, int games) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            play.getAsDouble();
+        }
+        long best = Long.MAX_VALUE;
+        double meanRound = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            meanRound = play.getAsDouble();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double rate = games / (best / 1e9);
+        System.out.printf("%-18s %12.0f games/s  (best %.1f ms, mean round %.3f)%n", name, rate, best / 1e6, meanRound);
+        return rate;
+    }
+
+    private static double playObjects(BalanceConfig config, int games) {
+        long total = 0;
+        for (int i = 0; i < games; i++) {
+            GameLogic game = new GameLogic(config, SEED + i);
+            total += RunSimulator.playRun(game, SimulationPolicy.byName("greedy", SEED + i), RunSimulator.DEFAULT_MAX_TURNS);
+        }
+        return (double)total / games;
+    }
+
+    private static double playBatch(BalanceConfig config, int games) {
+        BatchCombat batch = new BatchCombat(config, games, SEED);
+        batch.runGreedy(RunSimulator.DEFAULT_MAX_TURNS);
+        long total = 0;
+        for (int i = 0; i < games; i++) {
+            total += batch.getRound(i);
+        }
+        return (double)total / games;
+    }
+}
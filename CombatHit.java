@@ -0,0 +1,39 @@
+/**
+ * CombatHit holds the working state of a single hit while it passes through
+ * the combat pipeline. Instances are reused between hits so resolving a hit
+ * does not allocate.
+ */
+public class CombatHit {
+    public int damage;
+    public boolean critical;
+
+    // Target armor
+    public int armor;
+    public boolean armored;
+    public boolean armorPenetration;
+    public boolean armorBroken;
+
+    // Target defense
+    public int defense;
+    public int absorbed;
+
+    /**
+     * Prepares this hit for a new pass through the pipeline.
+     *
+     * @param damage The rolled base damage
+     * @param armored Whether the target currently has armor
+     * @param armor The target's armor value
+     * @param armorPenetration Whether the target's armor only reduces damage instead of breaking
+     * @param defense The target's current defense
+     */
+    public void reset(int damage, boolean armored, int armor, boolean armorPenetration, int defense) {
+        this.damage = damage;
+        this.critical = false;
+        this.armored = armored;
+        this.armor = armor;
+        this.armorPenetration = armorPenetration;
+        this.armorBroken = false;
+        this.defense = defense;
+        this.absorbed = 0;
+    }
+}
@@ -0,0 +1,230 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * CombatPipeline resolves hits by running them through an ordered list of stages.
+ * The stages for each kind of hit are loaded from a rules table, so new mechanics
+ * can be added to the table without changing how damage is applied. Stage
+ * parameters written as $name are taken from the BalanceConfig.
+ */
+public class CombatPipeline {
+    public static final String DEFAULT_RULES_FILE = "data/combat_rules.txt";
+
+    // Hit kinds
+    public static final int PLAYER_ATTACK = 0;
+    public static final int ENEMY_ATTACK = 1;
+    private static final String[] HIT_KIND_NAMES = {"player", "enemy"};
+
+    // Built-in table used when the rules file is missing
+    private static final String[] DEFAULT_RULES = {
+        "player crit chance=$playerCritChance multiplier=$playerCritMultiplier round=floor",
+        "player penetration",
+        "player armor",
+        "enemy crit chance=$enemyCritChance multiplier=$enemyCritMultiplier round=ceil",
+        "enemy defense"
+    };
+
+    // Stage factories by name
+    private static final Map<String, Function<Map<String, String>, CombatStage>> STAGE_TYPES = new HashMap<>();
+
+    static {
+        registerStage("crit", CritStage::new);
+        registerStage("penetration", params -> new PenetrationStage());
+        registerStage("armor", params -> new ArmorStage());
+        registerStage("defense", params -> new DefenseStage());
+    }
+
+    private final CombatStage[][] stages;
+
+    private CombatPipeline(CombatStage[][] stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * Registers a stage type that can be referenced by name from the rules table.
+     * @param name The stage name used in the rules table
+     * @param factory Creates the stage from its key=value parameters
+     */
+    public static void registerStage(String name, Function<Map<String, String>, CombatStage> factory) {
+        STAGE_TYPES.put(name, factory);
+    }
+
+    /**
+     * Loads the pipeline from the given rules file, falling back to the built-in
+     * rules if the file cannot be read or is invalid.
+     */
+    public static CombatPipeline load(String path, BalanceConfig config) {
+        try {
+            return fromRules(loadRules(path), config);
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            return fromRules(DEFAULT_RULES, config);
+        }
+    }
+
+    /**
+     * Reads the rule lines from the given file, or returns the built-in rules
+     * if the file cannot be read.
+     */
+    public static String[] loadRules(String path) {
+        File file = new File(path);
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                List<String> lines = new ArrayList<>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+                return lines.toArray(new String[0]);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return DEFAULT_RULES.clone();
+    }
+
+    /**
+     * Builds a pipeline from rule lines of the form
+     * {@code <player|enemy> <stage> [key=value ...]}.
+     */
+    public static CombatPipeline fromRules(String[] rules, BalanceConfig config) {
+        List<List<CombatStage>> byKind = new ArrayList<>();
+        for (int i = 0; i < HIT_KIND_NAMES.length; i++) {
+            byKind.add(new ArrayList<>());
+        }
+
+        for (String rule : rules) {
+            String line = rule.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] parts = line.split("\\s+");
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Invalid combat rule: " + line);
+            }
+            int kind = hitKind(parts[0]);
+            Function<Map<String, String>, CombatStage> factory = STAGE_TYPES.get(parts[1]);
+            if (kind < 0 || factory == null) {
+                throw new IllegalArgumentException("Unknown combat rule: " + line);
+            }
+
+            Map<String, String> params = new HashMap<>();
+            for (int p = 2; p < parts.length; p++) {
+                int eq = parts[p].indexOf('=');
+                if (eq > 0) {
+                    String value = parts[p].substring(eq + 1);
+                    if (value.startsWith("$")) {
+                        value = String.valueOf(config.get(value.substring(1)));
+                    }
+                    params.put(parts[p].substring(0, eq), value);
+                }
+            }
+            byKind.get(kind).add(factory.apply(params));
+        }
+
+        CombatStage[][] stages = new CombatStage[byKind.size()][];
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = byKind.get(i).toArray(new CombatStage[0]);
+        }
+        return new CombatPipeline(stages);
+    }
+
+    private static int hitKind(String name) {
+        for (int i = 0; i < HIT_KIND_NAMES.length; i++) {
+            if (HIT_KIND_NAMES[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Runs a hit through every stage for its kind. Each stage is constant time,
+     * so resolving a hit costs the same regardless of how much damage it deals.
+     * @param kind PLAYER_ATTACK or ENEMY_ATTACK
+     * @param hit The hit to resolve, prepared with CombatHit.reset
+     * @param random The game's random source
+     */
+    public void resolve(int kind, CombatHit hit, Random random) {
+        CombatStage[] list = stages[kind];
+        for (int i = 0; i < list.length; i++) {
+            list[i].apply(hit, random);
+        }
+    }
+
+    private static double doubleParam(Map<String, String> params, String key, double defaultValue) {
+        String value = params.get(key);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    /**
+     * Multiplies damage by a fixed factor on a successful roll.
+     */
+    static final class CritStage implements CombatStage {
+        private final double chance;
+        private final double multiplier;
+        private final boolean roundUp;
+
+        CritStage(Map<String, String> params) {
+            chance = doubleParam(params, "chance", 0.0);
+            multiplier = doubleParam(params, "multiplier", 2.0);
+            roundUp = "ceil".equals(params.get("round"));
+        }
+
+        @Override
+        public void apply(CombatHit hit, Random random) {
+            if (random.nextDouble() < chance) {
+                double critDamage = hit.damage * multiplier;
+                hit.damage = (int)(roundUp ? Math.ceil(critDamage) : Math.floor(critDamage));
+                hit.critical = true;
+            }
+        }
+    }
+
+    /**
+     * Penetrating armor reduces damage by its value instead of breaking.
+     */
+    static final class PenetrationStage implements CombatStage {
+        @Override
+        public void apply(CombatHit hit, Random random) {
+            if (hit.armored && hit.armorPenetration) {
+                hit.damage = Math.max(0, hit.damage - hit.armor);
+            }
+        }
+    }
+
+    /**
+     * Regular armor absorbs the whole hit and breaks.
+     */
+    static final class ArmorStage implements CombatStage {
+        @Override
+        public void apply(CombatHit hit, Random random) {
+            if (hit.armored && !hit.armorPenetration) {
+                hit.armorBroken = true;
+                hit.armored = false;
+                hit.armor = 0;
+                hit.damage = 0;
+            }
+        }
+    }
+
+    /**
+     * Defense absorbs damage point for point before it reaches HP.
+     */
+    static final class DefenseStage implements CombatStage {
+        @Override
+        public void apply(CombatHit hit, Random random) {
+            int absorbed = Math.min(hit.defense, hit.damage);
+            if (absorbed > 0) {
+                hit.defense -= absorbed;
+                hit.absorbed += absorbed;
+                hit.damage -= absorbed;
+            }
+        }
+    }
+}
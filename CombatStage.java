@@ -0,0 +1,14 @@
+import java.util.Random;
+
+/**
+ * A single step of the combat pipeline, such as a critical hit roll or
+ * defense absorption. Stages only do constant-time arithmetic on the hit.
+ */
+public interface CombatStage {
+    /**
+     * Applies this stage to the hit being resolved.
+     * @param hit The hit being resolved
+     * @param random The game's random source
+     */
+    void apply(CombatHit hit, Random random);
+}
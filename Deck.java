@@ -0,0 +1,193 @@
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Deck keeps the draw pile, discard pile and hand as primitive card id arrays.
+ * Drawing and discarding are O(1); when the draw pile runs out the discard pile
+ * is swapped in and shuffled in place, so nothing is allocated after construction.
+ */
+public class Deck {
+    private int[] drawPile;
+    private int drawCount;
+    private int[] discardPile;
+    private int discardCount;
+    private final int[] hand;
+    private final Random random;
+
+    /**
+     * @param cards The card ids that make up the deck, one entry per copy
+     * @param handSize Number of hand slots
+     * @param random The game's random source
+     */
+    public Deck(int[] cards, int handSize, Random random) {
+        this.random = random;
+        drawPile = cards.clone();
+        drawCount = drawPile.length;
+        discardPile = new int[drawPile.length];
+        discardCount = 0;
+        hand = new int[handSize];
+        for (int i = 0; i < handSize; i++) {
+            hand[i] = -1;
+        }
+    }
+
+    /**
+     * Gathers every card back into the draw pile, shuffles it and deals a new hand.
+     */
+    public void reset() {
+        for (int i = 0; i < hand.length; i++) {
+            if (hand[i] >= 0) {
+                drawPile[drawCount++] = hand[i];
+                hand[i] = -1;
+            }
+        }
+        System.arraycopy(discardPile, 0, drawPile, drawCount, discardCount);
+        drawCount += discardCount;
+        discardCount = 0;
+
+        shuffle(drawPile, drawCount, random);
+        for (int i = 0; i < hand.length; i++) {
+            hand[i] = draw();
+        }
+    }
+
+    /**
+     * Shuffles the first count entries of the array in place (Fisher-Yates).
+     */
+    public static void shuffle(int[] cards, int count, Random random) {
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = tmp;
+        }
+    }
+
+    /**
+     * Draws the top card, reshuffling the discard pile in if the draw pile is empty.
+     * @return The card id, or -1 if there is nothing left to draw
+     */
+    public int draw() {
+        if (drawCount == 0) {
+            reshuffleDiscard();
+            if (drawCount == 0) return -1;
+        }
+        return drawPile[--drawCount];
+    }
+
+    /**
+     * Returns the card that the next draw will produce without drawing it.
+     * @return The card id, or -1 if there is nothing left to draw
+     */
+    public int peek() {
+        if (drawCount == 0) {
+            reshuffleDiscard();
+            if (drawCount == 0) return -1;
+        }
+        return drawPile[drawCount - 1];
+    }
+
+    public void discard(int card) {
+        if (card >= 0) {
+            discardPile[discardCount++] = card;
+        }
+    }
+
+    /**
+     * Plays the card in a hand slot: the slot is refilled from the draw pile
+     * and the played card goes to the discard pile.
+     * @return The played card id, or -1 if the slot was empty
+     */
+    public int play(int slot) {
+        int card = hand[slot];
+        hand[slot] = draw();
+        discard(card);
+        return card;
+    }
+
+    private void reshuffleDiscard() {
+        int[] emptied = drawPile;
+        drawPile = discardPile;
+        drawCount = discardCount;
+        discardPile = emptied;
+        discardCount = 0;
+        shuffle(drawPile, drawCount, random);
+    }
+
+    /**
+     * Number of bytes writeState will produce.
+     */
+    int getStateSize() {
+        return 3 * 4 + 2 * (drawCount + discardCount + hand.length);
+    }
+
+    /**
+     * Writes the piles and hand as short card ids.
+     */
+    void writeState(ByteBuffer out) {
+        out.putInt(drawCount);
+        for (int i = 0; i < drawCount; i++) {
+            out.putShort((short)drawPile[i]);
+        }
+        out.putInt(discardCount);
+        for (int i = 0; i < discardCount; i++) {
+            out.putShort((short)discardPile[i]);
+        }
+        out.putInt(hand.length);
+        for (int i = 0; i < hand.length; i++) {
+            out.putShort((short)hand[i]);
+        }
+    }
+
+    /**
+     * Restores state written by writeState. The deck must hold the same number of cards.
+     * @param cardTypes Number of card definitions, used to validate ids
+     */
+    void readState(ByteBuffer in, int cardTypes) {
+        int savedDraw = in.getInt();
+        checkCount(savedDraw, drawPile.length);
+        for (int i = 0; i < savedDraw; i++) {
+            drawPile[i] = checkCard(in.getShort(), cardTypes);
+        }
+        int savedDiscard = in.getInt();
+        checkCount(savedDiscard, discardPile.length - savedDraw);
+        for (int i = 0; i < savedDiscard; i++) {
+            discardPile[i] = checkCard(in.getShort(), cardTypes);
+        }
+        if (in.getInt() != hand.length) {
+            throw new IllegalStateException("Saved hand size does not match");
+        }
+        int inHand = 0;
+        for (int i = 0; i < hand.length; i++) {
+            hand[i] = in.getShort();
+            if (hand[i] >= 0) {
+                checkCard(hand[i], cardTypes);
+                inHand++;
+            }
+        }
+        if (savedDraw + savedDiscard + inHand > drawPile.length) {
+            throw new IllegalStateException("Saved deck is larger than the current deck");
+        }
+        drawCount = savedDraw;
+        discardCount = savedDiscard;
+    }
+
+    private static void checkCount(int count, int max) {
+        if (count < 0 || count > max) {
+            throw new IllegalStateException("Saved pile size out of range: " + count);
+        }
+    }
+
+    private static int checkCard(int card, int cardTypes) {
+        if (card < 0 || card >= cardTypes) {
+            throw new IllegalStateException("Saved card id out of range: " + card);
+        }
+        return card;
+    }
+
+    // Getters
+    public int getHandCard(int slot) { return hand[slot]; }
+    public int getHandSize() { return hand.length; }
+    public int getDrawCount() { return drawCount; }
+    public int getDiscardCount() { return discardCount; }
+}
@@ -0,0 +1,181 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * EnemyCatalog holds every enemy that can spawn, loaded from a data file.
+ * Spawns are drawn with an alias table so picking an enemy is O(1) and
+ * allocates nothing.
+ */
+public class EnemyCatalog {
+    public static final String DEFAULT_CATALOG_FILE = "data/enemies.txt";
+
+    // Per-enemy data, indexed by enemy id
+    private final String[] names;
+    private final String[] spritePaths;
+    private final double[] weights;
+    private final int[] hpBonus;
+    private final int[] damageBonus;
+    private final int[] armorBonus;
+
+    // Alias table
+    private final double[] probability;
+    private final int[] alias;
+
+    private EnemyCatalog(List<String[]> rows) {
+        int count = rows.size();
+        names = new String[count];
+        spritePaths = new String[count];
+        weights = new double[count];
+        hpBonus = new int[count];
+        damageBonus = new int[count];
+        armorBonus = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            String[] row = rows.get(i);
+            names[i] = row[0];
+            spritePaths[i] = row[1];
+            weights[i] = row.length > 2 ? Double.parseDouble(row[2]) : 1.0;
+            hpBonus[i] = row.length > 3 ? Integer.parseInt(row[3]) : 0;
+            damageBonus[i] = row.length > 4 ? Integer.parseInt(row[4]) : 0;
+            armorBonus[i] = row.length > 5 ? Integer.parseInt(row[5]) : 0;
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("Negative spawn weight for " + names[i]);
+            }
+        }
+
+        probability = new double[count];
+        alias = new int[count];
+        buildAliasTable();
+    }
+
+    /**
+     * Loads the catalog from the given file. Falls back to the built-in roster
+     * if the file is missing or invalid.
+     */
+    public static EnemyCatalog load(String path) {
+        File file = new File(path);
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                List<String[]> rows = new ArrayList<>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    String[] row = line.split("\\s*,\\s*");
+                    if (row.length < 2) {
+                        throw new IllegalArgumentException("Invalid enemy entry: " + line);
+                    }
+                    rows.add(row);
+                }
+                if (!rows.isEmpty()) {
+                    return new EnemyCatalog(rows);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                e.printStackTrace();
+            }
+        }
+        return createDefault();
+    }
+
+    private static EnemyCatalog createDefault() {
+        String[] defaults = {"voidling", "yellow frederick", "tung ahur", "tung", "voidmage",
+                             "rage", "sobbing son", "blakeye", "smile", "blacklight"};
+        List<String[]> rows = new ArrayList<>();
+        for (String name : defaults) {
+            rows.add(new String[] {name, "sprites/Enemies/" + name + ".png"});
+        }
+        return new EnemyCatalog(rows);
+    }
+
+    /**
+     * Builds the alias table using Vose's method, so every sample needs one
+     * uniform index and one coin flip.
+     */
+    private void buildAliasTable() {
+        int count = weights.length;
+        if (count == 0) return;
+
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+
+        double[] scaled = new double[count];
+        ArrayDeque<Integer> small = new ArrayDeque<>();
+        ArrayDeque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < count; i++) {
+            scaled[i] = total > 0 ? weights[i] * count / total : 1.0;
+            if (scaled[i] < 1.0) {
+                small.push(i);
+            } else {
+                large.push(i);
+            }
+        }
+
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small.push(more);
+            } else {
+                large.push(more);
+            }
+        }
+
+        // Whatever is left is 1.0 up to rounding error
+        while (!large.isEmpty()) {
+            int i = large.pop();
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+        while (!small.isEmpty()) {
+            int i = small.pop();
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+    }
+
+    /**
+     * Picks a random enemy id according to the spawn weights.
+     * @return The enemy id, or -1 if the catalog is empty
+     */
+    public int sample(Random random) {
+        int count = names.length;
+        if (count == 0) return -1;
+
+        int column = random.nextInt(count);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    /**
+     * Picks an enemy id from a single uniform draw in [0, 1): the integer part
+     * of u * size is the column and the fraction is the coin flip.
+     * @return The enemy id, or -1 if the catalog is empty
+     */
+    public int sample(double u) {
+        int count = names.length;
+        if (count == 0) return -1;
+
+        double scaled = u * count;
+        int column = Math.min((int)scaled, count - 1);
+        return scaled - column < probability[column] ? column : alias[column];
+    }
+
+    // Getters
+    public int size() { return names.length; }
+    public String getName(int id) { return names[id]; }
+    public String getSpritePath(int id) { return spritePaths[id]; }
+    public double getWeight(int id) { return weights[id]; }
+    public int getHpBonus(int id) { return hpBonus[id]; }
+    public int getDamageBonus(int id) { return damageBonus[id]; }
+    public int getArmorBonus(int id) { return armorBonus[id]; }
+}
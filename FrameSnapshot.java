@@ -0,0 +1,156 @@
+/**
+ * FrameSnapshot is a copy of everything needed to draw one frame: the game
+ * values on screen and the animation state at the painted moment. It is
+ * captured on the EDT and handed to the render thread, so rendering never
+ * reads state the EDT is changing. GamePanel refills a few snapshots in turn
+ * rather than making one per frame; a snapshot is not changed while it is
+ * published or being drawn.
+ */
+public final class FrameSnapshot {
+    // Target size
+    public int width;
+    public int height;
+
+    // Game state
+    public String spritePath;
+    public String spriteName;
+    public int hp;
+    public int def;
+    public int enemyHP;
+    public int round;
+    public int highScore;          // -1 while not known yet
+    int[] topRounds;               // Best rounds for the death screen, best first; shared and never modified, null if none
+    public boolean deathScreen;
+    public boolean upgradeChoice;  // Victory overlay with the upgrade buttons
+    public int hoveredUpgrade;     // -1 when no upgrade button is hovered
+
+    // Hand, with each card's animation values already interpolated. Owned by the
+    // snapshot once passed in: the caller must not change them while it is drawn
+    private final int[] handCards;
+    private final double[] cardScales;
+    private final double[] cardRotations;
+    private final double[] cardAlphas;
+
+    // Effects
+    public double centerSpriteScale;
+    public int mouseX;
+    public int mouseY;
+    public boolean flashing;
+    public boolean armorBreak;
+    public boolean enemyFlashing;
+    public int shakeX;
+    public int shakeY;
+    public int lastDamageDealt;
+    public float damageAlpha; // 0 when the damage number is hidden
+
+    // Start of the latest click this frame shows the result of, 0 if none; see LatencyProbe
+    public long clickNanos;
+
+    FrameSnapshot(int width, int height, GameLogic game, int highScore, int[] topRounds, boolean deathScreen,
+                  boolean upgradeChoice, int hoveredUpgrade,
+                  int[] handCards, double[] cardScales, double[] cardRotations, double[] cardAlphas,
+                  double centerSpriteScale, int mouseX, int mouseY,
+                  boolean flashing, boolean armorBreak, boolean enemyFlashing, int shakeX, int shakeY,
+                  int lastDamageDealt, float damageAlpha, long clickNanos) {
+        this.handCards = handCards;
+        this.cardScales = cardScales;
+        this.cardRotations = cardRotations;
+        this.cardAlphas = cardAlphas;
+        set(width, height, game, highScore, topRounds, deathScreen, upgradeChoice, hoveredUpgrade,
+                centerSpriteScale, mouseX, mouseY, flashing, armorBreak, enemyFlashing, shakeX, shakeY,
+                lastDamageDealt, damageAlpha, clickNanos);
+    }
+
+    /**
+     * An empty snapshot with room for a hand, to be filled with set and setCard.
+     */
+    FrameSnapshot(int handSize) {
+        handCards = new int[handSize];
+        cardScales = new double[handSize];
+        cardRotations = new double[handSize];
+        cardAlphas = new double[handSize];
+    }
+
+    /**
+     * A frame of game values that did not come from a local GameLogic, e.g. a spectator's.
+     */
+    FrameSnapshot(int width, int height, String spritePath, String spriteName,
+                  int hp, int def, int enemyHP, int round, int highScore, int[] topRounds, boolean deathScreen,
+                  boolean upgradeChoice, int hoveredUpgrade,
+                  int[] handCards, double[] cardScales, double[] cardRotations, double[] cardAlphas,
+                  double centerSpriteScale, int mouseX, int mouseY,
+                  boolean flashing, boolean armorBreak, boolean enemyFlashing, int shakeX, int shakeY,
+                  int lastDamageDealt, float damageAlpha, long clickNanos) {
+        this.handCards = handCards;
+        this.cardScales = cardScales;
+        this.cardRotations = cardRotations;
+        this.cardAlphas = cardAlphas;
+        set(width, height, spritePath, spriteName, hp, def, enemyHP, round, highScore, topRounds, deathScreen,
+                upgradeChoice, hoveredUpgrade, centerSpriteScale, mouseX, mouseY,
+                flashing, armorBreak, enemyFlashing, shakeX, shakeY, lastDamageDealt, damageAlpha, clickNanos);
+    }
+
+    /**
+     * Refills the game values and effects from a local game. The hand is set with setCard.
+     */
+    void set(int width, int height, GameLogic game, int highScore, int[] topRounds, boolean deathScreen,
+             boolean upgradeChoice, int hoveredUpgrade, double centerSpriteScale, int mouseX, int mouseY,
+             boolean flashing, boolean armorBreak, boolean enemyFlashing, int shakeX, int shakeY,
+             int lastDamageDealt, float damageAlpha, long clickNanos) {
+        set(width, height, game.getCurrentSpritePath(), game.getCurrentSpriteName(),
+                game.getHpCounter(), game.getDefCounter(), game.getEnemyHP(), game.getEnemiesDefeated() + 1,
+                highScore, topRounds, deathScreen || game.isPlayerDead(), upgradeChoice, hoveredUpgrade,
+                centerSpriteScale, mouseX, mouseY,
+                flashing, armorBreak, enemyFlashing, shakeX, shakeY,
+                lastDamageDealt, damageAlpha, clickNanos);
+    }
+
+    private void set(int width, int height, String spritePath, String spriteName,
+                     int hp, int def, int enemyHP, int round, int highScore, int[] topRounds, boolean deathScreen,
+                     boolean upgradeChoice, int hoveredUpgrade, double centerSpriteScale, int mouseX, int mouseY,
+                     boolean flashing, boolean armorBreak, boolean enemyFlashing, int shakeX, int shakeY,
+                     int lastDamageDealt, float damageAlpha, long clickNanos) {
+        this.width = width;
+        this.height = height;
+
+        this.spritePath = spritePath;
+        this.spriteName = spriteName;
+        this.hp = hp;
+        this.def = def;
+        this.enemyHP = enemyHP;
+        this.round = round;
+        this.highScore = highScore;
+        this.topRounds = topRounds;
+        this.deathScreen = deathScreen;
+        this.upgradeChoice = upgradeChoice;
+        this.hoveredUpgrade = hoveredUpgrade;
+
+        this.centerSpriteScale = centerSpriteScale;
+        this.mouseX = mouseX;
+        this.mouseY = mouseY;
+        this.flashing = flashing;
+        this.armorBreak = armorBreak;
+        this.enemyFlashing = enemyFlashing;
+        this.shakeX = shakeX;
+        this.shakeY = shakeY;
+        this.lastDamageDealt = lastDamageDealt;
+        this.damageAlpha = damageAlpha;
+        this.clickNanos = clickNanos;
+    }
+
+    /**
+     * Sets one hand slot's card and its interpolated animation values.
+     */
+    void setCard(int slot, int card, double scale, double rotation, double alpha) {
+        handCards[slot] = card;
+        cardScales[slot] = scale;
+        cardRotations[slot] = rotation;
+        cardAlphas[slot] = alpha;
+    }
+
+    public int getHandSize() { return handCards.length; }
+    public int getHandCard(int slot) { return handCards[slot]; }
+    public double getCardScale(int slot) { return cardScales[slot]; }
+    public double getCardRotation(int slot) { return cardRotations[slot]; }
+    public double getCardAlpha(int slot) { return cardAlphas[slot]; }
+}
@@ -0,0 +1,138 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * GameEvents holds the game's Java Flight Recorder events, so a recording
+ * lines up GC pauses, stalls and slow frames with what was happening in the
+ * game. Record a session with
+ *
+ *   java -XX:StartFlightRecording=filename=marrow.jfr,settings=profile MarrowExecutable
+ *
+ * and open the file in JDK Mission Control; the events are under "Marrow".
+ *
+ * When no recording is running the events are disabled: commit returns at
+ * once, callers only fill in fields that cost something after shouldCommit,
+ * and the JIT removes the event objects, so they cost nothing.
+ */
+public final class GameEvents {
+    private static final String CATEGORY = "Marrow";
+    static final String[] UPGRADE_NAMES = {"Health", "Defense", "Attack", "Shield"}; // By GameLogic.applyUpgrade type
+
+    private GameEvents() {}
+
+    @Name("marrow.CardPlayed")
+    @Label("Card Played")
+    @Category({CATEGORY, "Gameplay"})
+    @Description("A card played from the hand, lasting as long as its effect and the refill took")
+    static final class CardPlayed extends Event {
+        @Label("Slot") int slot;
+        @Label("Card") String card;
+        @Label("Card Type") String cardType;
+        @Label("Effect") String effect;
+        @Label("Round") int round;
+        @Label("Player HP") int playerHP;
+        @Label("Defense") int defense;
+        @Label("Enemy HP") int enemyHP;
+    }
+
+    @Name("marrow.EnemyAttack")
+    @Label("Enemy Attack")
+    @Category({CATEGORY, "Gameplay"})
+    @Description("The enemy's attack after a card, resolved against the player's defense")
+    static final class EnemyAttack extends Event {
+        @Label("Damage") int damage;
+        @Label("Absorbed") int absorbed;
+        @Label("Critical") boolean critical;
+        @Label("Player HP") int playerHP;
+        @Label("Round") int round;
+    }
+
+    @Name("marrow.DamageApplied")
+    @Label("Damage Applied")
+    @Category({CATEGORY, "Gameplay"})
+    @Description("Damage taken off the enemy's or the player's HP")
+    static final class DamageApplied extends Event {
+        @Label("Target") String target;
+        @Label("Damage") int damage;
+        @Label("Critical") boolean critical;
+        @Label("Pierce") boolean pierce;
+        @Label("Armor Broken") boolean armorBroken;
+        @Label("HP After") int hpAfter;
+        @Label("Round") int round;
+    }
+
+    @Name("marrow.UpgradeApplied")
+    @Label("Upgrade Applied")
+    @Category({CATEGORY, "Gameplay"})
+    static final class UpgradeApplied extends Event {
+        @Label("Upgrade") String upgrade;
+        @Label("Round") int round;
+    }
+
+    @Name("marrow.RoundReset")
+    @Label("Round Reset")
+    @Category({CATEGORY, "Gameplay"})
+    @Description("Player and enemy counters reset for the start of a round")
+    static final class RoundReset extends Event {
+        @Label("Round") int round;
+        @Label("Enemy") String enemy;
+        @Label("Enemy HP") int enemyHP;
+        @Label("Enemy Armor") int enemyArmor;
+        @Label("Player HP") int playerHP;
+    }
+
+    @Name("marrow.FrameRender")
+    @Label("Frame Render")
+    @Category({CATEGORY, "Rendering"})
+    @Description("One frame drawn into a back buffer on the render thread")
+    @StackTrace(false)
+    static final class FrameRender extends Event {
+        @Label("Width") int width;
+        @Label("Height") int height;
+        @Label("Round") int round;
+        @Label("Draft Quality") boolean draft;
+        @Label("Since Previous Frame") @Timespan(Timespan.NANOSECONDS) long interval;
+    }
+
+    @Name("marrow.FramePaint")
+    @Label("Frame Paint")
+    @Category({CATEGORY, "Rendering"})
+    @Description("The newest finished frame copied to the screen on the EDT")
+    @StackTrace(false)
+    static final class FramePaint extends Event {
+        @Label("Dirty X") int dirtyX;
+        @Label("Dirty Y") int dirtyY;
+        @Label("Dirty Width") int dirtyWidth;
+        @Label("Dirty Height") int dirtyHeight;
+        @Label("Frame Width") int frameWidth;
+        @Label("Frame Height") int frameHeight;
+    }
+
+    @Name("marrow.ImageLoad")
+    @Label("Image Load")
+    @Category({CATEGORY, "Assets"})
+    @Description("An image file read and decoded by the image cache")
+    static final class ImageLoad extends Event {
+        @Label("Path") String path;
+        @Label("Width") int width;
+        @Label("Height") int height;
+        @Label("Subsample") int subsample;
+        @Label("Size") @DataAmount long bytes;
+        @Label("Loaded") boolean loaded;
+    }
+
+    @Name("marrow.TimerCallback")
+    @Label("Timer Callback")
+    @Category({CATEGORY, "Timers"})
+    @Description("A Swing timer's action running on the EDT")
+    @StackTrace(false)
+    static final class TimerCallback extends Event {
+        @Label("Timer") String timer;
+    }
+}
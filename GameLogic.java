@@ -1,38 +1,27 @@
 import java.io.File;
-import java.util.Random;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
 import javax.swing.Timer;
 
 /**
  * GameLogic class manages the core game mechanics and state.
  * It follows the Singleton pattern to ensure a single instance manages the game state.
+ * Headless instances with their own balance values and seed can be created for
+ * simulations; they do not log, save, record telemetry or start Swing timers.
  */
 public class GameLogic {
-    // Game mechanics constants
-    private static final double CRITICAL_HIT_CHANCE = 0.01;  // 1% chance for player
-    private static final double ENEMY_CRIT_CHANCE = 0.20;    // 20% chance for enemy
-    private static final double ENEMY_CRIT_MULTIPLIER = 1.5; // 1.5x damage for enemy crits
-    private static final double DEFENSE_PENETRATION_CHANCE = 0.10;  // 10% chance
-    private static final double NO_DEFENSE_DAMAGE_CHANCE = 0.30;  // 30% chance
-    private static final double NEXT_CARD_ATTACK_CHANCE = 0.50;  // 50% chance for attack card
-    
-    // Damage and defense ranges
-    private static final int MIN_DAMAGE = 3;
-    private static final int MAX_DAMAGE = 5;
-    private static final int MIN_ENEMY_DAMAGE = 1;
-    private static final int MAX_ENEMY_DAMAGE = 3;
-    private static final int MIN_DEFENSE = 2;
-    private static final int MAX_DEFENSE = 4;
-    
-    // Initial game state
-    private static final int INITIAL_ENEMY_HP = 15;
-    private static final int INITIAL_PLAYER_HP = 10;
-    private static final int INITIAL_PLAYER_DEFENSE = 5;
-    private static final int INITIAL_MIN_DAMAGE = 3;
-    private static final int INITIAL_MAX_DAMAGE = 5;
-    private static final int INITIAL_MIN_DEFENSE = 2;
-    private static final int INITIAL_MAX_DEFENSE = 4;
+    // Number of cards in the player's hand
+    public static final int HAND_SIZE = 4;
+    
+    // Balance values (crit, armor and defense rules live in the combat rules table)
+    private final BalanceConfig config;
+    
+    // False for headless simulation instances
+    private final boolean interactive;
+    
+    // Data shared by every headless instance, loaded once
+    private static EnemyCatalog sharedEnemyCatalog;
+    private static CardCatalog sharedCardCatalog;
+    private static String[] sharedCombatRules;
     
     // Enemy scaling
     private int enemiesDefeated = 0;
@@ -45,18 +34,42 @@ public class GameLogic {
     private static GameLogic instance;
     
     // Game state
-    private final Random random;
+    private final GameRandom random;
     private int hpCounter;
     private int defCounter;
     private int enemyHP;
     private String currentSpriteName;
     private String currentSpritePath;
-    private final Map<String, String> spriteNameToPath;
+    private int currentEnemyId = -1;
+    private int nextEnemyId = -1;       // Drawn one round ahead so its sprite can be loaded early
+    private boolean hasNextEnemy = false;
+    private final EnemyCatalog enemyCatalog;
+    private final ScalingTable scalingTable;
     private boolean isGameOver;
     private boolean isPlayerDead;  // New state for player death
+    private int nextCard = -1;
     private String nextCardType;
     private String nextCardPath;
     
+    // Cards
+    private final CardCatalog cardCatalog;
+    private final Deck deck;
+    
+    // Bumped on every reset so attacks scheduled in the old round or run are dropped
+    private int runGeneration = 0;
+    private int pendingAttacks = 0; // Enemy attack timers that have not fired yet, EDT only
+    
+    // Combat resolution
+    private final CombatPipeline combatPipeline;
+    private final CombatHit attackHit = new CombatHit();
+    private final CombatHit enemyHit = new CombatHit();
+    
+    // Per-run statistics
+    private final RunTelemetry telemetry;
+    
+    // Spectator broadcast, null when not enabled
+    private SpectatorFeed spectatorFeed;
+    
     // Upgrade tracking
     private int baseMinDamage;
     private double baseMaxDamage;  // Changed to double to handle decimal increases
@@ -68,69 +81,102 @@ public class GameLogic {
     private int shieldUpgrades = 0;  // Track number of shield upgrades
     
     private GameLogic() {
-        random = new Random();
-        spriteNameToPath = new HashMap<>();
-        initializeSpriteMap();
-        // Initialize base stats
-        baseMinDamage = INITIAL_MIN_DAMAGE;
-        baseMaxDamage = INITIAL_MAX_DAMAGE;
-        baseMinDefense = INITIAL_MIN_DEFENSE;
-        baseMaxDefense = INITIAL_MAX_DEFENSE;
-        basePlayerHP = INITIAL_PLAYER_HP;
-        basePlayerDefense = INITIAL_PLAYER_DEFENSE;
+        config = BalanceConfig.load(BalanceConfig.DEFAULT_CONFIG_FILE);
+        interactive = true;
+        random = new GameRandom();
+        combatPipeline = CombatPipeline.load(CombatPipeline.DEFAULT_RULES_FILE, config);
+        telemetry = RunTelemetry.getInstance();
+        enemyCatalog = EnemyCatalog.load(EnemyCatalog.DEFAULT_CATALOG_FILE);
+        scalingTable = createScalingTable(config);
+        cardCatalog = CardCatalog.load(CardCatalog.DEFAULT_CATALOG_FILE);
+        deck = new Deck(cardCatalog.buildDeckList(), HAND_SIZE, random);
+        resetBaseStats();
+        resetGame();
+        resumeSavedRun();
+    }
+    
+    /**
+     * Creates a headless game for simulations. Enemy attacks are not scheduled;
+     * the caller resolves them with handleEnemyAttack after each card.
+     * @param config The balance values to play with
+     * @param seed Seed for the game's random source
+     */
+    public GameLogic(BalanceConfig config, long seed) {
+        this.config = config;
+        interactive = false;
+        random = new GameRandom();
+        random.setSeed(seed);
+        loadSharedData();
+        combatPipeline = CombatPipeline.fromRules(sharedCombatRules, config);
+        telemetry = RunTelemetry.disabled();
+        enemyCatalog = sharedEnemyCatalog;
+        scalingTable = createScalingTable(config);
+        cardCatalog = sharedCardCatalog;
+        deck = new Deck(cardCatalog.buildDeckList(), HAND_SIZE, random);
+        resetBaseStats();
+        resetGame();
+    }
+    
+    private static synchronized void loadSharedData() {
+        if (sharedCombatRules == null) {
+            sharedEnemyCatalog = EnemyCatalog.load(EnemyCatalog.DEFAULT_CATALOG_FILE);
+            sharedCardCatalog = CardCatalog.load(CardCatalog.DEFAULT_CATALOG_FILE);
+            sharedCombatRules = CombatPipeline.loadRules(CombatPipeline.DEFAULT_RULES_FILE);
+        }
+    }
+    
+    private static ScalingTable createScalingTable(BalanceConfig config) {
+        return new ScalingTable(config.initialEnemyHP, config.hpScaleInterval, config.hpScaleAmount,
+                                config.damageScaleInterval, config.armorScaleInterval, config.penetrationInterval);
+    }
+    
+    /**
+     * Sets base stats and upgrade levels to their initial values.
+     */
+    private void resetBaseStats() {
+        baseMinDamage = config.minDamage;
+        baseMaxDamage = config.maxDamage;
+        baseMinDefense = config.minDefense;
+        baseMaxDefense = config.maxDefense;
+        basePlayerHP = config.initialPlayerHP;
+        basePlayerDefense = config.initialPlayerDefense;
         attackUpgrades = 0;
         shieldUpgrades = 0;
-        resetGame();
     }
     
     /**
      * Returns the singleton instance of GameLogic.
-     * Creates a new instance if one doesn't exist.
+     * Creates a new instance if one doesn't exist. Synchronized, as the
+     * instance is first built off the EDT while the menu is shown.
      */
-    public static GameLogic getInstance() {
+    public static synchronized GameLogic getInstance() {
         if (instance == null) {
             instance = new GameLogic();
         }
         return instance;
     }
     
-    /**
-     * Initializes the sprite map with all available enemy and card sprites.
-     */
-    private void initializeSpriteMap() {
-        // Enemy sprites
-        spriteNameToPath.put("voidling", "sprites/Enemies/voidling.png");
-        spriteNameToPath.put("yellow frederick", "sprites/Enemies/yellow frederick.png");
-        spriteNameToPath.put("tung ahur", "sprites/Enemies/tung ahur.png");
-        spriteNameToPath.put("tung", "sprites/Enemies/tung.png");
-        spriteNameToPath.put("voidmage", "sprites/Enemies/voidmage.png");
-        spriteNameToPath.put("rage", "sprites/Enemies/rage.png");
-        spriteNameToPath.put("sobbing son", "sprites/Enemies/sobbing son.png");
-        spriteNameToPath.put("blakeye", "sprites/Enemies/blakeye.png");
-        spriteNameToPath.put("smile", "sprites/Enemies/smile.png");
-        spriteNameToPath.put("blacklight", "sprites/Enemies/blacklight.png");
-        
-        // Card sprites
-        spriteNameToPath.put("attack_card", "sprites/Cards/attack.png");
-        spriteNameToPath.put("defense_card", "sprites/Cards/defense.png");
-    }
-    
     /**
      * Resets the game state to initial values.
      */
     public void resetGame() {
+        runGeneration++;
         // Only reset the current game state, not the base stats
-        resetCounters();
         loadRandomSprite();
+        resetCounters();
+        deck.reset();
         randomizeNextCard();
         isGameOver = false;
         isPlayerDead = false;
         
-        System.out.println("Game reset - Current stats:");
-        System.out.println("HP: " + hpCounter + " (Base: " + basePlayerHP + ")");
-        System.out.println("Defense: " + defCounter + " (Base: " + basePlayerDefense + ")");
-        System.out.println("Attack range: " + baseMinDamage + "-" + baseMaxDamage);
-        System.out.println("Defense gain range: " + baseMinDefense + "-" + baseMaxDefense);
+        if (interactive) {
+            System.out.println("Game reset - Current stats:");
+            System.out.println("HP: " + hpCounter + " (Base: " + basePlayerHP + ")");
+            System.out.println("Defense: " + defCounter + " (Base: " + basePlayerDefense + ")");
+            System.out.println("Attack range: " + baseMinDamage + "-" + baseMaxDamage);
+            System.out.println("Defense gain range: " + baseMinDefense + "-" + baseMaxDefense);
+        }
+        publishState();
     }
     
     /**
@@ -138,17 +184,12 @@ public class GameLogic {
      * This should only be called when returning to the main menu.
      */
     public void completeReset() {
-        // Reset all base stats to initial values
-        baseMinDamage = INITIAL_MIN_DAMAGE;
-        baseMaxDamage = INITIAL_MAX_DAMAGE;
-        baseMinDefense = INITIAL_MIN_DEFENSE;
-        baseMaxDefense = INITIAL_MAX_DEFENSE;
-        basePlayerHP = INITIAL_PLAYER_HP;
-        basePlayerDefense = INITIAL_PLAYER_DEFENSE;
-        
-        // Reset upgrade counters
-        attackUpgrades = 0;
-        shieldUpgrades = 0;
+        runGeneration++;
+        // A run left from the menu never reached runEnded; its counters must not carry over
+        telemetry.discardRun();
+        
+        // Reset all base stats and upgrade counters to initial values
+        resetBaseStats();
         
         // Reset enemy tracking
         enemiesDefeated = 0;
@@ -158,13 +199,19 @@ public class GameLogic {
         enemyDamageBonus = 0;
         
         // Reset game state
-        resetCounters();
         loadRandomSprite();
+        resetCounters();
+        deck.reset();
         randomizeNextCard();
         isGameOver = false;
         isPlayerDead = false;
         
-        System.out.println("Game completely reset - All stats and upgrades reset to initial values");
+        if (interactive) {
+            // The run is over, so there is nothing to resume
+            RunSnapshot.deleteSaveAsync();
+            System.out.println("Game completely reset - All stats and upgrades reset to initial values");
+        }
+        publishState();
     }
 
     /**
@@ -172,51 +219,63 @@ public class GameLogic {
      */
     private void resetCounters() {
         hpCounter = basePlayerHP;
-        // Scale enemy HP based on enemies defeated
-        int hpIncrease = (enemiesDefeated / 2) * 3;  // Every 2 enemies, add 3 HP
-        enemyHP = INITIAL_ENEMY_HP + hpIncrease;
-        
-        // Scale enemy damage every 3 enemies
-        enemyDamageBonus = enemiesDefeated / 3;  // Every 3 enemies, increase damage range by 1
-        
-        // Scale armor every 2 enemies
-        if (enemiesDefeated > 0 && enemiesDefeated % 2 == 0) {
-            hasArmor = true;
-            enemyArmor = 1 + ((enemiesDefeated - 2) / 2); // Start at 1 armor, then scale every 2 enemies
-            hasArmorPenetration = (enemiesDefeated % 4 == 2); // Every other armored enemy has penetration
-            System.out.println("\n=== Enemy Status ===");
-            System.out.println("Armor: " + enemyArmor + (hasArmorPenetration ? " (with 100% penetration)" : ""));
-        } else {
-            hasArmor = false;
-            enemyArmor = 0;
+        
+        // Round scaling plus the current enemy's own stats
+        int round = enemiesDefeated;
+        enemyHP = scalingTable.getEnemyHP(round);
+        enemyDamageBonus = scalingTable.getDamageBonus(round);
+        enemyArmor = scalingTable.getArmor(round);
+        hasArmorPenetration = scalingTable.hasArmorPenetration(round);
+        if (currentEnemyId >= 0) {
+            enemyHP += enemyCatalog.getHpBonus(currentEnemyId);
+            enemyDamageBonus += enemyCatalog.getDamageBonus(currentEnemyId);
+            enemyArmor += enemyCatalog.getArmorBonus(currentEnemyId);
+        }
+        hasArmor = enemyArmor > 0;
+        if (!hasArmor) {
             hasArmorPenetration = false;
         }
         
         defCounter = basePlayerDefense;
         
+        GameEvents.RoundReset event = new GameEvents.RoundReset();
+        if (event.shouldCommit()) {
+            event.round = round + 1;
+            event.enemy = currentSpriteName;
+            event.enemyHP = enemyHP;
+            event.enemyArmor = enemyArmor;
+            event.playerHP = hpCounter;
+            event.commit();
+        }
+        
+        if (!interactive) return;
+        if (hasArmor) {
+            System.out.println("\n=== Enemy Status ===");
+            System.out.println("Armor: " + enemyArmor + (hasArmorPenetration ? " (with 100% penetration)" : ""));
+        }
         System.out.println("\n=== Game State ===");
         System.out.println("Player HP: " + hpCounter + " (Base: " + basePlayerHP + ")");
         System.out.println("Player Defense: " + defCounter + " (Base: " + basePlayerDefense + ")");
         System.out.println("Attack Range: " + baseMinDamage + "-" + baseMaxDamage);
         System.out.println("Defense Gain Range: " + baseMinDefense + "-" + baseMaxDefense);
         System.out.println("Enemy HP: " + enemyHP);
-        System.out.println("Enemy Damage Range: " + MIN_ENEMY_DAMAGE + "-" + (MAX_ENEMY_DAMAGE + enemyDamageBonus));
+        System.out.println("Enemy Damage Range: " + config.minEnemyDamage + "-" + (config.maxEnemyDamage + enemyDamageBonus));
         if (hasArmor) {
             System.out.println("Enemy Armor: " + enemyArmor + (hasArmorPenetration ? " (with 100% penetration)" : ""));
         }
     }
     
     /**
-     * Loads a random enemy sprite.
+     * Moves to the enemy drawn last time and draws the one after it.
      */
     public void loadRandomSprite() {
-        String[] spriteNames = spriteNameToPath.keySet().stream()
-            .filter(name -> !name.endsWith("_card"))
-            .toArray(String[]::new);
-            
-        if (spriteNames.length > 0) {
-            currentSpriteName = spriteNames[random.nextInt(spriteNames.length)];
-            currentSpritePath = spriteNameToPath.get(currentSpriteName);
+        currentEnemyId = hasNextEnemy ? nextEnemyId : enemyCatalog.sample(random);
+        nextEnemyId = enemyCatalog.sample(random);
+        hasNextEnemy = true;
+        
+        if (currentEnemyId >= 0) {
+            currentSpriteName = enemyCatalog.getName(currentEnemyId);
+            currentSpritePath = enemyCatalog.getSpritePath(currentEnemyId);
         } else {
             setDefaultSprite();
         }
@@ -227,56 +286,96 @@ public class GameLogic {
      */
     private void setDefaultSprite() {
         currentSpriteName = "yellow frederick";
-        currentSpritePath = spriteNameToPath.get(currentSpriteName);
+        currentSpritePath = "sprites/Enemies/yellow frederick.png";
     }
     
     /**
-     * Randomizes the next card type and updates its path.
+     * Updates the next card preview from the top of the draw pile.
      */
     private void randomizeNextCard() {
-        nextCardType = random.nextDouble() < NEXT_CARD_ATTACK_CHANCE ? "attack" : "defense";
-        nextCardPath = spriteNameToPath.get(nextCardType + "_card");
+        nextCard = deck.peek();
+        nextCardType = nextCard >= 0 ? cardCatalog.getName(nextCard) : null;
+        nextCardPath = nextCard >= 0 ? cardCatalog.getSpritePath(nextCard) : null;
     }
     
     /**
-     * Handles a card click event.
-     * @param cardIndex The index of the clicked card
-     * @param isDefenseCard Whether the clicked card is a defense card
+     * Handles a card click event. The card in the slot is played, discarded
+     * and replaced from the draw pile.
+     * @param cardIndex The hand slot of the clicked card
      */
-    public void handleCardClick(int cardIndex, boolean isDefenseCard) {
+    public void handleCardClick(int cardIndex) {
         if (isGameOver) return;
         
-        if (isDefenseCard) {
-            handleDefenseCard();
-        } else {
-            handleAttackCard();
-        }
+        GameEvents.CardPlayed event = new GameEvents.CardPlayed();
+        event.begin();
+        int card = deck.play(cardIndex);
+        if (card < 0) return;
+        
+        cardCatalog.playEffect(card, this);
         
         randomizeNextCard();
-        scheduleEnemyAttack();
+        event.end();
+        if (event.shouldCommit()) {
+            event.slot = cardIndex;
+            event.card = cardCatalog.getName(card);
+            event.cardType = cardCatalog.isDefense(card) ? "defense" : "attack";
+            event.effect = cardCatalog.getEffect(card).toString();
+            event.round = enemiesDefeated + 1;
+            event.playerHP = hpCounter;
+            event.defense = defCounter;
+            event.enemyHP = enemyHP;
+            event.commit();
+        }
+        publishState();
+        if (interactive && enemyHP > 0) {
+            scheduleEnemyAttack();
+        }
     }
     
     /**
      * Schedules the enemy attack with a delay.
      */
     private void scheduleEnemyAttack() {
+        int generation = runGeneration;
+        LatencyProbe latency = LatencyProbe.getInstance();
+        long clickNanos = latency.getLastClickNanos();
         Timer timer = new Timer(500, e -> {
             ((Timer)e.getSource()).stop();
-            handleEnemyAttack();
+            pendingAttacks--;
+            GameEvents.TimerCallback event = new GameEvents.TimerCallback();
+            event.timer = "enemy attack";
+            event.begin();
+            if (generation == runGeneration) {
+                handleEnemyAttack();
+                latency.recordSince(LatencyProbe.STAGE_ENEMY_ATTACK, clickNanos);
+            }
+            event.commit();
         });
         timer.setRepeats(false);
+        pendingAttacks++;
         timer.start();
     }
     
     /**
-     * Handles the defense card effect.
+     * Enemy attacks scheduled after card clicks that have not fired yet, for SoakCheck.
+     */
+    int getPendingAttackCount() {
+        return pendingAttacks;
+    }
+    
+    // Card effect operations. CardEffect plays each card's steps through these.
+    
+    /**
+     * Gains defense rolled from the player's defense range, including upgrades.
      */
-    private void handleDefenseCard() {
-        int defRoll = random.nextInt(3); // 0, 1, or 2
+    void effectDefend() {
+        int defRoll = random.nextInt(config.maxDefense - config.minDefense + 1); // 0, 1, or 2 by default
         double defense = defRoll + baseMinDefense;
         int defenseGain = (int)Math.floor(defense);
         defCounter += defenseGain;
+        telemetry.defenseGained(defenseGain);
         
+        if (!interactive) return;
         System.out.println("\n=== Defense Card Used ===");
         System.out.println("Base Defense: " + baseMinDefense);
         System.out.println("Max Defense: " + baseMaxDefense);
@@ -286,26 +385,90 @@ public class GameLogic {
     }
     
     /**
-     * Handles the attack card effect.
+     * Gains a fixed range of defense.
      */
-    private void handleAttackCard() {
-        int damage = calculateDamage();
+    void effectDefend(int min, int max) {
+        int defenseGain = min + random.nextInt(max - min + 1);
+        defCounter += defenseGain;
+        telemetry.defenseGained(defenseGain);
         
-        // Check for armor break with penetration chance
-        if (hasArmor) {
-            if (hasArmorPenetration) {
-                // Armor penetration - deal damage minus armor value
-                int finalDamage = Math.max(0, damage - enemyArmor);
-                System.out.println("Armor penetration! Base damage: " + damage + ", Armor: " + enemyArmor + ", Final damage: " + finalDamage);
-                enemyHP = Math.max(0, enemyHP - finalDamage);
-            } else {
-                // Normal armor break
-                hasArmor = false;
-                enemyArmor = 0;
+        if (!interactive) return;
+        System.out.println("\n=== Defense Card Used ===");
+        System.out.println("Defense Gained: " + defenseGain + " (" + min + "-" + max + ")");
+        System.out.println("Current Defense: " + defCounter);
+    }
+    
+    /**
+     * Restores HP.
+     */
+    void effectHeal(int min, int max) {
+        int heal = min == max ? min : min + random.nextInt(max - min + 1);
+        hpCounter += heal;
+        if (interactive) {
+            System.out.println("Healed: " + heal + " (HP: " + hpCounter + ")");
+        }
+    }
+    
+    /**
+     * Attacks with damage rolled from the player's attack range, including upgrades.
+     * @param pierce Whether the hit ignores the enemy's armor
+     */
+    void effectDamage(boolean pierce) {
+        attack(calculateDamage(), pierce);
+    }
+    
+    /**
+     * Attacks with a fixed range of base damage.
+     */
+    void effectDamage(int min, int max, boolean pierce) {
+        int damage = min + random.nextInt(max - min + 1);
+        if (interactive) {
+            System.out.println("\n=== Attack Damage ===");
+            System.out.println("Damage Range: " + min + "-" + max);
+            System.out.println("Base Damage: " + damage);
+        }
+        attack(damage, pierce);
+    }
+    
+    /**
+     * Resolves a player attack through the combat rules. A piercing hit
+     * ignores the enemy's armor and leaves it intact.
+     */
+    private void attack(int baseDamage, boolean pierce) {
+        if (pierce) {
+            attackHit.reset(baseDamage, false, 0, false, 0);
+        } else {
+            attackHit.reset(baseDamage, hasArmor, enemyArmor, hasArmorPenetration, 0);
+        }
+        combatPipeline.resolve(CombatPipeline.PLAYER_ATTACK, attackHit, random);
+        
+        if (attackHit.armorBroken) {
+            hasArmor = false;
+            enemyArmor = 0;
+            telemetry.armorBreak();
+        }
+        enemyHP = Math.max(0, enemyHP - attackHit.damage);
+        telemetry.damageDealt(attackHit.damage, attackHit.critical);
+        
+        GameEvents.DamageApplied event = new GameEvents.DamageApplied();
+        if (event.shouldCommit()) {
+            event.target = "enemy";
+            event.damage = attackHit.damage;
+            event.critical = attackHit.critical;
+            event.pierce = pierce;
+            event.armorBroken = attackHit.armorBroken;
+            event.hpAfter = enemyHP;
+            event.round = enemiesDefeated + 1;
+            event.commit();
+        }
+        
+        if (interactive) {
+            if (attackHit.armorBroken) {
                 System.out.println("Enemy armor broken!");
+            } else if (attackHit.armored && attackHit.armorPenetration) {
+                System.out.println("Armor penetration! Armor: " + attackHit.armor);
             }
-        } else {
-            enemyHP = Math.max(0, enemyHP - damage);
+            System.out.println("Damage Dealt: " + attackHit.damage + (attackHit.critical ? " (Critical)" : ""));
         }
         
         if (enemyHP <= 0) {
@@ -315,22 +478,16 @@ public class GameLogic {
     }
     
     /**
-     * Calculates damage for an attack, including critical hit chance.
+     * Rolls the base damage for an attack. Critical hits are applied by the combat pipeline.
      */
     private int calculateDamage() {
         double damage = random.nextDouble() * (baseMaxDamage - baseMinDamage) + baseMinDamage;
         int finalDamage = (int)Math.floor(damage);
         
-        System.out.println("\n=== Attack Damage ===");
-        if (random.nextDouble() < CRITICAL_HIT_CHANCE) {
-            finalDamage *= 2;
-            System.out.println("Critical Hit!");
-            System.out.println("Base Damage Range: " + baseMinDamage + "-" + baseMaxDamage);
-            System.out.println("Final Damage: " + finalDamage);
-        } else {
-            System.out.println("Normal Hit");
+        if (interactive) {
+            System.out.println("\n=== Attack Damage ===");
             System.out.println("Damage Range: " + baseMinDamage + "-" + baseMaxDamage);
-            System.out.println("Damage Dealt: " + finalDamage);
+            System.out.println("Base Damage: " + finalDamage);
         }
         return finalDamage;
     }
@@ -341,66 +498,73 @@ public class GameLogic {
     public void handleEnemyAttack() {
         if (enemyHP <= 0) return;
         
-        int damage = calculateEnemyDamage();
-        applyDamage(damage);
+        GameEvents.EnemyAttack event = new GameEvents.EnemyAttack();
+        event.begin();
+        enemyHit.reset(calculateEnemyDamage(), false, 0, false, defCounter);
+        combatPipeline.resolve(CombatPipeline.ENEMY_ATTACK, enemyHit, random);
+        
+        defCounter = enemyHit.defense;
+        if (interactive && enemyHit.critical) {
+            System.out.println("Critical Hit! Damage: " + (enemyHit.damage + enemyHit.absorbed));
+        }
+        telemetry.damageTaken(Math.min(enemyHit.damage, hpCounter), enemyHit.absorbed);
+        applyDamage(enemyHit.damage);
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.damage = enemyHit.damage;
+            event.absorbed = enemyHit.absorbed;
+            event.critical = enemyHit.critical;
+            event.playerHP = hpCounter;
+            event.round = enemiesDefeated + 1;
+            event.commit();
+        }
+        publishState();
     }
     
     /**
-     * Calculates damage for an enemy attack, including critical hit chance.
+     * Rolls the base damage for an enemy attack. Critical hits are applied by the combat pipeline.
      */
     private int calculateEnemyDamage() {
-        int maxDamage = MAX_ENEMY_DAMAGE + enemyDamageBonus;
-        int damage = random.nextInt(maxDamage - MIN_ENEMY_DAMAGE + 1) + MIN_ENEMY_DAMAGE;
-        
-        System.out.println("\n=== Enemy Attack ===");
-        if (random.nextDouble() < ENEMY_CRIT_CHANCE) {
-            double critDamage = damage * ENEMY_CRIT_MULTIPLIER;
-            damage = (int)Math.ceil(critDamage);
-            System.out.println("Critical Hit!");
-            System.out.println("Base Damage: " + (damage / ENEMY_CRIT_MULTIPLIER));
-            System.out.println("Crit Multiplier: " + ENEMY_CRIT_MULTIPLIER + "x");
-            System.out.println("Final Damage: " + damage);
-        } else {
-            System.out.println("Normal Hit");
-            System.out.println("Damage Range: " + MIN_ENEMY_DAMAGE + "-" + maxDamage);
-            System.out.println("Damage Dealt: " + damage);
+        int maxDamage = config.maxEnemyDamage + enemyDamageBonus;
+        int damage = random.nextInt(maxDamage - config.minEnemyDamage + 1) + config.minEnemyDamage;
+        
+        if (interactive) {
+            System.out.println("\n=== Enemy Attack ===");
+            System.out.println("Damage Range: " + config.minEnemyDamage + "-" + maxDamage);
+            System.out.println("Base Damage: " + damage);
         }
         return damage;
     }
     
     /**
-     * Applies damage to the player, considering defense.
+     * Applies damage that got past defense to the player's HP.
      * @param damage The amount of damage to apply
      */
     private void applyDamage(int damage) {
-        if (damage <= 0) return;
-        
-        // First try to block with defense
-        while (damage > 0 && defCounter > 0) {
-            defCounter--;
-            damage--;
-        }
+        if (damage <= 0 || hpCounter <= 0) return;
         
-        // Then apply remaining damage to HP
-        while (damage > 0 && hpCounter > 0) {
-            reduceHP();
-            damage--;
+        hpCounter = Math.max(0, hpCounter - damage);
+        GameEvents.DamageApplied event = new GameEvents.DamageApplied();
+        if (event.shouldCommit()) {
+            event.target = "player";
+            event.damage = damage;
+            event.critical = enemyHit.critical;
+            event.hpAfter = hpCounter;
+            event.round = enemiesDefeated + 1;
+            event.commit();
         }
-    }
-    
-    /**
-     * Reduces player HP and checks for game over.
-     */
-    private void reduceHP() {
-        if (hpCounter > 0) {
-            hpCounter--;
+        if (interactive) {
             System.out.println("\n=== Player HP Update ===");
             System.out.println("HP Reduced to: " + hpCounter);
-            if (hpCounter <= 0) {
+        }
+        if (hpCounter <= 0) {
+            if (interactive) {
                 System.out.println("Player has died!");
-                isPlayerDead = true;
-                isGameOver = true;
             }
+            telemetry.runEnded(enemiesDefeated + 1);
+            isPlayerDead = true;
+            isGameOver = true;
         }
     }
     
@@ -410,58 +574,221 @@ public class GameLogic {
     public void applyUpgrade(int upgradeType) {
 
         enemiesDefeated++;
+        telemetry.upgrade(upgradeType);
         
-        System.out.println("\n=== Applying Upgrade ===");
-        System.out.println("Type: " + upgradeType);
-        System.out.println("\nBefore Upgrade:");
-        System.out.println("HP: " + basePlayerHP);
-        System.out.println("Defense: " + basePlayerDefense);
-        System.out.println("Attack Range: " + baseMinDamage + "-" + baseMaxDamage);
-        System.out.println("Defense Range: " + baseMinDefense + "-" + baseMaxDefense);
-        System.out.println("Enemies Defeated: " + enemiesDefeated);
+        GameEvents.UpgradeApplied event = new GameEvents.UpgradeApplied();
+        if (event.shouldCommit()) {
+            event.upgrade = upgradeType >= 0 && upgradeType < GameEvents.UPGRADE_NAMES.length
+                    ? GameEvents.UPGRADE_NAMES[upgradeType] : String.valueOf(upgradeType);
+            event.round = enemiesDefeated;
+            event.commit();
+        }
+        
+        if (interactive) {
+            System.out.println("\n=== Applying Upgrade ===");
+            System.out.println("Type: " + upgradeType);
+            System.out.println("\nBefore Upgrade:");
+            System.out.println("HP: " + basePlayerHP);
+            System.out.println("Defense: " + basePlayerDefense);
+            System.out.println("Attack Range: " + baseMinDamage + "-" + baseMaxDamage);
+            System.out.println("Defense Range: " + baseMinDefense + "-" + baseMaxDefense);
+            System.out.println("Enemies Defeated: " + enemiesDefeated);
+        }
 
         switch (upgradeType) {
             case 0: // Health Upgrade
                 basePlayerHP++;
                 hpCounter = basePlayerHP;
-                System.out.println("\nHealth upgraded to: " + basePlayerHP);
                 break;
             case 1: // Defense Upgrade
                 basePlayerDefense++;
                 defCounter = basePlayerDefense;
-                System.out.println("\nDefense upgraded to: " + basePlayerDefense);
                 break;
             case 2: // Attack Upgrade
                 attackUpgrades++;
-                baseMaxDamage = INITIAL_MAX_DAMAGE + (attackUpgrades * 0.5);
-                System.out.println("\nAttack upgraded to: " + baseMinDamage + "-" + baseMaxDamage);
-                System.out.println("Upgrade Level: " + attackUpgrades);
+                baseMaxDamage = config.maxDamage + (attackUpgrades * config.attackUpgradeStep);
                 break;
             case 3: // Shield Upgrade
                 shieldUpgrades++;
-                baseMinDefense = INITIAL_MIN_DEFENSE + (shieldUpgrades * 0.5);
-                baseMaxDefense = INITIAL_MAX_DEFENSE + (shieldUpgrades * 0.5);
-                System.out.println("\nShield upgraded to: " + baseMinDefense + "-" + baseMaxDefense);
-                System.out.println("Upgrade Level: " + shieldUpgrades);
+                baseMinDefense = config.minDefense + (shieldUpgrades * config.shieldUpgradeStep);
+                baseMaxDefense = config.maxDefense + (shieldUpgrades * config.shieldUpgradeStep);
                 break;
         }
+        
+        if (!interactive) return;
 
         System.out.println("\nAfter Upgrade:");
         System.out.println("HP: " + basePlayerHP + " (Current: " + hpCounter + ")");
         System.out.println("Defense: " + basePlayerDefense + " (Current: " + defCounter + ")");
         System.out.println("Attack Range: " + baseMinDamage + "-" + baseMaxDamage);
         System.out.println("Defense Range: " + baseMinDefense + "-" + baseMaxDefense);
+        System.out.println("Upgrade Levels: attack " + attackUpgrades + ", shield " + shieldUpgrades);
+        
+        // Checkpoint the run; only the file write happens off the EDT
+        RunSnapshot.saveAsync(RunSnapshot.capture(this));
+        publishState();
+    }
+    
+    /**
+     * Broadcasts every later state change to the feed's spectators, starting with the current state.
+     * @param feed The feed, or null to stop broadcasting
+     */
+    public void setSpectatorFeed(SpectatorFeed feed) {
+        spectatorFeed = feed;
+        publishState();
+    }
+    
+    private void publishState() {
+        if (spectatorFeed != null) {
+            spectatorFeed.publish(this);
+        }
+    }
+    
+    /**
+     * Restores the run saved by the last upgrade, if there is one.
+     */
+    private void resumeSavedRun() {
+        byte[] saved = RunSnapshot.loadSave();
+        if (saved == null) return;
+        
+        byte[] fresh = RunSnapshot.capture(this);
+        try {
+            RunSnapshot.restore(this, saved);
+            System.out.println("Resumed saved run at round " + (enemiesDefeated + 1));
+        } catch (Exception e) {
+            e.printStackTrace();
+            try {
+                RunSnapshot.restore(this, fresh);
+            } catch (Exception ignored) {
+                // A snapshot we just took is always valid
+            }
+        }
+    }
+    
+    /**
+     * Number of bytes writeState will produce.
+     */
+    int getStateSize() {
+        return 8 + 3 * 8 + 13 * 4 + 3 + deck.getStateSize();
+    }
+    
+    /**
+     * Writes the full run state: RNG, base stats, upgrade levels, round and
+     * current enemy, counters and deck. The layout is versioned by RunSnapshot.
+     */
+    void writeState(ByteBuffer out) {
+        out.putLong(random.getState());
+        
+        // Base stats and upgrades
+        out.putInt(baseMinDamage);
+        out.putDouble(baseMaxDamage);
+        out.putDouble(baseMinDefense);
+        out.putDouble(baseMaxDefense);
+        out.putInt(basePlayerHP);
+        out.putInt(basePlayerDefense);
+        out.putInt(attackUpgrades);
+        out.putInt(shieldUpgrades);
+        out.putInt(enemiesDefeated);
+        
+        // Current and next enemy
+        out.putInt(currentEnemyId);
+        out.putInt(hasNextEnemy ? nextEnemyId : -2);
+        out.putInt(enemyHP);
+        out.putInt(enemyArmor);
+        out.putInt(enemyDamageBonus);
+        out.put((byte)(hasArmor ? 1 : 0));
+        out.put((byte)(hasArmorPenetration ? 1 : 0));
+        
+        // Player
+        out.putInt(hpCounter);
+        out.putInt(defCounter);
+        out.put((byte)((isGameOver ? 1 : 0) | (isPlayerDead ? 2 : 0)));
+        
+        deck.writeState(out);
+    }
+    
+    /**
+     * Restores state written by writeState.
+     * @param version Snapshot version; version 1 has no next enemy
+     */
+    void readState(ByteBuffer in, int version) {
+        random.setState(in.getLong());
+        
+        baseMinDamage = in.getInt();
+        baseMaxDamage = in.getDouble();
+        baseMinDefense = in.getDouble();
+        baseMaxDefense = in.getDouble();
+        basePlayerHP = in.getInt();
+        basePlayerDefense = in.getInt();
+        attackUpgrades = in.getInt();
+        shieldUpgrades = in.getInt();
+        enemiesDefeated = in.getInt();
+        
+        int enemyId = in.getInt();
+        if (enemyId >= enemyCatalog.size()) {
+            throw new IllegalStateException("Saved enemy id out of range: " + enemyId);
+        }
+        currentEnemyId = enemyId;
+        if (currentEnemyId >= 0) {
+            currentSpriteName = enemyCatalog.getName(currentEnemyId);
+            currentSpritePath = enemyCatalog.getSpritePath(currentEnemyId);
+        } else {
+            setDefaultSprite();
+        }
+        int nextId = version >= 2 ? in.getInt() : -2;
+        if (nextId >= enemyCatalog.size()) {
+            throw new IllegalStateException("Saved next enemy id out of range: " + nextId);
+        }
+        nextEnemyId = nextId;
+        hasNextEnemy = nextId != -2;
+        enemyHP = in.getInt();
+        enemyArmor = in.getInt();
+        enemyDamageBonus = in.getInt();
+        hasArmor = in.get() != 0;
+        hasArmorPenetration = in.get() != 0;
+        
+        hpCounter = in.getInt();
+        defCounter = in.getInt();
+        byte flags = in.get();
+        isGameOver = (flags & 1) != 0;
+        isPlayerDead = (flags & 2) != 0;
+        
+        deck.readState(in, cardCatalog.size());
+        randomizeNextCard();
     }
     
     // Getters
     public String getCurrentSpritePath() { return currentSpritePath; }
     public String getCurrentSpriteName() { return currentSpriteName; }
+    public String getNextSpritePath() {
+        return hasNextEnemy && nextEnemyId >= 0 ? enemyCatalog.getSpritePath(nextEnemyId) : null;
+    }
     public String getNextCardPath() { return nextCardPath; }
     public String getNextCardType() { return nextCardType; }
+    public CardCatalog getCardCatalog() { return cardCatalog; }
+    public int getHandCard(int slot) { return deck.getHandCard(slot); }
     public int getHpCounter() { return hpCounter; }
     public int getDefCounter() { return defCounter; }
     public int getEnemyHP() { return enemyHP; }
+    public int getEnemyArmor() { return enemyArmor; }
+    public int getCurrentEnemyId() { return currentEnemyId; }
+    public int getNextCard() { return nextCard; }
     public boolean isGameOver() { return isGameOver; }
     public boolean isPlayerDead() { return isPlayerDead; }
     public int getEnemiesDefeated() { return enemiesDefeated;}
+    public BalanceConfig getConfig() { return config; }
+    
+    /**
+     * Returns how many times an upgrade has been taken this run.
+     * @param upgradeType The upgrade type, as passed to applyUpgrade
+     */
+    public int getUpgradeLevel(int upgradeType) {
+        switch (upgradeType) {
+            case 0: return basePlayerHP - config.initialPlayerHP;
+            case 1: return basePlayerDefense - config.initialPlayerDefense;
+            case 2: return attackUpgrades;
+            case 3: return shieldUpgrades;
+            default: return 0;
+        }
+    }
 } 
\ No newline at end of file
@@ -1,15 +1,11 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.AffineTransform;
-import java.io.File;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.awt.image.BufferedImage;
-import java.util.Scanner;
-import java.io.FileWriter;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.concurrent.locks.LockSupport;
 
 public class GamePanel extends JPanel {
     // Constants
@@ -18,48 +14,43 @@ public class GamePanel extends JPanel {
     private static final double BASE_SCALE = 1.0;
     private static final double BASE_ROTATION = 7.0;
     private static final long FADE_CYCLE_DURATION = 1500;
-    private static final double PARALLAX_FACTOR = -0.02;
     private static final long FLASH_DELAY = 400;
     private static final long FLASH_DURATION = 100;
-    private static final int NUM_CARDS = 4;
+    private static final int NUM_CARDS = GameLogic.HAND_SIZE;
     private static final int ANIMATION_FRAME_RATE = 8;
-    private static final double CARD_SCALE_FACTOR = 0.8;
-    private static final double SPRITE_SCALE_FACTOR = 0.8;
+    private static final long STEP_NANOS = 1_000_000_000L / 120; // Fixed simulation step, 120 Hz
+    private static final double STEP_MILLIS = STEP_NANOS / 1e6;
+    private static final int MAX_STEPS_PER_TICK = 30; // Longer stalls are dropped rather than replayed
     private static final long DEATH_SCREEN_DURATION = 2000; // 2 seconds 
     private static final long ENEMY_FLASH_DURATION = 200; // 0.2 seconds for enemy flash
     private static final int SHAKE_INTENSITY = 2; // Maximum pixels to shake 
     private static final int SHAKE_FREQUENCY = 2; // How many times to shake per flash
     private static final long DAMAGE_DISPLAY_DURATION = 300; // 0.3 seconds display time
-    private static final String HIGH_SCORE_FILE = "highscore.txt";
-
-    // Image resources
-    private Image bgImage;
-    private Image centerImage;
-    private Image eImage;
-    private Image hpCardImage;
-    private Image teethOverlayImage;
-    private Image heartImage;
-    private Image defImage;
-    private Image attackCardImage;
-    private Image defenseCardImage;
+    private static final int TOP_RUNS_SHOWN = 10; // Best runs listed on the death screen
+    private static final boolean REPORT_IMAGE_CACHE = Boolean.getBoolean("marrow.imageStats");
+
+    private static final int BUFFER_COUNT = 3; // Front, on screen and one being drawn
+    private static final int SNAPSHOT_COUNT = 3; // Published, being drawn and one being filled
+    private static final int DRAFT_BUFFER_STEP = 128; // Draft buffers are rounded up so resizing reuses them
+    private static final long DRAFT_RECHECK_NANOS = 50_000_000L; // How often a draft frame checks for full quality
+
     private GameLogic gameLogic;
     private String centerSpriteName = "";
     private ArrayList<String> enemySprites = new ArrayList<>();
     private Random random = new Random();
     private Rectangle[] clickableAreas;
+    private final Rectangle[] upgradeAreas = new Rectangle[GameRenderer.UPGRADE_COUNT];
+    private int areasWidth = -1;  // Panel size the card and upgrade areas were laid out for
+    private int areasHeight = -1;
     private int hoveredArea = -1;
     private double[] scaleFactors;
     private double[] rotationFactors;
     private double[] alphaFactors;
     private long[] clickStartTimes;
-    private boolean[] isDefenseCard;
-    private boolean[] lastCardType = new boolean[NUM_CARDS]; // Track last card type
-    private int[] consecutiveCount = new int[NUM_CARDS]; // Track consecutive same types
+    private int[] handCards; // Card ids currently shown in each slot
     private int counterValue = 20;
-    private long lastUpdateTime = System.currentTimeMillis();
     private double centerSpriteScale = 1.0;
     private boolean centerSpriteInitialized = true;
-    private Timer centerSpriteTimer;
     private int mouseX = 0;
     private int mouseY = 0;
     private boolean isFlashing = false;
@@ -69,25 +60,76 @@ public class GamePanel extends JPanel {
     private long deathScreenStartTime = -1;
     private boolean isEnemyFlashing = false;
     private long enemyFlashStartTime = -1;
-    private int shakeOffsetX = 0;
-    private int shakeOffsetY = 0;
     private int lastDamageDealt = 0;
     private long damageDisplayStartTime = -1;
+    private boolean isUpgradeChoice = false; // Victory overlay shown, waiting for an upgrade pick
+    private int hoveredUpgrade = -1;
+    
+    // Simulation clock. Animations advance in fixed steps; every effect start time
+    // above is in simulation milliseconds, so speed does not depend on the frame rate.
+    private long simTimeNanos = 0;
+    private long lastTickNanos;
+    private long accumulatorNanos = 0;
+    private double interpolation = 1.0; // Fraction of a step since the last update, used when painting
+    private boolean animating = false;
+    
+    // State at the previous step, blended with the current state when painting
+    private double[] prevScaleFactors;
+    private double[] prevRotationFactors;
+    private double[] prevAlphaFactors;
+    private double prevCenterSpriteScale = 1.0;
     
-    // Image cache
-    private final Map<String, Image> imageCache = new HashMap<>();
+    // Rendering. The EDT fills a free snapshot and publishes it; the render thread draws the newest one
+    // into a free back buffer and makes it the front buffer, which paintComponent blits.
+    private final GameRenderer renderer;
+    private final FrameSnapshot[] snapshots = new FrameSnapshot[SNAPSHOT_COUNT];
+    private int pendingSnapshot = -1; // Published and not yet taken by the render thread, guarded by swapLock
+    private int drawnSnapshot = -1;   // Last taken by the render thread, kept to redraw drafts; guarded by swapLock
+    private final Object swapLock = new Object();
+    private final BufferedImage[] buffers = new BufferedImage[BUFFER_COUNT];
+    private final Graphics2D[] bufferGraphics = new Graphics2D[BUFFER_COUNT]; // Kept across frames, render thread only
+    private int frontBuffer = -1;    // Newest finished frame, guarded by swapLock
+    private int onScreenBuffer = -1; // Frame being blitted, guarded by swapLock
+    private Thread renderThread;
+    private volatile boolean rendering = false;
+    private FrameSnapshot lastSnapshot;
+    
+    // Input latency
+    private final LatencyProbe latency = LatencyProbe.getInstance();
+    private long shownClickNanos = 0;       // Latest click whose result is in the published state
+    private final long[] bufferClicks = new long[BUFFER_COUNT]; // clickNanos of each buffer's frame, guarded by swapLock
+    private long lastRenderedClick = 0;     // Render thread only
+    private long lastPaintedClick = 0;      // EDT only
+    private final AllocationGuard allocationGuard = AllocationGuard.fromSystemProperty(); // Render thread only
+    private long lastRenderStart = 0;       // Render thread only
+    private final RenderQuality quality = RenderQuality.fromSystemProperties();
+    private FrameSnapshot lastDraft;        // Newest frame if it was drawn in draft quality, render thread only
     
     // High score tracking
-    private int currentHighScore = -1; // -1 indicates not loaded yet
+    private final Leaderboard leaderboard = Leaderboard.getInstance();
+    private int[] topRounds; // Best rounds for the death screen, looked up off the EDT; null until then
+    
+    // Lifecycle
+    private Timer animationTimer;
+    private Timer deathCheckTimer;
+    private final List<Timer> pendingTimers = new ArrayList<>(); // One-shot effect timers
+    private MouseAdapter mouseListener;
+    private MouseMotionAdapter mouseMotionListener;
+    private ComponentAdapter resizeListener;
+    private boolean disposed = false;
 
     public GamePanel() {
         gameLogic = GameLogic.getInstance();
         random = new Random();
+        renderer = new GameRenderer(gameLogic.getCardCatalog());
+        for (int i = 0; i < SNAPSHOT_COUNT; i++) {
+            snapshots[i] = new FrameSnapshot(NUM_CARDS);
+        }
         initializeArrays();
-        loadImages();
         setupClickableAreas();
         setupMouseListener();
         setupMouseMotionListener();
+        setupResizeListener();
         initializeCards();
         setupAnimationTimer();
         setupDeathCheckTimer();
@@ -97,72 +139,181 @@ public class GamePanel extends JPanel {
         scaleFactors = new double[NUM_CARDS];
         rotationFactors = new double[NUM_CARDS];
         alphaFactors = new double[NUM_CARDS];
+        prevScaleFactors = new double[NUM_CARDS];
+        prevRotationFactors = new double[NUM_CARDS];
+        prevAlphaFactors = new double[NUM_CARDS];
         clickStartTimes = new long[NUM_CARDS];
-        isDefenseCard = new boolean[NUM_CARDS];
-        
+        handCards = new int[NUM_CARDS];
+        resetCardAnimations();
+    }
+
+    private void resetCardAnimations() {
         for (int i = 0; i < NUM_CARDS; i++) {
             scaleFactors[i] = BASE_SCALE;
             rotationFactors[i] = i < 2 ? -BASE_ROTATION : BASE_ROTATION;
             alphaFactors[i] = 1.0;
             clickStartTimes[i] = -1;
         }
+        savePreviousState();
     }
 
     private void initializeCards() {
-        // Create a list of indices
-        ArrayList<Integer> indices = new ArrayList<>();
-        for (int i = 0; i < NUM_CARDS; i++) {
-            indices.add(i);
-        }
-        
-        // Shuffle the indices
-        java.util.Collections.shuffle(indices);
-        
-        // Assign 2 defense and 2 attack cards
+        // Show the hand dealt by the deck
         for (int i = 0; i < NUM_CARDS; i++) {
-            isDefenseCard[indices.get(i)] = i < 2; // First 2 are defense, last 2 are attack
+            handCards[i] = gameLogic.getHandCard(i);
         }
     }
 
+    /**
+     * Starts decoding the frame's images and the first enemy in the background, while the menu is up.
+     */
+    public void preloadAssets() {
+        Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+        renderer.prefetchFrameAssets(screen.width, screen.height);
+        renderer.prefetchSprite(gameLogic.getCurrentSpritePath());
+    }
+
     public void initializeCenterSpriteAnimation() {
+        // Starts large and settles back to normal size in the simulation step
         centerSpriteScale = 1.2;
+        prevCenterSpriteScale = centerSpriteScale;
         centerSpriteInitialized = false;
-        
-        // Reload the sprite image
-        eImage = Toolkit.getDefaultToolkit().getImage(gameLogic.getCurrentSpritePath());
-        
-        if (centerSpriteTimer != null) {
-            centerSpriteTimer.stop();
-        }
-        
-        centerSpriteTimer = new Timer(16, e -> {
-            if (!centerSpriteInitialized) {
-                if (centerSpriteScale > 1.0) {
-                    double diff = 1.0 - centerSpriteScale;
-                    double change = diff * Math.min(1.0, ANIMATION_SPEED * 16);
-                    centerSpriteScale += change;
-                    repaint();
-                } else {
-                    centerSpriteScale = 1.0;
-                    centerSpriteInitialized = true;
-                    centerSpriteTimer.stop();
-                }
-            }
+        animating = true;
+        renderer.prefetchSprite(gameLogic.getNextSpritePath());
+        publishFrame();
+    }
+
+    /**
+     * Starts the animation and death check timers and the render thread. Called when the game is shown.
+     */
+    public void start() {
+        if (disposed) return;
+        lastTickNanos = System.nanoTime();
+        accumulatorNanos = 0;
+        if (renderThread == null) {
+            rendering = true;
+            renderThread = new Thread(this::renderLoop, "game-render");
+            renderThread.setDaemon(true);
+            renderThread.start();
+        }
+        animationTimer.start();
+        deathCheckTimer.start();
+        publishFrame();
+    }
+
+    /**
+     * Stops every timer, including pending one-shot effects, without touching game state.
+     */
+    public void pause() {
+        animationTimer.stop();
+        deathCheckTimer.stop();
+        cancelPendingTimers();
+        latency.report();
+        if (REPORT_IMAGE_CACHE) {
+            System.out.println("Image cache: " + getImageCache().getStats());
+        }
+    }
+
+    /**
+     * Clears all per-run visual state so the same panel can be used for the next run.
+     */
+    public void reset() {
+        cancelPendingTimers();
+        resetCardAnimations();
+        hoveredArea = -1;
+        isFlashing = false;
+        isArmorBreak = false;
+        flashStartTime = -1;
+        isDeathScreen = false;
+        deathScreenStartTime = -1;
+        isEnemyFlashing = false;
+        enemyFlashStartTime = -1;
+        lastDamageDealt = 0;
+        damageDisplayStartTime = -1;
+        topRounds = null;
+        shownClickNanos = 0;
+        isUpgradeChoice = false;
+        hoveredUpgrade = -1;
+        centerSpriteScale = 1.0;
+        prevCenterSpriteScale = 1.0;
+        centerSpriteInitialized = true;
+        animating = false;
+        initializeCards();
+        renderer.prefetchSprite(gameLogic.getNextSpritePath());
+        publishFrame();
+    }
+
+    /**
+     * Stops the panel for good and releases its listeners, render thread and cached images.
+     */
+    public void dispose() {
+        pause();
+        disposed = true;
+        removeMouseListener(mouseListener);
+        removeMouseMotionListener(mouseMotionListener);
+        removeComponentListener(resizeListener);
+        rendering = false;
+        if (renderThread != null) {
+            LockSupport.unpark(renderThread);
+            renderThread = null;
+        }
+        renderer.dispose();
+    }
+
+    /**
+     * The cache the panel's images are drawn from.
+     */
+    ImageCache getImageCache() {
+        return renderer.getImageCache();
+    }
+
+    /**
+     * The panel's running timers: the animation and death check timers and pending one-shot effects.
+     */
+    int getLiveTimerCount() {
+        return pendingTimers.size() + (animationTimer.isRunning() ? 1 : 0) + (deathCheckTimer.isRunning() ? 1 : 0);
+    }
+
+    /**
+     * Runs an action once after a delay. The timer is tracked so pause and reset can cancel it.
+     * @param name Name of the timer in recorded TimerCallback events
+     */
+    private void scheduleOnce(String name, int delay, ActionListener action) {
+        Timer timer = new Timer(delay, null);
+        timer.addActionListener(e -> {
+            timer.stop();
+            pendingTimers.remove(timer);
+            GameEvents.TimerCallback event = new GameEvents.TimerCallback();
+            event.timer = name;
+            event.begin();
+            action.actionPerformed(e);
+            event.commit();
         });
-        centerSpriteTimer.start();
+        timer.setRepeats(false);
+        pendingTimers.add(timer);
+        timer.start();
+    }
+
+    private void cancelPendingTimers() {
+        for (Timer timer : pendingTimers) {
+            timer.stop();
+        }
+        pendingTimers.clear();
     }
 
     private void setupMouseListener() {
-        addMouseListener(new MouseAdapter() {
+        mouseListener = new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                handleGridClick(e.getX(), e.getY());
+                long clickNanos = latency.beginClick(e.getWhen());
+                handleGridClick(e.getX(), e.getY(), clickNanos);
             }
-        });
+        };
+        addMouseListener(mouseListener);
     }
 
     private void setupMouseMotionListener() {
-        addMouseMotionListener(new MouseMotionAdapter() {
+        mouseMotionListener = new MouseMotionAdapter() {
             @Override
             public void mouseMoved(MouseEvent e) {
                 mouseX = e.getX();
@@ -170,7 +321,9 @@ public class GamePanel extends JPanel {
                 int previousHover = hoveredArea;
                 hoveredArea = -1;
                 
-                if (clickableAreas != null) {
+                updateClickableAreas();
+                hoveredUpgrade = isUpgradeChoice ? upgradeButtonAt(e.getX(), e.getY()) : -1;
+                if (clickableAreas != null && !isUpgradeChoice) {
                     for (int i = 0; i < clickableAreas.length; i++) {
                         if (clickableAreas[i] != null && clickableAreas[i].contains(e.getX(), e.getY())) {
                             hoveredArea = i;
@@ -180,115 +333,191 @@ public class GamePanel extends JPanel {
                 }
                 
                 if (previousHover != hoveredArea) {
-                    repaint();
+                    animating = true;
                 }
-                repaint();
+                publishFrame();
             }
-        });
+        };
+        addMouseMotionListener(mouseMotionListener);
     }
 
-    private void setupAnimationTimer() {
-        Timer timer = new Timer(ANIMATION_FRAME_RATE, e -> {
-            boolean needsRepaint = false;
-            long currentTime = System.currentTimeMillis();
-            double deltaTime = (currentTime - lastUpdateTime) / 1000.0;
-            lastUpdateTime = currentTime;
-
-            // Only update animations if they're active
-            if (isFlashing) {
-                needsRepaint |= handleFlashEffect(currentTime);
-            }
-            if (isEnemyFlashing) {
-                needsRepaint |= handleEnemyFlashEffect(currentTime);
-            }
-            if (damageDisplayStartTime != -1) {
-                needsRepaint |= true; // Damage display needs repaint
+    /**
+     * Draws in draft quality while the size keeps changing, whether the user
+     * drags the border or MarrowExecutable resizes or un-maximizes the window.
+     */
+    private void setupResizeListener() {
+        resizeListener = new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                quality.resized();
+                publishFrame();
             }
-            needsRepaint |= updateCardAnimations(currentTime, deltaTime);
+        };
+        addComponentListener(resizeListener);
+    }
 
-            if (needsRepaint) {
-                repaint();
-            }
+    private void setupAnimationTimer() {
+        animationTimer = new Timer(ANIMATION_FRAME_RATE, e -> {
+            GameEvents.TimerCallback event = new GameEvents.TimerCallback();
+            event.timer = "animation";
+            event.begin();
+            tick();
+            event.commit();
         });
-        timer.start();
+    }
+
+    /**
+     * Advances the simulation by whole fixed steps for the real time since the
+     * last tick. The leftover fraction of a step is kept for the next tick and
+     * used to interpolate between the last two steps when painting. While
+     * nothing is animating, a late tick jumps the clock instead of replaying
+     * the steps it missed. A frame is published when something moved or the
+     * game or panel size changed since the last one.
+     */
+    private void tick() {
+        long now = System.nanoTime();
+        accumulatorNanos = Math.min(accumulatorNanos + now - lastTickNanos, MAX_STEPS_PER_TICK * STEP_NANOS);
+        lastTickNanos = now;
+
+        long steps = accumulatorNanos / STEP_NANOS;
+        accumulatorNanos -= steps * STEP_NANOS;
+        if (steps > 1 && !animating) {
+            simTimeNanos += (steps - 1) * STEP_NANOS;
+            steps = 1;
+        }
+
+        boolean needsRepaint = false;
+        for (long i = 0; i < steps; i++) {
+            savePreviousState();
+            simTimeNanos += STEP_NANOS;
+            animating = update();
+            needsRepaint |= animating;
+        }
+        interpolation = (double)accumulatorNanos / STEP_NANOS;
+
+        if (needsRepaint || isStale(lastSnapshot)) {
+            publishFrame();
+        }
+    }
+
+    /**
+     * Current simulation time in milliseconds, used to stamp effect start times.
+     */
+    private long simMillis() {
+        return simTimeNanos / 1_000_000;
+    }
+
+    /**
+     * Simulation time at the moment being painted, between the last two steps.
+     */
+    private double renderMillis() {
+        return (simTimeNanos - (1.0 - interpolation) * STEP_NANOS) / 1e6;
+    }
+
+    private void savePreviousState() {
+        System.arraycopy(scaleFactors, 0, prevScaleFactors, 0, NUM_CARDS);
+        System.arraycopy(rotationFactors, 0, prevRotationFactors, 0, NUM_CARDS);
+        System.arraycopy(alphaFactors, 0, prevAlphaFactors, 0, NUM_CARDS);
+        prevCenterSpriteScale = centerSpriteScale;
+    }
+
+    private double interpolate(double previous, double current) {
+        return previous + (current - previous) * interpolation;
+    }
+
+    /**
+     * Runs one fixed simulation step.
+     * @return Whether anything is still animating
+     */
+    private boolean update() {
+        long currentTime = simMillis();
+        boolean active = false;
+
+        if (isFlashing) {
+            active |= handleFlashEffect(currentTime);
+        }
+        if (isEnemyFlashing) {
+            active |= handleEnemyFlashEffect(currentTime);
+        }
+        if (damageDisplayStartTime != -1) {
+            if (currentTime - damageDisplayStartTime >= DAMAGE_DISPLAY_DURATION) {
+                damageDisplayStartTime = -1;
+            }
+            active = true;
+        }
+        active |= updateCenterSprite();
+        active |= updateCardAnimations(currentTime);
+        return active;
     }
 
     private boolean handleFlashEffect(long currentTime) {
-        if (!isFlashing) return false;
-        
         long timeSinceFlash = currentTime - flashStartTime;
         if (timeSinceFlash >= FLASH_DURATION) {
             isFlashing = false;
             flashStartTime = -1;
-            return true;
         }
-        return false;
+        return true;
     }
 
     private boolean handleEnemyFlashEffect(long currentTime) {
-        if (!isEnemyFlashing) {
-            shakeOffsetX = 0;
-            shakeOffsetY = 0;
-            return false;
-        }
-        
         long timeSinceFlash = currentTime - enemyFlashStartTime;
         if (timeSinceFlash >= ENEMY_FLASH_DURATION) {
             isEnemyFlashing = false;
             enemyFlashStartTime = -1;
-            shakeOffsetX = 0;
-            shakeOffsetY = 0;
-            return true;
         }
+        return true;
+    }
 
-        // Calculate shake offset
-        double progress = (double)timeSinceFlash / ENEMY_FLASH_DURATION;
-        double shakeProgress = progress * SHAKE_FREQUENCY * Math.PI * 2;
-        shakeOffsetX = (int)(Math.sin(shakeProgress) * SHAKE_INTENSITY);
-        shakeOffsetY = (int)(Math.cos(shakeProgress) * SHAKE_INTENSITY);
-        
+    private boolean updateCenterSprite() {
+        if (centerSpriteInitialized) return false;
+        if (centerSpriteScale - 1.0 > 0.001) {
+            centerSpriteScale += (1.0 - centerSpriteScale) * Math.min(1.0, ANIMATION_SPEED * STEP_MILLIS);
+        } else {
+            centerSpriteScale = 1.0;
+            centerSpriteInitialized = true;
+        }
         return true;
     }
 
-    private boolean updateCardAnimations(long currentTime, double deltaTime) {
+    private boolean updateCardAnimations(long currentTime) {
         boolean needsRepaint = false;
         
         for (int i = 0; i < NUM_CARDS; i++) {
-            needsRepaint |= updateCardScale(i, deltaTime);
-            needsRepaint |= updateCardRotation(i, deltaTime);
-            needsRepaint |= updateCardFade(i, currentTime, deltaTime);
+            needsRepaint |= updateCardScale(i);
+            needsRepaint |= updateCardRotation(i);
+            needsRepaint |= updateCardFade(i, currentTime);
         }
         
         return needsRepaint;
     }
 
-    private boolean updateCardScale(int index, double deltaTime) {
+    private boolean updateCardScale(int index) {
         double targetScale = (index == hoveredArea && clickStartTimes[index] == -1) ? TARGET_SCALE : BASE_SCALE;
         double currentScale = scaleFactors[index];
         
         if (Math.abs(currentScale - targetScale) > 0.001) {
             double diff = targetScale - currentScale;
-            double change = diff * Math.min(1.0, ANIMATION_SPEED * deltaTime * 1000);
+            double change = diff * Math.min(1.0, ANIMATION_SPEED * STEP_MILLIS);
             scaleFactors[index] = currentScale + change;
             return true;
         }
         return false;
     }
 
-    private boolean updateCardRotation(int index, double deltaTime) {
+    private boolean updateCardRotation(int index) {
         double targetRotation = (index == hoveredArea && clickStartTimes[index] == -1) ? 0.0 : (index < 2 ? -BASE_ROTATION : BASE_ROTATION);
         double currentRotation = rotationFactors[index];
         
         if (Math.abs(currentRotation - targetRotation) > 0.001) {
             double diff = targetRotation - currentRotation;
-            double change = diff * Math.min(1.0, ANIMATION_SPEED * deltaTime * 1000);
+            double change = diff * Math.min(1.0, ANIMATION_SPEED * STEP_MILLIS);
             rotationFactors[index] = currentRotation + change;
             return true;
         }
         return false;
     }
 
-    private boolean updateCardFade(int index, long currentTime, double deltaTime) {
+    private boolean updateCardFade(int index, long currentTime) {
         if (clickStartTimes[index] == -1) return false;
         
         long timeSinceClick = currentTime - clickStartTimes[index];
@@ -303,11 +532,10 @@ public class GamePanel extends JPanel {
         
         if (Math.abs(alphaFactors[index] - targetAlpha) > 0.001) {
             double diff = targetAlpha - alphaFactors[index];
-            double change = diff * Math.min(1.0, ANIMATION_SPEED * deltaTime * 1000);
+            double change = diff * Math.min(1.0, ANIMATION_SPEED * STEP_MILLIS);
             alphaFactors[index] = alphaFactors[index] + change;
-            return true;
         }
-        return false;
+        return true;
     }
 
     private double calculateTargetAlpha(double cycleProgress, long timeSinceClick, int index) {
@@ -324,683 +552,416 @@ public class GamePanel extends JPanel {
         }
     }
 
-    private void loadImages() {
-        try {
-            // Load images with caching
-            bgImage = getCachedImage("bgframe.png");
-            eImage = getCachedImage(gameLogic.getCurrentSpritePath());
-            hpCardImage = getCachedImage("sprites/HPCARD.png");
-            teethOverlayImage = getCachedImage("sprites/TeethOverlay.png");
-            heartImage = getCachedImage("sprites/heart.png");
-            defImage = getCachedImage("sprites/def.png");
-            attackCardImage = getCachedImage("sprites/attack.png");
-            defenseCardImage = getCachedImage("sprites/defense.png");
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    private Image getCachedImage(String path) {
-        return imageCache.computeIfAbsent(path, k -> {
-            try {
-                return Toolkit.getDefaultToolkit().getImage(k);
-            } catch (Exception e) {
-                e.printStackTrace();
-                return null;
-            }
-        });
-    }
-
     private void setupClickableAreas() {
         clickableAreas = new Rectangle[NUM_CARDS];
     }
 
-    private void updateClickableAreas(DrawingArea area) {
-        int bottomRowY = area.y + area.height * 2 / 3;
-        int cellWidth = area.width / 5;
-        int cellHeight = area.height / 3;
-
+    // The areas only move when the panel is resized
+    private void updateClickableAreas() {
+        if (getWidth() == areasWidth && getHeight() == areasHeight) return;
+        areasWidth = getWidth();
+        areasHeight = getHeight();
+        DrawingArea area = GameRenderer.layout(areasWidth, areasHeight);
         for (int i = 0; i < NUM_CARDS; i++) {
-            int cellX = area.x + i * cellWidth;
-            clickableAreas[i] = new Rectangle(cellX, bottomRowY, cellWidth, cellHeight);
+            clickableAreas[i] = GameRenderer.cardArea(area, i);
+        }
+        for (int i = 0; i < GameRenderer.UPGRADE_COUNT; i++) {
+            upgradeAreas[i] = GameRenderer.upgradeButtonArea(area, i);
         }
     }
 
     private void randomizeCard(int index) {
-        System.out.println("Randomizing card " + index);
-        // 60% chance for attack (false), 40% chance for defense (true)
-        isDefenseCard[index] = random.nextDouble() < 0.4;
-        System.out.println("New card type: " + (isDefenseCard[index] ? "Defense" : "Attack"));
+        // Reveal the card the deck drew into this slot
+        handCards[index] = gameLogic.getHandCard(index);
+        System.out.println("Card " + index + " drawn: " + cardName(handCards[index]));
+    }
+
+    private String cardName(int card) {
+        return card >= 0 ? gameLogic.getCardCatalog().getName(card) : "Empty";
+    }
+
+    private boolean dealsDamage(int index) {
+        return handCards[index] >= 0 && gameLogic.getCardCatalog().getEffect(handCards[index]).dealsDamage();
     }
 
-    private void handleGridClick(int x, int y) {
+    private void handleGridClick(int x, int y, long clickNanos) {
+        if (isUpgradeChoice) {
+            int upgrade = upgradeButtonAt(x, y);
+            if (upgrade >= 0) {
+                chooseUpgrade(upgrade);
+            }
+            return;
+        }
         if (clickableAreas == null || gameLogic.isGameOver()) return;
+        updateClickableAreas();
 
         // Check for player death first
         if (gameLogic.isPlayerDead()) {
-            isDeathScreen = true;
-            deathScreenStartTime = System.currentTimeMillis();
-            Timer deathTimer = new Timer((int)DEATH_SCREEN_DURATION, e -> {
-                ((Timer)e.getSource()).stop();
-                // Return to menu using the parent window's method
-                JFrame frame = (JFrame)SwingUtilities.getWindowAncestor(this);
-                if (frame instanceof MarrowExecutable) {
-                    ((MarrowExecutable)frame).returnToMenu();
-                }
-            });
-            deathTimer.setRepeats(false);
-            deathTimer.start();
+            showDeathScreen();
             return;
         }
 
         for (int i = 0; i < clickableAreas.length; i++) {
             if (clickableAreas[i] != null && clickableAreas[i].contains(x, y)) {
-                if (clickStartTimes[i] == -1) {
-                    System.out.println("Card " + i + " clicked - Current type: " + (isDefenseCard[i] ? "Defense" : "Attack"));
+                if (clickStartTimes[i] == -1 && handCards[i] >= 0) {
+                    System.out.println("Card " + i + " clicked - Current type: " + cardName(handCards[i]));
+                    boolean playedAttack = dealsDamage(i);
                     int oldDef = gameLogic.getDefCounter();
                     int oldEnemyHP = gameLogic.getEnemyHP();
-                    gameLogic.handleCardClick(i, isDefenseCard[i]);
+                    long logicStart = System.nanoTime();
+                    gameLogic.handleCardClick(i);
+                    latency.recordSince(LatencyProbe.STAGE_LOGIC, logicStart);
+                    shownClickNanos = clickNanos;
                     
-                    // Store damage dealt if it was an attack card
-                    if (!isDefenseCard[i]) {
+                    // Store damage dealt if the card attacked
+                    if (playedAttack) {
                         lastDamageDealt = oldEnemyHP - gameLogic.getEnemyHP();
-                        damageDisplayStartTime = System.currentTimeMillis();
+                        damageDisplayStartTime = simMillis();
                         isEnemyFlashing = true;
-                        enemyFlashStartTime = System.currentTimeMillis();
+                        enemyFlashStartTime = simMillis();
                     }
                     
                     // Check for player death after card effect
                     if (gameLogic.isPlayerDead()) {
-                        isDeathScreen = true;
-                        deathScreenStartTime = System.currentTimeMillis();
-                        Timer deathTimer = new Timer((int)DEATH_SCREEN_DURATION, e -> {
-                            ((Timer)e.getSource()).stop();
-                            // Return to menu using the parent window's method
-                            JFrame frame = (JFrame)SwingUtilities.getWindowAncestor(this);
-                            if (frame instanceof MarrowExecutable) {
-                                ((MarrowExecutable)frame).returnToMenu();
-                            }
-                        });
-                        deathTimer.setRepeats(false);
-                        deathTimer.start();
+                        showDeathScreen();
                     }
                     // Only schedule flash effect if enemy is not defeated
                     else if (!gameLogic.isGameOver()) {
-                        Timer flashTimer = new Timer(400, e -> {
-                            ((Timer)e.getSource()).stop();
+                        scheduleOnce("hit flash", 400, e -> {
                             // Check if armor break occurred after both card effect and enemy attack
                             int currentDef = gameLogic.getDefCounter();
                             isArmorBreak = (oldDef > 0 && currentDef == 0);
                             isFlashing = true;
-                            flashStartTime = System.currentTimeMillis();
+                            flashStartTime = simMillis();
+                            animating = true;
+                            latency.recordSince(LatencyProbe.STAGE_FLASH, clickNanos);
                         });
-                        flashTimer.setRepeats(false);
-                        flashTimer.start();
                     } else {
-                        // If enemy is defeated, show victory buttons immediately
-                        showVictoryButtons();
+                        // If enemy is defeated, offer the upgrades right away
+                        showUpgradeChoice();
                     }
                     
-                    clickStartTimes[i] = System.currentTimeMillis();
-                    repaint();
+                    clickStartTimes[i] = simMillis();
+                    animating = true;
+                    publishFrame();
                 }
                 break;
             }
         }
     }
 
-    private void showVictoryButtons() {
-        Timer delayTimer = new Timer(1000, e -> {
-            ((Timer)e.getSource()).stop();
-            
-            JDialog dialog = new JDialog((Frame)SwingUtilities.getWindowAncestor(this), "Victory!", true);
-            dialog.setLayout(new GridLayout(2, 2, 10, 10));
-            dialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
-            
-            // Create 4 buttons with different colors
-            Color[] colors = {Color.RED, Color.BLUE, Color.RED, Color.BLUE};  // Changed colors for attack and shield
-            String[] buttonTexts = {"Health Upgrade", "Defense Upgrade", "Attack Upgrade", "Shield Upgrade"};
-            
-            for (int i = 0; i < 4; i++) {
-                JButton button = new JButton(buttonTexts[i]);
-                button.setBackground(colors[i]);
-                button.setForeground(Color.WHITE);
-                button.setFont(new Font("Arial", Font.BOLD, 20));
-                button.setFocusPainted(false);
-                
-                final int index = i;
-                button.addActionListener(e2 -> {
-                    dialog.dispose();
-                    gameLogic.resetGame();
-                    gameLogic.applyUpgrade(index);
-                    initializeCenterSpriteAnimation();
-                    initializeCards();
-                });
-                
-                dialog.add(button);
+    private void showUpgradeChoice() {
+        isUpgradeChoice = true;
+        hoveredUpgrade = upgradeButtonAt(mouseX, mouseY);
+        publishFrame();
+    }
+
+    /**
+     * The upgrade button under a point on the victory overlay, or -1.
+     */
+    private int upgradeButtonAt(int x, int y) {
+        updateClickableAreas();
+        for (int i = 0; i < GameRenderer.UPGRADE_COUNT; i++) {
+            if (upgradeAreas[i].contains(x, y)) {
+                return i;
             }
-            
-            dialog.pack();
-            dialog.setLocationRelativeTo(this);
-            dialog.setVisible(true);
-        });
-        delayTimer.setRepeats(false);
-        delayTimer.start();
+        }
+        return -1;
+    }
+
+    private void chooseUpgrade(int index) {
+        isUpgradeChoice = false;
+        hoveredUpgrade = -1;
+        gameLogic.resetGame();
+        gameLogic.applyUpgrade(index);
+        initializeCenterSpriteAnimation();
+        initializeCards();
+        publishFrame();
     }
 
     private void setupDeathCheckTimer() {
-        Timer deathCheckTimer = new Timer(100, e -> {
+        deathCheckTimer = new Timer(100, e -> {
+            GameEvents.TimerCallback event = new GameEvents.TimerCallback();
+            event.timer = "death check";
+            event.begin();
             if (gameLogic.isPlayerDead() && !isDeathScreen) {
                 System.out.println("Death detected in GamePanel!");
-                isDeathScreen = true;
-                deathScreenStartTime = System.currentTimeMillis();
-                Timer deathTimer = new Timer((int)DEATH_SCREEN_DURATION, e2 -> {
-                    ((Timer)e2.getSource()).stop();
-                    // Return to menu using the parent window's method
-                    JFrame frame = (JFrame)SwingUtilities.getWindowAncestor(this);
-                    if (frame instanceof MarrowExecutable) {
-                        ((MarrowExecutable)frame).returnToMenu();
-                    }
-                });
-                deathTimer.setRepeats(false);
-                deathTimer.start();
+                showDeathScreen();
             }
+            event.commit();
         });
-        deathCheckTimer.start();
     }
 
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
-        setupRenderingHints(g2d);
+    /**
+     * Shows the death screen and returns to the menu once it has been displayed.
+     */
+    private void showDeathScreen() {
+        if (isDeathScreen) return;
+        isDeathScreen = true;
+        deathScreenStartTime = simMillis();
+        recordRun();
+        publishFrame();
+        scheduleOnce("death screen", (int)DEATH_SCREEN_DURATION, e -> {
+            // Return to menu using the parent window's method
+            JFrame frame = (JFrame)SwingUtilities.getWindowAncestor(this);
+            if (frame instanceof MarrowExecutable) {
+                ((MarrowExecutable)frame).returnToMenu();
+            }
+        });
+    }
 
-        DrawingArea area = calculateDrawingArea();
-        updateClickableAreas(area);
-        
-        drawBackground(g2d, area);
-        drawGrid(g2d, area);
-        drawContent(g2d, area);
-        
-        // Draw death screen
-        if (gameLogic.isPlayerDead() || isDeathScreen) {
-            g2d.setColor(Color.BLACK);
-            g2d.fillRect(0, 0, getWidth(), getHeight());
-            g2d.setColor(Color.WHITE);
-            
-            // Get current score and high score
-            int currentScore = gameLogic.getEnemiesDefeated() + 1; // Current round number
-            int highScore = getHighScore();
-            saveHighScore(currentScore);
-            
-            // Draw death text
-            Font deathFont = new Font("Arial", Font.BOLD, 48);
-            g2d.setFont(deathFont);
-            FontMetrics fm = g2d.getFontMetrics();
-            String deathText = "YOU DIED";
-            int textWidth = fm.stringWidth(deathText);
-            int textHeight = fm.getHeight();
-            int x = (getWidth() - textWidth) / 2;
-            int y = (getHeight() + textHeight) / 2;
-            g2d.drawString(deathText, x, y);
-            
-            // Draw score information
-            Font scoreFont = new Font("Arial", Font.BOLD, 24);
-            g2d.setFont(scoreFont);
-            FontMetrics scoreFm = g2d.getFontMetrics();
-            String scoreText = "Round Reached: " + currentScore;
-            String highScoreText = "Highest Round: " + highScore;
-            
-            int scoreWidth = scoreFm.stringWidth(scoreText);
-            int highScoreWidth = scoreFm.stringWidth(highScoreText);
-            int scoreX = (getWidth() - Math.max(scoreWidth, highScoreWidth)) / 2;
-            int scoreY = y + textHeight + 40;
-            
-            g2d.drawString(scoreText, scoreX, scoreY);
-            g2d.drawString(highScoreText, scoreX, scoreY + 30);
-        }
-        // Draw flash effect only within the grid area
-        else if (isFlashing) {
-            if (isArmorBreak) {
-                g2d.setColor(new Color(255, 0, 0, 255)); // Full red flash for armor break
-            } else {
-                g2d.setColor(new Color(255, 255, 255, 200)); // White flash for normal hits
+    /**
+     * Captures the current state for the render thread into a snapshot it is
+     * neither drawing nor about to draw. An unrendered older snapshot is
+     * replaced, so the render thread always draws the newest one.
+     */
+    void publishFrame() {
+        int index = 0;
+        synchronized (swapLock) {
+            while (index == pendingSnapshot || index == drawnSnapshot) {
+                index++;
             }
-            g2d.fillRect(area.x, area.y, area.width, area.height);
         }
-        
-        drawOverlays(g2d, area);
-        
-        if (!centerSpriteInitialized) {
-            repaint();
+        FrameSnapshot snapshot = snapshots[index];
+        for (int i = 0; i < NUM_CARDS; i++) {
+            snapshot.setCard(i, handCards[i], interpolate(prevScaleFactors[i], scaleFactors[i]),
+                    interpolate(prevRotationFactors[i], rotationFactors[i]),
+                    interpolate(prevAlphaFactors[i], alphaFactors[i]));
+        }
+
+        // Shake at the painted moment of the enemy flash
+        int shakeX = 0;
+        int shakeY = 0;
+        if (isEnemyFlashing) {
+            double progress = Math.min(1.0, (renderMillis() - enemyFlashStartTime) / ENEMY_FLASH_DURATION);
+            double shakeProgress = progress * SHAKE_FREQUENCY * Math.PI * 2;
+            shakeX = (int)(Math.sin(shakeProgress) * SHAKE_INTENSITY);
+            shakeY = (int)(Math.cos(shakeProgress) * SHAKE_INTENSITY);
+        }
+
+        // Damage number fades out over its display time
+        float damageAlpha = 0;
+        if (damageDisplayStartTime != -1) {
+            double timeSinceDamage = Math.max(0, renderMillis() - damageDisplayStartTime);
+            if (timeSinceDamage < DAMAGE_DISPLAY_DURATION) {
+                damageAlpha = 1.0f - (float)(timeSinceDamage / DAMAGE_DISPLAY_DURATION);
+            }
         }
-    }
-
-    private void setupRenderingHints(Graphics2D g2d) {
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-    }
 
-    private DrawingArea calculateDrawingArea() {
-        int panelWidth = getWidth();
-        int panelHeight = getHeight();
-        int targetWidth = panelWidth;
-        int targetHeight = panelWidth * 3 / 4;
+        boolean dead = isDeathScreen || gameLogic.isPlayerDead();
+        int[] top = dead ? topRounds : null;
+        int highScore = top != null && top.length > 0 ? top[0] : -1;
 
-        if (targetHeight > panelHeight) {
-            targetHeight = panelHeight;
-            targetWidth = panelHeight * 4 / 3;
+        snapshot.set(getWidth(), getHeight(), gameLogic, highScore, top, isDeathScreen,
+                isUpgradeChoice, hoveredUpgrade,
+                interpolate(prevCenterSpriteScale, centerSpriteScale), mouseX, mouseY,
+                isFlashing, isArmorBreak, isEnemyFlashing, shakeX, shakeY,
+                lastDamageDealt, damageAlpha, shownClickNanos);
+        lastSnapshot = snapshot;
+        synchronized (swapLock) {
+            pendingSnapshot = index;
         }
-
-        int x = (panelWidth - targetWidth) / 2;
-        int y = (panelHeight - targetHeight) / 2;
-
-        return new DrawingArea(x, y, targetWidth, targetHeight);
-    }
-
-    private void drawBackground(Graphics2D g2d, DrawingArea area) {
-        g2d.setColor(Color.BLACK);
-        g2d.fillRect(0, 0, getWidth(), getHeight());
-        g2d.fillRect(area.x, area.y, area.width, area.height);
-    }
-
-    private void drawGrid(Graphics2D g2d, DrawingArea area) {
-        // Grid lines removed
-    }
-
-    private void drawContent(Graphics2D g2d, DrawingArea area) {
-        Font font = new Font("SansSerif", Font.BOLD, 48);
-        g2d.setFont(font);
-        FontMetrics fm = g2d.getFontMetrics();
-
-        drawGridCells(g2d, area, fm);
-        drawHPCards(g2d, area);
-        drawTeethOverlay(g2d, area);
-        drawCounters(g2d, area, fm);
-    }
-
-    private void drawCounters(Graphics2D g2d, DrawingArea area, FontMetrics fm) {
-        g2d.setColor(Color.WHITE);
-        
-        int cellWidth = area.width / 5;
-        int cellHeight = area.height / 3;
-        int halfCellWidth = cellWidth / 2;
-        int halfCellHeight = cellHeight / 2;
-        
-        // Position for K2 (HP counter)
-        int k2X = area.x + cellWidth * 4 + halfCellWidth;
-        int k2Y = area.y + area.height * 2 / 3;
-        
-        // Position for L2 (Defense counter)
-        int l2X = area.x + cellWidth * 4 + halfCellWidth;
-        int l2Y = area.y + area.height * 2 / 3 + halfCellHeight;
-
-        Font counterFont = new Font("SansSerif", Font.BOLD, Math.min(halfCellWidth / 3, halfCellHeight / 2));
-        g2d.setFont(counterFont);
-        FontMetrics counterFm = g2d.getFontMetrics();
-
-        // Get counter values from GameLogic
-        String hpCounterStr = String.valueOf(gameLogic.getHpCounter());
-        String defCounterStr = String.valueOf(gameLogic.getDefCounter());
-        
-        // Draw HP counter in K2
-        int textWidth = counterFm.stringWidth(hpCounterStr);
-        int textHeight = counterFm.getAscent();
-        int k2CenterX = k2X + (halfCellWidth - textWidth) / 2;
-        int k2CenterY = k2Y + (halfCellHeight + textHeight) / 2 - 5;
-        g2d.drawString(hpCounterStr, k2CenterX, k2CenterY);
-
-        // Draw Defense counter in L2
-        textWidth = counterFm.stringWidth(defCounterStr);
-        int l2CenterX = l2X + (halfCellWidth - textWidth) / 2;
-        int l2CenterY = l2Y + (halfCellHeight + textHeight) / 2 - 5;
-        g2d.drawString(defCounterStr, l2CenterX, l2CenterY);
-    }
-
-    private void drawGridCells(Graphics2D g2d, DrawingArea area, FontMetrics fm) {
-        int[] rowHeights = {area.height / 6, area.height * 3 / 6, area.height - (area.height / 6 + area.height * 3 / 6)};
-        int[] rowYs = {area.y, area.y + rowHeights[0], area.y + rowHeights[0] + rowHeights[1]};
-        int[] colsPerRow = {3, 3, 5};
-
-        char letter = 'A';
-        for (int row = 0; row < 3; row++) {
-            drawRow(g2d, area, row, rowHeights[row], rowYs[row], colsPerRow[row], letter, fm);
-            letter += colsPerRow[row];
-        }
-    }
-
-    private void drawRow(Graphics2D g2d, DrawingArea area, int row, int rowHeight, int rowY, int cols, char startLetter, FontMetrics fm) {
-        int cellWidth = area.width / cols;
-        char letter = startLetter;
-
-        for (int col = 0; col < cols; col++) {
-            int cellX = area.x + col * cellWidth;
-            
-            if (row == 2 && col == cols - 1) {
-                drawSplitCell(g2d, cellX, rowY, cellWidth, rowHeight, letter, fm);
-            } else if (row == 1 && col == 1) {
-                drawCenterCell(g2d, cellX, rowY, cellWidth, rowHeight);
-            } else {
-                drawNormalCell(g2d, cellX, rowY, cellWidth, rowHeight, letter, fm, row);
-            }
-            letter++;
+        Thread thread = renderThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
         }
     }
 
-    private void drawSplitCell(Graphics2D g2d, int x, int y, int width, int height, char letter, FontMetrics fm) {
-        int halfWidth = width / 2;
-        int halfHeight = height / 2;
-        
-        // Draw top-left (K1)
-        g2d.setColor(Color.RED);
-        g2d.fillRect(x, y, halfWidth, halfHeight);
-        if (heartImage != null) {
-            drawScaledImage(g2d, heartImage, x, y, halfWidth, halfHeight);
-        }
-        
-        // Draw top-right (K2)
-        g2d.setColor(Color.RED);
-        g2d.fillRect(x + halfWidth, y, halfWidth, halfHeight);
-        
-        // Draw bottom-left (L1)
-        g2d.setColor(Color.BLUE);
-        g2d.fillRect(x, y + halfHeight, halfWidth, halfHeight);
-        if (defImage != null) {
-            drawScaledImage(g2d, defImage, x, y + halfHeight, halfWidth, halfHeight);
+    /**
+     * Whether the game state or panel size differs from the given snapshot.
+     */
+    private boolean isStale(FrameSnapshot snapshot) {
+        if (snapshot == null) return true;
+        if (snapshot.width != getWidth() || snapshot.height != getHeight()) return true;
+        if (snapshot.hp != gameLogic.getHpCounter() || snapshot.def != gameLogic.getDefCounter()) return true;
+        if (snapshot.enemyHP != gameLogic.getEnemyHP() || snapshot.round != gameLogic.getEnemiesDefeated() + 1) return true;
+        if (!snapshot.deathScreen && gameLogic.isPlayerDead()) return true;
+        if (!snapshot.spritePath.equals(gameLogic.getCurrentSpritePath())) return true;
+        for (int i = 0; i < NUM_CARDS; i++) {
+            if (snapshot.getHandCard(i) != handCards[i]) return true;
         }
-        
-        // Draw bottom-right (L2)
-        g2d.setColor(Color.BLUE);
-        g2d.fillRect(x + halfWidth, y + halfHeight, halfWidth, halfHeight);
+        return false;
     }
 
-    private void drawCenterCell(Graphics2D g2d, int x, int y, int width, int height) {
-        g2d.setColor(Color.BLACK);
-        g2d.fillRect(x, y, width, height);
-        
-        if (eImage != null) {
-            int imgWidth = eImage.getWidth(this);
-            int imgHeight = eImage.getHeight(this);
-            
-            if (imgWidth > 0 && imgHeight > 0) {
-                double widthScale = (double)width / imgWidth;
-                double heightScale = (double)height / imgHeight;
-                double scale = Math.min(widthScale, heightScale) * 0.8 * centerSpriteScale;
-                
-                int drawWidth = (int)(imgWidth * scale);
-                int drawHeight = (int)(imgHeight * scale);
-                
-                // Calculate parallax offset
-                int centerX = x + width / 2;
-                int centerY = y + height / 2;
-                int offsetX = (int)((mouseX - centerX) * PARALLAX_FACTOR);
-                int offsetY = (int)((mouseY - centerY) * PARALLAX_FACTOR);
-                
-                // Add shake offset to the drawing position
-                int drawX = x + (width - drawWidth) / 2 + offsetX + shakeOffsetX;
-                int drawY = y + (height - drawHeight) / 2 + offsetY + shakeOffsetY;
-                
-                // Save the original composite
-                Composite oldComposite = g2d.getComposite();
-                
-                // If enemy is flashing, apply red tint to non-transparent parts
-                if (isEnemyFlashing) {
-                    // Create a red-tinted version of the sprite
-                    BufferedImage redSprite = new BufferedImage(imgWidth, imgHeight, BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D redG2d = redSprite.createGraphics();
-                    
-                    // Draw the original sprite first to preserve transparency
-                    redG2d.drawImage(eImage, 0, 0, imgWidth, imgHeight, this);
-                    
-                    // Apply red tint only to non-transparent pixels
-                    redG2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_IN, 0.7f));
-                    redG2d.setColor(Color.RED);
-                    redG2d.fillRect(0, 0, imgWidth, imgHeight);
-                    redG2d.dispose();
-                    
-                    // Draw the red-tinted sprite
-                    g2d.drawImage(redSprite, drawX, drawY, drawWidth, drawHeight, this);
-                } else {
-                    // Just draw the sprite normally if not flashing
-                    g2d.drawImage(eImage, drawX, drawY, drawWidth, drawHeight, this);
+    /**
+     * Render thread body. Draws the newest snapshot into a buffer that is neither
+     * the front buffer nor on screen, then swaps it to the front and asks the EDT to blit.
+     */
+    private void renderLoop() {
+        while (rendering) {
+            FrameSnapshot snapshot = null;
+            synchronized (swapLock) {
+                if (pendingSnapshot >= 0) {
+                    drawnSnapshot = pendingSnapshot;
+                    pendingSnapshot = -1;
+                    snapshot = snapshots[drawnSnapshot];
                 }
-                
-                // Restore the original composite
-                g2d.setComposite(oldComposite);
-
-                // Draw damage counter if active
-                if (damageDisplayStartTime != -1) {
-                    long currentTime = System.currentTimeMillis();
-                    long timeSinceDamage = currentTime - damageDisplayStartTime;
-                    
-                    if (timeSinceDamage < DAMAGE_DISPLAY_DURATION) {
-                        // Calculate fade out
-                        float alpha = 1.0f - ((float)timeSinceDamage / DAMAGE_DISPLAY_DURATION);
-                        
-                        // Set up font for damage text - make it larger
-                        Font damageFont = new Font("Arial", Font.BOLD, 48);
-                        g2d.setFont(damageFont);
-                        
-                        // Draw damage text with white color and fade
-                        Composite oldDamageComposite = g2d.getComposite();
-                        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
-                        g2d.setColor(Color.WHITE);
-                        
-                        String damageText = "-" + lastDamageDealt;
-                        FontMetrics fm = g2d.getFontMetrics();
-                        int textWidth = fm.stringWidth(damageText);
-                        int textHeight = fm.getHeight();
-                        
-                        // Position text in the center of the sprite
-                        int textX = drawX + (drawWidth - textWidth) / 2;
-                        int textY = drawY + (drawHeight + textHeight) / 2;
-                        
-                        // Draw text with a black outline for better visibility
-                        g2d.setColor(Color.BLACK);
-                        g2d.drawString(damageText, textX - 1, textY);
-                        g2d.drawString(damageText, textX + 1, textY);
-                        g2d.drawString(damageText, textX, textY - 1);
-                        g2d.drawString(damageText, textX, textY + 1);
-                        
-                        // Draw the white text
-                        g2d.setColor(Color.WHITE);
-                        g2d.drawString(damageText, textX, textY);
-                        
-                        g2d.setComposite(oldDamageComposite);
-                    } else {
-                        damageDisplayStartTime = -1;
-                    }
+            }
+            if (snapshot == null) {
+                if (lastDraft == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                // Nothing new, but the frame on screen is a draft: draw it again once full quality is back
+                if (quality.useDraft(System.nanoTime())) {
+                    LockSupport.parkNanos(this, DRAFT_RECHECK_NANOS);
+                    continue;
+                }
+                snapshot = lastDraft;
+            }
+            if (snapshot.width <= 0 || snapshot.height <= 0) continue;
+            long renderStart = System.nanoTime();
+            boolean draft = quality.useDraft(renderStart);
+
+            int index = 0;
+            synchronized (swapLock) {
+                while (index == frontBuffer || index == onScreenBuffer) {
+                    index++;
                 }
             }
-        }
-    }
-
-    private void drawNormalCell(Graphics2D g2d, int x, int y, int width, int height, char letter, FontMetrics fm, int row) {
-        if (letter == 'K') {
-            g2d.setColor(Color.RED);
-        } else if (letter == 'L') {
-            g2d.setColor(Color.BLUE);
-        } else if (letter == 'C') {
-            g2d.setColor(Color.GREEN);
-        } else {
-            g2d.setColor(row == 0 || row == 2 ? Color.DARK_GRAY : Color.BLACK);
-        }
-        g2d.fillRect(x, y, width, height);
-        g2d.setColor(Color.WHITE);
-
-        if (letter == 'B' && eImage != null) {
-            Font filenameFont = new Font("SansSerif", Font.BOLD, Math.min(width / 10, height / 3));
-            g2d.setFont(filenameFont);
-            FontMetrics filenameFm = g2d.getFontMetrics();
-            
-            String spriteName = gameLogic.getCurrentSpriteName();
-            int textWidth = filenameFm.stringWidth(spriteName);
-            int textHeight = filenameFm.getAscent();
-            int textX = x + (width - textWidth) / 2;
-            int textY = y + (height + textHeight) / 2 - filenameFm.getDescent();
-            g2d.drawString(spriteName, textX, textY);
-        } else if (letter == 'C') {
-            Font counterFont = new Font("SansSerif", Font.BOLD, Math.min(width / 10, height / 3));
-            g2d.setFont(counterFont);
-            FontMetrics counterFm = g2d.getFontMetrics();
-            
-            String enemyHPStr = String.valueOf(gameLogic.getEnemyHP());
-            int textWidth = counterFm.stringWidth(enemyHPStr);
-            int textHeight = counterFm.getAscent();
-            int textX = x + (width - textWidth) / 2;
-            int textY = y + (height + textHeight) / 2 - counterFm.getDescent();
-            g2d.drawString(enemyHPStr, textX, textY);
-        }else if (letter == 'A') {
-            Font counterFont = new Font("SansSerif", Font.BOLD, Math.min(width / 10, height / 3));
-            g2d.setFont(counterFont);
-            FontMetrics counterFm = g2d.getFontMetrics();
-            
-            String roundCtr = "Round " + (gameLogic.getEnemiesDefeated() + 1);
-            int textWidth = counterFm.stringWidth(roundCtr);
-            int textHeight = counterFm.getAscent();
-            int textX = x + (width - textWidth) / 2;
-            int textY = y + (height + textHeight) / 2 - counterFm.getDescent();
-            g2d.drawString(roundCtr, textX, textY);
-        }
-    }
-
-    private void drawScaledImage(Graphics2D g2d, Image image, int x, int y, int width, int height) {
-        if (image == null) return;
-        
-        int imgWidth = image.getWidth(this);
-        int imgHeight = image.getHeight(this);
-        
-        if (imgWidth <= 0 || imgHeight <= 0) return;
-
-        double widthScale = (double)width / imgWidth;
-        double heightScale = (double)height / imgHeight;
-        double scale = Math.min(widthScale, heightScale) * CARD_SCALE_FACTOR;
-        
-        int drawWidth = (int)(imgWidth * scale);
-        int drawHeight = (int)(imgHeight * scale);
-        
-        int drawX = x + (width - drawWidth) / 2;
-        int drawY = y + (height - drawHeight) / 2;
-        
-        g2d.drawImage(image, drawX, drawY, drawWidth, drawHeight, this);
-    }
 
-    private void drawHPCards(Graphics2D g2d, DrawingArea area) {
-        if (hpCardImage == null) return;
+            BufferedImage buffer = buffers[index];
+            if (draft) {
+                // Any buffer that fits will do, and a new one has room to grow
+                if (buffer == null || buffer.getWidth() < snapshot.width || buffer.getHeight() < snapshot.height) {
+                    buffer = createBuffer(roundUp(snapshot.width, DRAFT_BUFFER_STEP), roundUp(snapshot.height, DRAFT_BUFFER_STEP));
+                    releaseGraphics(index);
+                }
+            } else if (buffer == null || buffer.getWidth() != snapshot.width || buffer.getHeight() != snapshot.height) {
+                buffer = createBuffer(snapshot.width, snapshot.height);
+                releaseGraphics(index);
+            }
+            if (bufferGraphics[index] == null) {
+                bufferGraphics[index] = buffer.createGraphics();
+            }
 
-        int bottomRowY = area.y + area.height * 2 / 3;
-        int cellWidth = area.width / 5;
-        int cellHeight = area.height / 3;
+            GameEvents.FrameRender event = new GameEvents.FrameRender();
+            event.begin();
+            allocationGuard.beginFrame();
+            try {
+                renderer.render(bufferGraphics[index], snapshot, draft);
+            } catch (Exception e) {
+                e.printStackTrace();
+                releaseGraphics(index); // Start the next frame from a clean state
+            }
+            allocationGuard.endFrame();
+            event.end();
+            long renderEnd = System.nanoTime();
+            quality.frameRendered(renderEnd, renderEnd - renderStart, draft);
+            lastDraft = draft ? snapshot : null;
+            if (event.shouldCommit()) {
+                event.width = snapshot.width;
+                event.height = snapshot.height;
+                event.round = snapshot.round;
+                event.draft = draft;
+                event.interval = lastRenderStart != 0 ? renderStart - lastRenderStart : 0;
+                event.commit();
+            }
+            lastRenderStart = renderStart;
+            latency.recordSince(LatencyProbe.STAGE_RENDER_COST, renderStart);
 
-        for (int col = 0; col < NUM_CARDS; col++) {
-            int cellX = area.x + col * cellWidth;
-            drawHPCard(g2d, cellX, bottomRowY, cellWidth, cellHeight, col);
+            synchronized (swapLock) {
+                buffers[index] = buffer;
+                bufferClicks[index] = snapshot.clickNanos;
+                frontBuffer = index;
+            }
+            if (snapshot.clickNanos != lastRenderedClick) {
+                lastRenderedClick = snapshot.clickNanos;
+                latency.recordSince(LatencyProbe.STAGE_RENDERED, snapshot.clickNanos);
+            }
+            repaint();
+        }
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            releaseGraphics(i);
         }
     }
 
-    private void drawHPCard(Graphics2D g2d, int x, int y, int width, int height, int col) {
-        Image cardImage = isDefenseCard[col] ? defenseCardImage : attackCardImage;
-        
-        if (cardImage == null) return;
-        
-        int imgWidth = cardImage.getWidth(this);
-        int imgHeight = cardImage.getHeight(this);
-        
-        if (imgWidth <= 0 || imgHeight <= 0) return;
-
-        double widthScale = (double)width / imgWidth;
-        double heightScale = (double)height / imgHeight;
-        double scale = Math.min(widthScale, heightScale) * 0.8;
-        
-        scale *= scaleFactors[col];
-        
-        int drawWidth = (int)(imgWidth * scale);
-        int drawHeight = (int)(imgHeight * scale);
-        
-        int drawX = x + (width - drawWidth) / 2;
-        int drawY = y + (height - drawHeight) / 2;
-
-        AffineTransform oldTransform = g2d.getTransform();
-        g2d.rotate(Math.toRadians(rotationFactors[col]), drawX + drawWidth / 2, drawY + drawHeight / 2);
-        
-        Composite oldComposite = g2d.getComposite();
-        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float)alphaFactors[col]));
-        g2d.drawImage(cardImage, drawX, drawY, drawWidth, drawHeight, this);
-        g2d.setComposite(oldComposite);
-        
-        g2d.setTransform(oldTransform);
+    private static int roundUp(int value, int step) {
+        return (value + step - 1) / step * step;
     }
 
-    private void drawTeethOverlay(Graphics2D g2d, DrawingArea area) {
-        if (teethOverlayImage == null) return;
-
-        int middleRowY = area.y + area.height / 6;
-        int cellWidth = area.width / 3;
-        int cellHeight = area.height * 3 / 6;
-        int imgWidth = teethOverlayImage.getWidth(this);
-        int imgHeight = teethOverlayImage.getHeight(this);
-
-        for (int col = 0; col < 3; col++) {
-            int cellX = area.x + col * cellWidth;
-            double widthScale = (double)cellWidth / imgWidth;
-            double scale = widthScale;
-            
-            int drawWidth = (int)(imgWidth * scale);
-            int drawHeight = (int)(imgHeight * scale);
-            
-            int drawX = cellX + (cellWidth - drawWidth) / 2;
-            int drawY = middleRowY;
-            
-            g2d.drawImage(teethOverlayImage, drawX, drawY, drawWidth, drawHeight, this);
+    private void releaseGraphics(int index) {
+        if (bufferGraphics[index] != null) {
+            bufferGraphics[index].dispose();
+            bufferGraphics[index] = null;
         }
     }
 
-    private void drawOverlays(Graphics2D g2d, DrawingArea area) {
-        if (bgImage != null) {
-            g2d.drawImage(bgImage, area.x, area.y, area.width, area.height, this);
+    private BufferedImage createBuffer(int width, int height) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height);
         }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
     }
 
+    /**
+     * Blits the newest finished frame. All drawing happens on the render thread.
+     */
     @Override
-    public Dimension getPreferredSize() {
-        return new Dimension(1080, 810);
-    }
-
-    private int getHighScore() {
-        if (currentHighScore == -1) {
-            try {
-                File file = new File(HIGH_SCORE_FILE);
-                if (!file.exists()) {
-                    currentHighScore = 0;
-                    return 0;
-                }
-                Scanner scanner = new Scanner(file);
-                if (scanner.hasNextInt()) {
-                    currentHighScore = scanner.nextInt();
-                    scanner.close();
-                    return currentHighScore;
+    protected void paintComponent(Graphics g) {
+        BufferedImage frame;
+        long frameClick;
+        synchronized (swapLock) {
+            onScreenBuffer = frontBuffer;
+            frame = frontBuffer >= 0 ? buffers[frontBuffer] : null;
+            frameClick = frontBuffer >= 0 ? bufferClicks[frontBuffer] : 0;
+        }
+        try {
+            if (frame == null) {
+                g.setColor(Color.BLACK);
+                g.fillRect(0, 0, getWidth(), getHeight());
+                return;
+            }
+            long blitStart = System.nanoTime();
+            GameEvents.FramePaint event = new GameEvents.FramePaint();
+            event.begin();
+            g.drawImage(frame, 0, 0, null);
+            event.end();
+            latency.recordSince(LatencyProbe.STAGE_BLIT_COST, blitStart);
+            if (event.shouldCommit()) {
+                Rectangle dirty = g.getClipBounds();
+                if (dirty != null) {
+                    event.dirtyX = dirty.x;
+                    event.dirtyY = dirty.y;
+                    event.dirtyWidth = dirty.width;
+                    event.dirtyHeight = dirty.height;
                 }
-                scanner.close();
-            } catch (Exception e) {
-                e.printStackTrace();
+                event.frameWidth = frame.getWidth();
+                event.frameHeight = frame.getHeight();
+                event.commit();
+            }
+            if (frameClick != lastPaintedClick) {
+                lastPaintedClick = frameClick;
+                latency.recordSince(LatencyProbe.STAGE_PHOTON, frameClick);
+            }
+        } finally {
+            synchronized (swapLock) {
+                onScreenBuffer = -1;
             }
-            currentHighScore = 0;
         }
-        return currentHighScore;
     }
 
-    private void saveHighScore(int score) {
-        if (score > currentHighScore) {
-            currentHighScore = score;
-            try {
-                File file = new File(HIGH_SCORE_FILE);
-                FileWriter writer = new FileWriter(file);
-                writer.write(String.valueOf(score));
-                writer.close();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(1080, 810);
+    }
+
+    /**
+     * Adds the finished run to the leaderboard. The log write happens off the EDT.
+     */
+    private void recordRun() {
+        int round = gameLogic.getEnemiesDefeated() + 1;
+        int[] upgradeLevels = new int[4];
+        for (int i = 0; i < upgradeLevels.length; i++) {
+            upgradeLevels[i] = gameLogic.getUpgradeLevel(i);
+        }
+        leaderboard.record(Leaderboard.currentProfile(), round, upgradeLevels);
+        leaderboard.fetchTopRounds(Leaderboard.currentProfile(), TOP_RUNS_SHOWN, rounds ->
+                SwingUtilities.invokeLater(() -> {
+                    if (!isDeathScreen) return; // Back at the menu already
+                    topRounds = rounds;
+                    publishFrame();
+                }));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,48 @@
+import java.util.Random;
+
+/**
+ * GameRandom is a java.util.Random with the same generator whose internal
+ * state can be read and restored, so a saved run continues with the exact
+ * same random sequence. It is only used from one thread at a time.
+ */
+public class GameRandom extends Random {
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // Not initialized here: Random's constructor calls setSeed before field initializers run
+    private long state;
+
+    public GameRandom() {
+        super();
+    }
+
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int)(state >>> (48 - bits));
+    }
+
+    /**
+     * Returns the raw generator state.
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Restores a state previously returned by getState.
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
@@ -0,0 +1,814 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * GameRenderer draws a FrameSnapshot. It only reads the snapshot and its own
+ * caches, so it can run on any thread; GamePanel runs it on its render thread.
+ * Images come from a byte-budgeted ImageCache with the card art and frame
+ * pinned, and the red-tinted enemy sprite, fonts and the
+ * upgrade overlay are cached instead of being rebuilt every frame. A renderer
+ * is meant to be used by one render thread at a time.
+ *
+ * Once its caches are warm, drawing a frame allocates nothing as long as the
+ * card poses hold still: scaled and rotated images are copied from PosedImages,
+ * text is drawn from pre-rendered labels and glyph strips, and composites come
+ * from a fixed table. RenderAllocationCheck measures this.
+ *
+ * Frames can also be drawn in draft quality, which RenderQuality asks for
+ * while the window is resized or frames run over budget: nearest-neighbour
+ * scaling without antialiasing, no frame or teeth overlay, no translucent
+ * layers, and cached images reused at whatever size they are rather than
+ * decoded or rebuilt for every intermediate size.
+ */
+public class GameRenderer {
+    private static final double PARALLAX_FACTOR = -0.02;
+    private static final double CARD_SCALE_FACTOR = 0.8;
+    private static final Color WHITE_FLASH = new Color(255, 255, 255, 200); // White flash for normal hits
+    private static final Color RED_FLASH = new Color(255, 0, 0, 255);       // Full red flash for armor break
+    private static final Color OVERLAY_SHADE = new Color(0, 0, 0, 160);
+
+    // Upgrade overlay buttons, in GameLogic.applyUpgrade order
+    public static final int UPGRADE_COUNT = 4;
+    private static final String[] UPGRADE_LABELS = {"Health Upgrade", "Defense Upgrade", "Attack Upgrade", "Shield Upgrade"};
+    private static final Color[] UPGRADE_COLORS = {Color.RED, Color.BLUE, Color.RED, Color.BLUE};
+    private static final int UPGRADE_GAP = 10;
+    private static final BasicStroke HOVER_STROKE = new BasicStroke(3);
+    private static final int MAX_GLYPH_SIZES = 16;
+    private static final String TINT_PREFIX = "tint:";
+    private static final String[] FRAME_ASSETS = {"bgframe.png", "sprites/TeethOverlay.png", "sprites/heart.png", "sprites/def.png"};
+    private static final AlphaComposite[] ALPHAS = new AlphaComposite[256]; // SRC_OVER at every 8-bit alpha
+
+    static {
+        for (int i = 0; i < ALPHAS.length; i++) {
+            ALPHAS[i] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, i / 255f);
+        }
+    }
+
+    // A line of white text drawn once into an image
+    private static final class Label {
+        String text;
+        Font font;
+        BufferedImage image;
+        int width;
+        int ascent;
+        int descent;
+    }
+
+    private final ImageCache images;
+    private final Map<Integer, Font> sansFonts = new HashMap<>();
+    private final Map<Integer, Font> arialFonts = new HashMap<>();
+    private final Map<Integer, GlyphStrip> counterGlyphs = new HashMap<>(); // White SansSerif digits by size
+    private GlyphStrip damageGlyphs;                                         // Outlined Arial 48 digits
+    private final String[] cardSpritePaths;
+    private BufferedImage upgradeOverlay; // Built for one game area size, rebuilt when it changes
+    private final Rectangle[] upgradeButtons = new Rectangle[UPGRADE_COUNT]; // Relative to the overlay
+    private BufferedImage deathScreen;    // Built for one size and score
+    private int deathScreenRound;
+    private int deathScreenHighScore;
+    private int[] deathScreenTop;
+
+    // Pre-drawn copies of the scaled and rotated images
+    private PosedImage[] cardPoses = new PosedImage[0];
+    private final PosedImage spritePose = new PosedImage();
+    private final PosedImage tintedPose = new PosedImage();
+    private final PosedImage teethPose = new PosedImage();
+    private final PosedImage heartPose = new PosedImage();
+    private final PosedImage defPose = new PosedImage();
+    private final PosedImage framePose = new PosedImage();
+    private BufferedImage tintedSource; // Sprite the tinted copy below was made from
+    private BufferedImage tinted;
+
+    // Text that only changes with the round or enemy
+    private final Label roundLabel = new Label();
+    private final Label nameLabel = new Label();
+    private int roundLabelValue;
+
+    // Layout and quality of the frame being drawn
+    private boolean draft;
+    private DrawingArea area;
+    private int surfaceWidth;
+    private int surfaceHeight;
+
+    // Sprite preloading
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "asset-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile int spriteCellWidth = 0;  // Centre cell size of the last frame, 0 before the first
+    private volatile int spriteCellHeight = 0;
+
+    public GameRenderer(CardCatalog cards) {
+        this(cards, new ImageCache(ImageCache.DEFAULT_BUDGET_BYTES));
+    }
+
+    public GameRenderer(CardCatalog cards, ImageCache images) {
+        this.images = images;
+        cardSpritePaths = new String[cards.size()];
+        for (int id = 0; id < cardSpritePaths.length; id++) {
+            cardSpritePaths[id] = cards.getSpritePath(id);
+            images.pin(cardSpritePaths[id]);
+        }
+        for (String path : FRAME_ASSETS) {
+            images.pin(path);
+        }
+    }
+
+    /**
+     * Returns the decoded image at the path, loading it on first use.
+     * @return The image, or null if it could not be read
+     */
+    public BufferedImage getImage(String path) {
+        return images.get(path);
+    }
+
+    /**
+     * Returns the image at the path decoded at no more than the resolution
+     * needed to draw it within width x height.
+     * @return The image, or null if it could not be read
+     */
+    public BufferedImage getImage(String path, int width, int height) {
+        return images.get(path, width, height);
+    }
+
+    /**
+     * The sprite with a red tint over its opaque pixels, built once per sprite
+     * and cached alongside it.
+     */
+    private BufferedImage getTintedImage(String path, BufferedImage image) {
+        // Keyed by width too, so a sprite decoded again at a higher resolution gets a new tint
+        String key = TINT_PREFIX + image.getWidth() + ":" + path;
+        BufferedImage tinted = images.getIfPresent(key);
+        if (tinted != null) return tinted;
+
+        tinted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = tinted.createGraphics();
+        // Draw the original sprite first to preserve transparency
+        g.drawImage(image, 0, 0, null);
+        // Apply red tint only to non-transparent pixels
+        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_IN, 0.7f));
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.dispose();
+        return images.put(key, tinted);
+    }
+
+    public ImageCache getImageCache() {
+        return images;
+    }
+
+    /**
+     * Decodes the images drawn on every frame in the background, no larger
+     * than maxWidth x maxHeight, so the first frame does not wait on them.
+     */
+    public void prefetchFrameAssets(int maxWidth, int maxHeight) {
+        prefetcher.execute(() -> {
+            for (String path : FRAME_ASSETS) {
+                getImage(path, maxWidth, maxHeight);
+            }
+        });
+    }
+
+    /**
+     * Decodes an enemy sprite at the current centre cell size and builds its
+     * tinted copy in the background, so the frame that first shows it finds
+     * both in the cache.
+     */
+    public void prefetchSprite(String path) {
+        if (path == null) return;
+        prefetcher.execute(() -> {
+            BufferedImage sprite = getImage(path, spriteCellWidth, spriteCellHeight);
+            if (sprite != null) {
+                getTintedImage(path, sprite);
+            }
+        });
+    }
+
+    /**
+     * Stops the prefetch thread and drops every cached image.
+     */
+    public void dispose() {
+        prefetcher.shutdownNow();
+        clearCache();
+    }
+
+    /**
+     * Drops every cached image.
+     */
+    public void clearCache() {
+        images.clear();
+        upgradeOverlay = null;
+        deathScreen = null;
+        for (PosedImage pose : cardPoses) {
+            pose.clear();
+        }
+        spritePose.clear();
+        tintedPose.clear();
+        teethPose.clear();
+        heartPose.clear();
+        defPose.clear();
+        framePose.clear();
+        tintedSource = null;
+        tinted = null;
+    }
+
+    private Font sansFont(int size) {
+        return sansFonts.computeIfAbsent(size, s -> new Font("SansSerif", Font.BOLD, s));
+    }
+
+    private GlyphStrip counterGlyphs(int size) {
+        GlyphStrip glyphs = counterGlyphs.get(size);
+        if (glyphs == null) {
+            if (counterGlyphs.size() > MAX_GLYPH_SIZES) {
+                counterGlyphs.clear(); // Resizing the window walks through many sizes
+            }
+            glyphs = new GlyphStrip(sansFont(size), Color.WHITE, null);
+            counterGlyphs.put(size, glyphs);
+        }
+        return glyphs;
+    }
+
+    /**
+     * SRC_OVER at the alpha, rounded to 8 bits, without allocating.
+     */
+    private static AlphaComposite alphaComposite(double alpha) {
+        return ALPHAS[(int)Math.round(Math.max(0, Math.min(1, alpha)) * 255)];
+    }
+
+    /**
+     * Redraws the label with the text and font.
+     */
+    private void updateLabel(Label label, String text, Font font) {
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D measure = scratch.createGraphics();
+        setupRenderingHints(measure);
+        FontMetrics fm = measure.getFontMetrics(font);
+        measure.dispose();
+
+        label.text = text;
+        label.font = font;
+        label.width = fm.stringWidth(text);
+        label.ascent = fm.getAscent();
+        label.descent = fm.getDescent();
+        label.image = new BufferedImage(Math.max(1, label.width), Math.max(1, label.ascent + label.descent),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = label.image.createGraphics();
+        setupRenderingHints(g);
+        g.setFont(font);
+        g.setColor(Color.WHITE);
+        g.drawString(text, 0, label.ascent);
+        g.dispose();
+    }
+
+    private GlyphStrip damageGlyphs() {
+        if (damageGlyphs == null) {
+            damageGlyphs = new GlyphStrip(arialFont(48), Color.WHITE, Color.BLACK);
+        }
+        return damageGlyphs;
+    }
+
+    private Font arialFont(int size) {
+        return arialFonts.computeIfAbsent(size, s -> new Font("Arial", Font.BOLD, s));
+    }
+
+    /**
+     * The 4:3 game area centred in a surface of the given size.
+     */
+    public static DrawingArea layout(int width, int height) {
+        int targetWidth = width;
+        int targetHeight = width * 3 / 4;
+
+        if (targetHeight > height) {
+            targetHeight = height;
+            targetWidth = height * 4 / 3;
+        }
+
+        int x = (width - targetWidth) / 2;
+        int y = (height - targetHeight) / 2;
+
+        return new DrawingArea(x, y, targetWidth, targetHeight);
+    }
+
+    /**
+     * The clickable cell of a hand slot.
+     */
+    public static Rectangle cardArea(DrawingArea area, int slot) {
+        int bottomRowY = area.y + area.height * 2 / 3;
+        int cellWidth = area.width / 5;
+        int cellHeight = area.height / 3;
+        return new Rectangle(area.x + slot * cellWidth, bottomRowY, cellWidth, cellHeight);
+    }
+
+    /**
+     * Bounds of an upgrade button on the victory overlay: a 2x2 grid centred in the game area.
+     */
+    public static Rectangle upgradeButtonArea(DrawingArea area, int index) {
+        int buttonWidth = area.width / 4;
+        int buttonHeight = area.height / 8;
+        int gridWidth = buttonWidth * 2 + UPGRADE_GAP;
+        int gridHeight = buttonHeight * 2 + UPGRADE_GAP;
+        int x = area.x + (area.width - gridWidth) / 2 + (index % 2) * (buttonWidth + UPGRADE_GAP);
+        int y = area.y + (area.height - gridHeight) / 2 + (index / 2) * (buttonHeight + UPGRADE_GAP);
+        return new Rectangle(x, y, buttonWidth, buttonHeight);
+    }
+
+    /**
+     * Draws a whole frame at the snapshot's size in full quality.
+     */
+    public void render(Graphics2D g2d, FrameSnapshot s) {
+        render(g2d, s, false);
+    }
+
+    /**
+     * Draws a whole frame at the snapshot's size.
+     * @param draft Whether to draw in the cheaper draft quality
+     */
+    public void render(Graphics2D g2d, FrameSnapshot s, boolean draft) {
+        this.draft = draft;
+        if (draft) {
+            setupDraftHints(g2d);
+        } else {
+            setupRenderingHints(g2d);
+        }
+
+        if (area == null || s.width != surfaceWidth || s.height != surfaceHeight) {
+            area = layout(s.width, s.height);
+            surfaceWidth = s.width;
+            surfaceHeight = s.height;
+        }
+        DrawingArea area = this.area;
+
+        drawBackground(g2d, s, area);
+        drawContent(g2d, s, area);
+
+        // Draw death screen
+        if (s.deathScreen) {
+            drawDeathScreen(g2d, s);
+        }
+        // Draw flash effect only within the grid area
+        else if (s.flashing) {
+            g2d.setColor(s.armorBreak ? RED_FLASH : WHITE_FLASH);
+            g2d.fillRect(area.x, area.y, area.width, area.height);
+        }
+
+        if (s.upgradeChoice && !s.deathScreen) {
+            drawUpgradeOverlay(g2d, s, area);
+        }
+
+        if (!draft) {
+            drawOverlays(g2d, area);
+        }
+    }
+
+    private void setupRenderingHints(Graphics2D g2d) {
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+    }
+
+    private void setupDraftHints(Graphics2D g2d) {
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+    }
+
+    /**
+     * The image for drawing within width x height in this frame's quality.
+     */
+    private BufferedImage image(String path, int width, int height) {
+        return draft ? images.getAny(path, width, height) : images.get(path, width, height);
+    }
+
+    private void drawBackground(Graphics2D g2d, FrameSnapshot s, DrawingArea area) {
+        g2d.setColor(Color.BLACK);
+        g2d.fillRect(0, 0, s.width, s.height);
+        g2d.fillRect(area.x, area.y, area.width, area.height);
+    }
+
+    private void drawDeathScreen(Graphics2D g2d, FrameSnapshot s) {
+        BufferedImage screen = deathScreen;
+        boolean sameScores = deathScreenRound == s.round && deathScreenHighScore == s.highScore
+                && deathScreenTop == s.topRounds;
+        if (draft && screen != null && sameScores
+                && (screen.getWidth() != s.width || screen.getHeight() != s.height)) {
+            g2d.drawImage(screen, 0, 0, s.width, s.height, null); // Rebuilt once the size settles
+            return;
+        }
+        if (screen == null || screen.getWidth() != s.width || screen.getHeight() != s.height || !sameScores) {
+            screen = new BufferedImage(s.width, s.height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = screen.createGraphics();
+            setupRenderingHints(g);
+            buildDeathScreen(g, s);
+            g.dispose();
+            deathScreen = screen;
+            deathScreenRound = s.round;
+            deathScreenHighScore = s.highScore;
+            deathScreenTop = s.topRounds;
+        }
+        g2d.drawImage(screen, 0, 0, null);
+    }
+
+    /**
+     * Draws the death text, scores and the profile's best runs, once per size and score.
+     * The high score line is left out while it is not known.
+     */
+    private void buildDeathScreen(Graphics2D g2d, FrameSnapshot s) {
+        g2d.setColor(Color.BLACK);
+        g2d.fillRect(0, 0, s.width, s.height);
+        g2d.setColor(Color.WHITE);
+
+        // The best runs list sits under the scores; the whole block moves up to make room
+        FontMetrics listFm = g2d.getFontMetrics(arialFont(18));
+        int topCount = s.topRounds != null ? s.topRounds.length : 0;
+        int listHeight = topCount > 0 ? 40 + listFm.getHeight() * topCount : 0;
+
+        // Draw death text
+        g2d.setFont(arialFont(48));
+        FontMetrics fm = g2d.getFontMetrics();
+        String deathText = "YOU DIED";
+        int textWidth = fm.stringWidth(deathText);
+        int textHeight = fm.getHeight();
+        int x = (s.width - textWidth) / 2;
+        int y = Math.max(textHeight, (s.height + textHeight - listHeight) / 2);
+        g2d.drawString(deathText, x, y);
+
+        // Draw score information
+        g2d.setFont(arialFont(24));
+        FontMetrics scoreFm = g2d.getFontMetrics();
+        String scoreText = "Round Reached: " + s.round;
+        String highScoreText = s.highScore >= 0 ? "Highest Round: " + Math.max(s.round, s.highScore) : "";
+
+        int scoreWidth = scoreFm.stringWidth(scoreText);
+        int highScoreWidth = scoreFm.stringWidth(highScoreText);
+        int scoreX = (s.width - Math.max(scoreWidth, highScoreWidth)) / 2;
+        int scoreY = y + textHeight + 40;
+
+        g2d.drawString(scoreText, scoreX, scoreY);
+        g2d.drawString(highScoreText, scoreX, scoreY + 30);
+
+        // Draw the best runs
+        g2d.setFont(arialFont(18));
+        int listY = scoreY + 30 + 40;
+        for (int i = 0; i < topCount; i++) {
+            g2d.drawString((i + 1) + ".  Round " + s.topRounds[i], scoreX, listY + i * listFm.getHeight());
+        }
+    }
+
+    private void drawContent(Graphics2D g2d, FrameSnapshot s, DrawingArea area) {
+        drawGridCells(g2d, s, area);
+        drawHPCards(g2d, s, area);
+        if (!draft) {
+            drawTeethOverlay(g2d, area);
+        }
+        drawCounters(g2d, s, area);
+    }
+
+    private void drawCounters(Graphics2D g2d, FrameSnapshot s, DrawingArea area) {
+        g2d.setColor(Color.WHITE);
+
+        int cellWidth = area.width / 5;
+        int cellHeight = area.height / 3;
+        int halfCellWidth = cellWidth / 2;
+        int halfCellHeight = cellHeight / 2;
+
+        // Position for K2 (HP counter)
+        int k2X = area.x + cellWidth * 4 + halfCellWidth;
+        int k2Y = area.y + area.height * 2 / 3;
+
+        // Position for L2 (Defense counter)
+        int l2X = area.x + cellWidth * 4 + halfCellWidth;
+        int l2Y = area.y + area.height * 2 / 3 + halfCellHeight;
+
+        GlyphStrip glyphs = counterGlyphs(Math.min(halfCellWidth / 3, halfCellHeight / 2));
+
+        // Draw HP counter in K2
+        int textWidth = glyphs.width(s.hp);
+        int textHeight = glyphs.getAscent();
+        int k2CenterX = k2X + (halfCellWidth - textWidth) / 2;
+        int k2CenterY = k2Y + (halfCellHeight + textHeight) / 2 - 5;
+        glyphs.draw(g2d, s.hp, k2CenterX, k2CenterY);
+
+        // Draw Defense counter in L2
+        textWidth = glyphs.width(s.def);
+        int l2CenterX = l2X + (halfCellWidth - textWidth) / 2;
+        int l2CenterY = l2Y + (halfCellHeight + textHeight) / 2 - 5;
+        glyphs.draw(g2d, s.def, l2CenterX, l2CenterY);
+    }
+
+    private void drawGridCells(Graphics2D g2d, FrameSnapshot s, DrawingArea area) {
+        int row0Height = area.height / 6;
+        int row1Height = area.height * 3 / 6;
+        int row2Height = area.height - (row0Height + row1Height);
+
+        spriteCellWidth = area.width / 3;
+        spriteCellHeight = row1Height;
+        BufferedImage sprite = image(s.spritePath, spriteCellWidth, spriteCellHeight);
+
+        drawRow(g2d, s, sprite, area, 0, row0Height, area.y, 3, 'A');
+        drawRow(g2d, s, sprite, area, 1, row1Height, area.y + row0Height, 3, 'D');
+        drawRow(g2d, s, sprite, area, 2, row2Height, area.y + row0Height + row1Height, 5, 'G');
+    }
+
+    private void drawRow(Graphics2D g2d, FrameSnapshot s, BufferedImage sprite, DrawingArea area, int row, int rowHeight, int rowY, int cols, char startLetter) {
+        int cellWidth = area.width / cols;
+        char letter = startLetter;
+
+        for (int col = 0; col < cols; col++) {
+            int cellX = area.x + col * cellWidth;
+
+            if (row == 2 && col == cols - 1) {
+                drawSplitCell(g2d, cellX, rowY, cellWidth, rowHeight);
+            } else if (row == 1 && col == 1) {
+                drawCenterCell(g2d, s, sprite, cellX, rowY, cellWidth, rowHeight);
+            } else {
+                drawNormalCell(g2d, s, sprite, cellX, rowY, cellWidth, rowHeight, letter, row);
+            }
+            letter++;
+        }
+    }
+
+    private void drawSplitCell(Graphics2D g2d, int x, int y, int width, int height) {
+        int halfWidth = width / 2;
+        int halfHeight = height / 2;
+
+        // Draw top-left (K1)
+        g2d.setColor(Color.RED);
+        g2d.fillRect(x, y, halfWidth, halfHeight);
+        drawScaledImage(g2d, heartPose, image("sprites/heart.png", halfWidth, halfHeight), x, y, halfWidth, halfHeight);
+
+        // Draw top-right (K2)
+        g2d.setColor(Color.RED);
+        g2d.fillRect(x + halfWidth, y, halfWidth, halfHeight);
+
+        // Draw bottom-left (L1)
+        g2d.setColor(Color.BLUE);
+        g2d.fillRect(x, y + halfHeight, halfWidth, halfHeight);
+        drawScaledImage(g2d, defPose, image("sprites/def.png", halfWidth, halfHeight), x, y + halfHeight, halfWidth, halfHeight);
+
+        // Draw bottom-right (L2)
+        g2d.setColor(Color.BLUE);
+        g2d.fillRect(x + halfWidth, y + halfHeight, halfWidth, halfHeight);
+    }
+
+    private void drawCenterCell(Graphics2D g2d, FrameSnapshot s, BufferedImage sprite, int x, int y, int width, int height) {
+        g2d.setColor(Color.BLACK);
+        g2d.fillRect(x, y, width, height);
+
+        if (sprite == null) return;
+
+        int imgWidth = sprite.getWidth();
+        int imgHeight = sprite.getHeight();
+
+        double widthScale = (double)width / imgWidth;
+        double heightScale = (double)height / imgHeight;
+        double scale = Math.min(widthScale, heightScale) * 0.8 * s.centerSpriteScale;
+
+        int drawWidth = (int)(imgWidth * scale);
+        int drawHeight = (int)(imgHeight * scale);
+
+        // Calculate parallax offset
+        int centerX = x + width / 2;
+        int centerY = y + height / 2;
+        int offsetX = (int)((s.mouseX - centerX) * PARALLAX_FACTOR);
+        int offsetY = (int)((s.mouseY - centerY) * PARALLAX_FACTOR);
+
+        // Add shake offset to the drawing position
+        int drawX = x + (width - drawWidth) / 2 + offsetX + s.shakeX;
+        int drawY = y + (height - drawHeight) / 2 + offsetY + s.shakeY;
+
+        // If enemy is flashing, draw the red-tinted version of the sprite
+        if (s.enemyFlashing) {
+            if (tintedSource != sprite) {
+                tinted = getTintedImage(s.spritePath, sprite);
+                tintedSource = sprite;
+            }
+            tintedPose.draw(g2d, tinted, drawX, drawY, drawWidth, drawHeight);
+        } else {
+            spritePose.draw(g2d, sprite, drawX, drawY, drawWidth, drawHeight);
+        }
+
+        // Draw damage counter if active
+        // Drafts show it solid for the first half instead of fading it
+        if (draft ? s.damageAlpha >= 0.5f : s.damageAlpha > 0) {
+            // White text with a black outline, pre-rendered, faded out
+            GlyphStrip glyphs = damageGlyphs();
+            Composite oldDamageComposite = g2d.getComposite();
+            g2d.setComposite(alphaComposite(draft ? 1 : s.damageAlpha));
+
+            int textWidth = glyphs.widthNegative(s.lastDamageDealt);
+            int textHeight = glyphs.getHeight();
+
+            // Position text in the center of the sprite
+            int textX = drawX + (drawWidth - textWidth) / 2;
+            int textY = drawY + (drawHeight + textHeight) / 2;
+            glyphs.drawNegative(g2d, s.lastDamageDealt, textX, textY);
+
+            g2d.setComposite(oldDamageComposite);
+        }
+    }
+
+    private void drawNormalCell(Graphics2D g2d, FrameSnapshot s, BufferedImage sprite, int x, int y, int width, int height, char letter, int row) {
+        if (letter == 'K') {
+            g2d.setColor(Color.RED);
+        } else if (letter == 'L') {
+            g2d.setColor(Color.BLUE);
+        } else if (letter == 'C') {
+            g2d.setColor(Color.GREEN);
+        } else {
+            g2d.setColor(row == 0 || row == 2 ? Color.DARK_GRAY : Color.BLACK);
+        }
+        g2d.fillRect(x, y, width, height);
+        g2d.setColor(Color.WHITE);
+
+        int fontSize = Math.min(width / 10, height / 3);
+        if (letter == 'C') {
+            GlyphStrip glyphs = counterGlyphs(fontSize);
+            int textX = x + (width - glyphs.width(s.enemyHP)) / 2;
+            int textY = y + (height + glyphs.getAscent()) / 2 - glyphs.getDescent();
+            glyphs.draw(g2d, s.enemyHP, textX, textY);
+            return;
+        }
+
+        Font font = sansFont(fontSize);
+        Label label;
+        if (letter == 'B' && sprite != null) {
+            label = nameLabel;
+            if (label.image == null || label.font != font || !s.spriteName.equals(label.text)) {
+                updateLabel(label, s.spriteName, font);
+            }
+        } else if (letter == 'A') {
+            label = roundLabel;
+            if (label.image == null || label.font != font || roundLabelValue != s.round) {
+                updateLabel(label, "Round " + s.round, font);
+                roundLabelValue = s.round;
+            }
+        } else {
+            return;
+        }
+
+        int textX = x + (width - label.width) / 2;
+        int textY = y + (height + label.ascent) / 2 - label.descent;
+        g2d.drawImage(label.image, textX, textY - label.ascent, null);
+    }
+
+    private void drawScaledImage(Graphics2D g2d, PosedImage pose, BufferedImage image, int x, int y, int width, int height) {
+        if (image == null) return;
+
+        int imgWidth = image.getWidth();
+        int imgHeight = image.getHeight();
+
+        double widthScale = (double)width / imgWidth;
+        double heightScale = (double)height / imgHeight;
+        double scale = Math.min(widthScale, heightScale) * CARD_SCALE_FACTOR;
+
+        int drawWidth = (int)(imgWidth * scale);
+        int drawHeight = (int)(imgHeight * scale);
+
+        int drawX = x + (width - drawWidth) / 2;
+        int drawY = y + (height - drawHeight) / 2;
+
+        pose.draw(g2d, image, drawX, drawY, drawWidth, drawHeight);
+    }
+
+    private void drawHPCards(Graphics2D g2d, FrameSnapshot s, DrawingArea area) {
+        int bottomRowY = area.y + area.height * 2 / 3;
+        int cellWidth = area.width / 5;
+        int cellHeight = area.height / 3;
+
+        if (cardPoses.length != s.getHandSize()) {
+            cardPoses = new PosedImage[s.getHandSize()];
+            for (int i = 0; i < cardPoses.length; i++) {
+                cardPoses[i] = new PosedImage();
+            }
+        }
+        for (int col = 0; col < s.getHandSize(); col++) {
+            int cellX = area.x + col * cellWidth;
+            drawHPCard(g2d, s, cellX, bottomRowY, cellWidth, cellHeight, col);
+        }
+    }
+
+    private void drawHPCard(Graphics2D g2d, FrameSnapshot s, int x, int y, int width, int height, int col) {
+        int card = s.getHandCard(col);
+        BufferedImage cardImage = card >= 0 ? image(cardSpritePaths[card], width, height) : null;
+
+        if (cardImage == null) return;
+
+        int imgWidth = cardImage.getWidth();
+        int imgHeight = cardImage.getHeight();
+
+        double widthScale = (double)width / imgWidth;
+        double heightScale = (double)height / imgHeight;
+        double scale = Math.min(widthScale, heightScale) * 0.8;
+
+        scale *= s.getCardScale(col);
+
+        int drawWidth = (int)(imgWidth * scale);
+        int drawHeight = (int)(imgHeight * scale);
+
+        int drawX = x + (width - drawWidth) / 2;
+        int drawY = y + (height - drawHeight) / 2;
+
+        if (draft) {
+            // No translucency: a fading card shows until it is half gone
+            if (s.getCardAlpha(col) >= 0.5) {
+                cardPoses[col].draw(g2d, cardImage, drawX, drawY, drawWidth, drawHeight, s.getCardRotation(col));
+            }
+            return;
+        }
+        Composite oldComposite = g2d.getComposite();
+        g2d.setComposite(alphaComposite(s.getCardAlpha(col)));
+        cardPoses[col].draw(g2d, cardImage, drawX, drawY, drawWidth, drawHeight, s.getCardRotation(col));
+        g2d.setComposite(oldComposite);
+    }
+
+    private void drawTeethOverlay(Graphics2D g2d, DrawingArea area) {
+        int middleRowY = area.y + area.height / 6;
+        int cellWidth = area.width / 3;
+        // Drawn at the cell width with its height following
+        BufferedImage teethOverlayImage = image("sprites/TeethOverlay.png", cellWidth, Integer.MAX_VALUE);
+        if (teethOverlayImage == null) return;
+
+        int imgWidth = teethOverlayImage.getWidth();
+        int imgHeight = teethOverlayImage.getHeight();
+
+        for (int col = 0; col < 3; col++) {
+            int cellX = area.x + col * cellWidth;
+            double scale = (double)cellWidth / imgWidth;
+
+            int drawWidth = (int)(imgWidth * scale);
+            int drawHeight = (int)(imgHeight * scale);
+
+            int drawX = cellX + (cellWidth - drawWidth) / 2;
+            int drawY = middleRowY;
+
+            teethPose.draw(g2d, teethOverlayImage, drawX, drawY, drawWidth, drawHeight);
+        }
+    }
+
+    private void drawUpgradeOverlay(Graphics2D g2d, FrameSnapshot s, DrawingArea area) {
+        if (area.width <= 0 || area.height <= 0) return;
+        BufferedImage overlay = upgradeOverlay;
+        if (overlay == null || overlay.getWidth() != area.width || overlay.getHeight() != area.height) {
+            if (draft && overlay != null) {
+                g2d.drawImage(overlay, area.x, area.y, area.width, area.height, null); // Rebuilt once the size settles
+                return;
+            }
+            overlay = buildUpgradeOverlay(area.width, area.height);
+            upgradeOverlay = overlay;
+        }
+        g2d.drawImage(overlay, area.x, area.y, null);
+
+        if (s.hoveredUpgrade >= 0) {
+            Rectangle button = upgradeButtons[s.hoveredUpgrade];
+            g2d.setColor(Color.WHITE);
+            g2d.setStroke(HOVER_STROKE);
+            g2d.drawRect(area.x + button.x, area.y + button.y, button.width, button.height);
+        }
+    }
+
+    /**
+     * Draws the shade, title and the four upgrade buttons once for a game area size.
+     */
+    private BufferedImage buildUpgradeOverlay(int width, int height) {
+        BufferedImage overlay = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = overlay.createGraphics();
+        setupRenderingHints(g);
+        DrawingArea local = new DrawingArea(0, 0, width, height);
+
+        g.setColor(OVERLAY_SHADE);
+        g.fillRect(0, 0, width, height);
+
+        g.setColor(Color.WHITE);
+        g.setFont(arialFont(48));
+        FontMetrics titleFm = g.getFontMetrics();
+        String title = "Victory!";
+        Rectangle first = upgradeButtonArea(local, 0);
+        g.drawString(title, (width - titleFm.stringWidth(title)) / 2, first.y - titleFm.getDescent() - UPGRADE_GAP * 2);
+
+        g.setFont(arialFont(20));
+        FontMetrics fm = g.getFontMetrics();
+        for (int i = 0; i < UPGRADE_COUNT; i++) {
+            Rectangle button = upgradeButtonArea(local, i);
+            upgradeButtons[i] = button;
+            g.setColor(UPGRADE_COLORS[i]);
+            g.fillRect(button.x, button.y, button.width, button.height);
+            g.setColor(Color.WHITE);
+            int textX = button.x + (button.width - fm.stringWidth(UPGRADE_LABELS[i])) / 2;
+            int textY = button.y + (button.height + fm.getAscent()) / 2 - fm.getDescent();
+            g.drawString(UPGRADE_LABELS[i], textX, textY);
+        }
+        g.dispose();
+        return overlay;
+    }
+
+    private void drawOverlays(Graphics2D g2d, DrawingArea area) {
+        BufferedImage bgImage = image("bgframe.png", area.width, area.height);
+        if (bgImage != null) {
+            framePose.draw(g2d, bgImage, area.x, area.y, area.width, area.height);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * GlyphStrip pre-renders the digits and minus sign of one font, optionally
+ * with a one pixel outline, into one small image per glyph. Numbers are then
+ * drawn by copying glyph images 1:1, so drawing one costs the same no matter
+ * how many outline passes went into it, and nothing is shaped or allocated.
+ */
+public class GlyphStrip {
+    private static final String GLYPHS = "0123456789-";
+    private static final int MINUS = 10;
+    private static final int PAD = 1; // Room for the outline on every side
+
+    private final BufferedImage[] cells = new BufferedImage[GLYPHS.length()];
+    private final int[] advance = new int[GLYPHS.length()];
+    private final int ascent;
+    private final int descent;
+    private final int height;
+    private final int cellHeight;
+
+    /**
+     * @param font Font to render the glyphs in
+     * @param fill Glyph colour
+     * @param outline Outline colour, or null for none
+     */
+    public GlyphStrip(Font font, Color fill, Color outline) {
+        // Measure on a scratch image with the same hints as the frame
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D measure = scratch.createGraphics();
+        measure.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        FontMetrics fm = measure.getFontMetrics(font);
+        ascent = fm.getAscent();
+        descent = fm.getDescent();
+        height = fm.getHeight();
+        cellHeight = ascent + descent + 2 * PAD;
+        for (int i = 0; i < GLYPHS.length(); i++) {
+            advance[i] = fm.charWidth(GLYPHS.charAt(i));
+        }
+        measure.dispose();
+
+        int baseline = PAD + ascent;
+        for (int i = 0; i < GLYPHS.length(); i++) {
+            // One image per glyph: copying out of a shared strip takes the 9-argument drawImage, which allocates
+            cells[i] = new BufferedImage(advance[i] + 2 * PAD, Math.max(1, cellHeight), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = cells[i].createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setFont(font);
+            String glyph = GLYPHS.substring(i, i + 1);
+            int x = PAD;
+            if (outline != null) {
+                g.setColor(outline);
+                g.drawString(glyph, x - 1, baseline);
+                g.drawString(glyph, x + 1, baseline);
+                g.drawString(glyph, x, baseline - 1);
+                g.drawString(glyph, x, baseline + 1);
+            }
+            g.setColor(fill);
+            g.drawString(glyph, x, baseline);
+            g.dispose();
+        }
+    }
+
+    public int getAscent() { return ascent; }
+    public int getDescent() { return descent; }
+    public int getHeight() { return height; } // Includes leading, like FontMetrics.getHeight
+
+    /**
+     * Width of the value as drawn, the same as FontMetrics.stringWidth of its digits.
+     */
+    public int width(int value) {
+        return width(value < 0, Math.abs((long)value));
+    }
+
+    /**
+     * Width of "-" followed by the magnitude.
+     */
+    public int widthNegative(int magnitude) {
+        return width(true, Math.abs((long)magnitude));
+    }
+
+    /**
+     * Draws the value with its baseline at y, like Graphics.drawString.
+     */
+    public void draw(Graphics2D g, int value, int x, int y) {
+        draw(g, value < 0, Math.abs((long)value), x, y);
+    }
+
+    /**
+     * Draws "-" followed by the magnitude, e.g. a damage number.
+     */
+    public void drawNegative(Graphics2D g, int magnitude, int x, int y) {
+        draw(g, true, Math.abs((long)magnitude), x, y);
+    }
+
+    private int width(boolean minus, long magnitude) {
+        int width = minus ? advance[MINUS] : 0;
+        for (long unit = topUnit(magnitude); unit > 0; unit /= 10) {
+            width += advance[(int)(magnitude / unit % 10)];
+        }
+        return width;
+    }
+
+    private void draw(Graphics2D g, boolean minus, long magnitude, int x, int y) {
+        int top = y - ascent - PAD;
+        if (minus) {
+            x = drawGlyph(g, MINUS, x, top);
+        }
+        for (long unit = topUnit(magnitude); unit > 0; unit /= 10) {
+            x = drawGlyph(g, (int)(magnitude / unit % 10), x, top);
+        }
+    }
+
+    // Copies one glyph cell and returns the pen position after it
+    private int drawGlyph(Graphics2D g, int glyph, int x, int top) {
+        g.drawImage(cells[glyph], x - PAD, top, null);
+        return x + advance[glyph];
+    }
+
+    // Place value of the leading digit
+    private static long topUnit(long magnitude) {
+        long unit = 1;
+        while (magnitude / unit >= 10) {
+            unit *= 10;
+        }
+        return unit;
+    }
+}
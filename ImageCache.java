@@ -0,0 +1,299 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * ImageCache holds decoded images within a byte budget (width x height x bytes
+ * per pixel). Unpinned images are evicted least recently used first once the
+ * budget is exceeded; pinned images, such as the card art and frame, always stay.
+ *
+ * An evicted image is not dropped outright: the cache keeps a SoftReference to
+ * it, so if the garbage collector has not needed the memory yet, the next get
+ * takes it back without decoding the file again.
+ *
+ * Callers that know how large an image will be drawn pass that size, and the
+ * file is decoded with source subsampling at the smallest whole fraction of its
+ * resolution that still covers it. The image is decoded again only when a later
+ * request needs more pixels than the resident copy has, e.g. after the window grew.
+ *
+ * Safe to use from any thread. Files are decoded outside the lock.
+ */
+public class ImageCache {
+    public static final long DEFAULT_BUDGET_BYTES = Long.getLong("marrow.imageBudgetMB", 64) * 1024 * 1024;
+
+    private static final class Entry {
+        BufferedImage image;                // Null once evicted
+        SoftReference<BufferedImage> soft;  // Kept after eviction
+        long bytes;
+        boolean pinned;
+        boolean missing;                    // File could not be read; not retried
+        int subsample = 1;                  // Decoded at 1/subsample of the file's resolution
+    }
+
+    private final long budgetBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true); // Access order
+    private long residentBytes = 0;
+
+    // Counters
+    private long hits = 0;
+    private long softHits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public ImageCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Returns the image at the path at full resolution, decoding it on a miss.
+     * @return The image, or null if it could not be read
+     */
+    public BufferedImage get(String path) {
+        return get(path, 0, 0);
+    }
+
+    /**
+     * Returns the image at the path with at least enough pixels to be drawn
+     * within maxWidth x maxHeight, decoding it on a miss or when the resident
+     * copy is too small. A size of 0 asks for full resolution.
+     * @return The image, or null if it could not be read
+     */
+    public BufferedImage get(String path, int maxWidth, int maxHeight) {
+        if (path == null) return null;
+        synchronized (this) {
+            Entry entry = entries.get(path);
+            if (entry != null && entry.missing) return null;
+            BufferedImage image = lookup(entry, maxWidth, maxHeight);
+            if (image != null) return image;
+        }
+        return store(path, decode(path, maxWidth, maxHeight));
+    }
+
+    /**
+     * Returns the image at the path at whatever resolution is cached, and only
+     * decodes it, for the draw size, if no copy is cached. Used for draft
+     * frames, where a copy that is too small beats a decode.
+     * @return The image, or null if it could not be read
+     */
+    public BufferedImage getAny(String path, int maxWidth, int maxHeight) {
+        if (path == null) return null;
+        synchronized (this) {
+            Entry entry = entries.get(path);
+            if (entry != null) {
+                if (entry.missing) return null;
+                BufferedImage image = lookup(entry, 1, 1); // Every copy covers a 1x1 draw
+                if (image != null) return image;
+            }
+        }
+        return get(path, maxWidth, maxHeight);
+    }
+
+    /**
+     * Returns an image added with put, or null if it is not cached (any more).
+     */
+    public synchronized BufferedImage getIfPresent(String key) {
+        return lookup(entries.get(key), 0, 0);
+    }
+
+    // Resident or soft-reachable image of an entry that covers the draw size; counts a miss otherwise
+    private BufferedImage lookup(Entry entry, int maxWidth, int maxHeight) {
+        if (entry != null && !entry.missing) {
+            BufferedImage image = entry.image;
+            boolean resident = image != null;
+            if (!resident && entry.soft != null) {
+                image = entry.soft.get();
+            }
+            if (image != null && covers(entry, image, maxWidth, maxHeight)) {
+                if (resident) {
+                    hits++;
+                } else {
+                    softHits++;
+                    entry.image = image;
+                    residentBytes += entry.bytes;
+                    evictToBudget();
+                }
+                return image;
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Adds an image built by the caller, such as a tinted or scaled copy.
+     * A null image marks the path as missing.
+     * @return The cached image, which is an earlier one if another thread got there first
+     */
+    public synchronized BufferedImage put(String key, BufferedImage image) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.image != null) {
+            return entry.image;
+        }
+        return store(key, image == null ? null : new Decoded(image, 1));
+    }
+
+    /**
+     * Keeps the image at the path resident regardless of the budget once it is
+     * loaded. Nothing is decoded until the first get, which knows the draw size.
+     */
+    public synchronized void pin(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(path, entry);
+        }
+        entry.pinned = true;
+    }
+
+    // Stores a decoded image, replacing a resident copy only if the new one has more pixels
+    private synchronized BufferedImage store(String key, Decoded decoded) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key, entry);
+        }
+        if (decoded == null) {
+            if (entry.image != null) return entry.image;
+            entry.missing = true;
+            entry.soft = null;
+            return null;
+        }
+        if (entry.image != null) {
+            if (entry.subsample <= decoded.subsample) return entry.image;
+            residentBytes -= entry.bytes;
+        }
+        entry.missing = false;
+        entry.image = decoded.image;
+        entry.subsample = decoded.subsample;
+        entry.soft = new SoftReference<>(decoded.image);
+        entry.bytes = sizeOf(decoded.image);
+        residentBytes += entry.bytes;
+        evictToBudget();
+        return decoded.image;
+    }
+
+    // Whether an image decoded at the entry's subsampling is large enough for the draw size
+    private static boolean covers(Entry entry, BufferedImage image, int maxWidth, int maxHeight) {
+        if (entry.subsample == 1) return true;
+        if (maxWidth <= 0 || maxHeight <= 0) return false;
+        return image.getWidth() >= maxWidth || image.getHeight() >= maxHeight;
+    }
+
+    /**
+     * Drops every image, pinned or not, and resets the counters.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        residentBytes = 0;
+        hits = softHits = misses = evictions = 0;
+    }
+
+    public synchronized long getResidentBytes() { return residentBytes; }
+    public long getBudgetBytes() { return budgetBytes; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getSoftHits() { return softHits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+
+    /**
+     * One-line summary of the counters and memory use.
+     */
+    public synchronized String getStats() {
+        return String.format("%d hits, %d soft hits, %d misses, %d evictions, %.1f / %.1f MB resident",
+                hits, softHits, misses, evictions, residentBytes / 1048576.0, budgetBytes / 1048576.0);
+    }
+
+    private static final class Decoded {
+        final BufferedImage image;
+        final int subsample;
+
+        Decoded(BufferedImage image, int subsample) {
+            this.image = image;
+            this.subsample = subsample;
+        }
+    }
+
+    /**
+     * Reads an image file, keeping every subsample-th pixel in each direction
+     * where that still leaves at least maxWidth or maxHeight pixels, and
+     * records an ImageLoad event for it.
+     * @return The image, or null if it could not be read
+     */
+    private static Decoded decode(String path, int maxWidth, int maxHeight) {
+        GameEvents.ImageLoad event = new GameEvents.ImageLoad();
+        event.begin();
+        Decoded decoded = read(path, maxWidth, maxHeight);
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.loaded = decoded != null;
+            if (decoded != null) {
+                event.width = decoded.image.getWidth();
+                event.height = decoded.image.getHeight();
+                event.subsample = decoded.subsample;
+                event.bytes = sizeOf(decoded.image);
+            }
+            event.commit();
+        }
+        return decoded;
+    }
+
+    private static Decoded read(String path, int maxWidth, int maxHeight) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new File(path))) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                System.out.println("No image reader for " + path);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int subsample = 1;
+                if (maxWidth > 0 && maxHeight > 0) {
+                    // Largest factor that still covers the draw size on the axis that limits the fit
+                    subsample = Math.max(1, Math.max(reader.getWidth(0) / maxWidth, reader.getHeight(0) / maxHeight));
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsample, subsample, 0, 0);
+                return new Decoded(reader.read(0, param), subsample);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Evicts the least recently used unpinned images until resident bytes fit the budget
+    private void evictToBudget() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (residentBytes > budgetBytes && it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.image == null) {
+                // Forget entries whose soft reference the collector has cleared
+                if (!entry.missing && !entry.pinned && (entry.soft == null || entry.soft.get() == null)) {
+                    it.remove();
+                }
+                continue;
+            }
+            if (entry.pinned) continue;
+            entry.image = null;
+            residentBytes -= entry.bytes;
+            evictions++;
+        }
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        int bytesPerPixel = Math.max(1, (image.getColorModel().getPixelSize() + 7) / 8);
+        return (long)image.getWidth() * image.getHeight() * bytesPerPixel;
+    }
+}
@@ -0,0 +1,136 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * LatencyProbe measures how long a card click takes to reach the screen, split
+ * into stages, and reports percentiles per stage. It is off unless the game is
+ * started with -Dmarrow.latency=true; when off every call returns immediately.
+ *
+ * Each click is identified by the nanoTime at which its MouseEvent reached the
+ * listener. Stages measured from that moment are recorded once per click; the
+ * per-frame costs (render, blit) are recorded for every frame.
+ */
+public class LatencyProbe {
+    public static final String REPORT_FILE = "latency.csv";
+
+    // Stages
+    public static final int STAGE_QUEUE = 0;        // Event timestamp to listener (event queue backlog)
+    public static final int STAGE_LOGIC = 1;        // handleCardClick
+    public static final int STAGE_RENDERED = 2;     // Click to first frame with the result drawn
+    public static final int STAGE_PHOTON = 3;       // Click to that frame being blitted on the EDT
+    public static final int STAGE_FLASH = 4;        // Click to the hit flash starting
+    public static final int STAGE_ENEMY_ATTACK = 5; // Click to the delayed enemy attack resolving
+    public static final int STAGE_RENDER_COST = 6;  // Drawing one frame on the render thread
+    public static final int STAGE_BLIT_COST = 7;    // Copying one frame in paintComponent
+    private static final String[] STAGE_NAMES = {
+        "queue", "logic", "rendered", "photon", "flash", "enemy_attack", "render_cost", "blit_cost"
+    };
+
+    private static final int MAX_SAMPLES = 4096; // Per stage; older samples are overwritten
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private static LatencyProbe instance;
+
+    private final boolean enabled;
+    private final long[][] samples = new long[STAGE_NAMES.length][MAX_SAMPLES];
+    private final long[] counts = new long[STAGE_NAMES.length];
+    private volatile long lastClickNanos;
+
+    private LatencyProbe(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::report, "latency-report"));
+        }
+    }
+
+    /**
+     * Returns the shared probe, enabled by -Dmarrow.latency=true.
+     */
+    public static synchronized LatencyProbe getInstance() {
+        if (instance == null) {
+            instance = new LatencyProbe(Boolean.getBoolean("marrow.latency"));
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a click and records how long its event waited in the queue.
+     * @param eventWhen The MouseEvent's getWhen timestamp
+     * @return The click's start time, or 0 when the probe is off
+     */
+    public long beginClick(long eventWhen) {
+        if (!enabled) return 0;
+        long now = System.nanoTime();
+        record(STAGE_QUEUE, Math.max(0, System.currentTimeMillis() - eventWhen) * 1_000_000L);
+        lastClickNanos = now;
+        return now;
+    }
+
+    /**
+     * Start time of the most recent click, or 0 when the probe is off or nothing was clicked.
+     */
+    public long getLastClickNanos() {
+        return lastClickNanos;
+    }
+
+    /**
+     * Records the time from a start stamp to now. Does nothing for a zero stamp.
+     */
+    public void recordSince(int stage, long startNanos) {
+        if (!enabled || startNanos == 0) return;
+        record(stage, System.nanoTime() - startNanos);
+    }
+
+    public synchronized void record(int stage, long nanos) {
+        if (!enabled) return;
+        samples[stage][(int)(counts[stage] % MAX_SAMPLES)] = nanos;
+        counts[stage]++;
+    }
+
+    /**
+     * Prints the percentiles of every stage and writes them to latency.csv.
+     */
+    public void report() {
+        if (!enabled) return;
+        long[][] sorted = new long[STAGE_NAMES.length][];
+        long[] total = new long[STAGE_NAMES.length];
+        synchronized (this) {
+            for (int stage = 0; stage < STAGE_NAMES.length; stage++) {
+                total[stage] = counts[stage];
+                sorted[stage] = Arrays.copyOf(samples[stage], (int)Math.min(counts[stage], MAX_SAMPLES));
+                Arrays.sort(sorted[stage]);
+            }
+        }
+
+        System.out.println("=== Input Latency (ms) ===");
+        System.out.printf("%-14s %8s %8s %8s %8s %8s%n", "stage", "count", "p50", "p90", "p99", "max");
+        try (PrintWriter out = new PrintWriter(new FileWriter(REPORT_FILE))) {
+            out.println("stage,count,p50_ms,p90_ms,p99_ms,max_ms");
+            for (int stage = 0; stage < STAGE_NAMES.length; stage++) {
+                long[] values = sorted[stage];
+                if (values.length == 0) continue;
+                double[] ms = new double[PERCENTILES.length + 1];
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    ms[i] = percentile(values, PERCENTILES[i]) / 1e6;
+                }
+                ms[PERCENTILES.length] = values[values.length - 1] / 1e6;
+                System.out.printf("%-14s %8d %8.2f %8.2f %8.2f %8.2f%n", STAGE_NAMES[stage], total[stage], ms[0], ms[1], ms[2], ms[3]);
+                out.printf("%s,%d,%.3f,%.3f,%.3f,%.3f%n", STAGE_NAMES[stage], total[stage], ms[0], ms[1], ms[2], ms[3]);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static long percentile(long[] sorted, double p) {
+        int rank = (int)Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
@@ -0,0 +1,518 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Leaderboard keeps finished runs for every player profile.
+ *
+ * Runs are appended to a binary record log on a background thread and indexed
+ * in memory by a skip list per profile, ordered best first. Queries never touch
+ * disk: the best round is the head of the list and the top N is a walk of its
+ * first N nodes. The log is read in on the background thread at startup, so
+ * queries made before loading finishes see the runs read so far. When a profile
+ * grows past its retention limit the log is compacted down to its best entries.
+ *
+ * The log is read in fixed-size chunks. A record that fails its checksum is
+ * skipped and reading resumes at the next record that passes, so one damaged
+ * record costs only itself; the log is then rewritten without it.
+ *
+ * Log layout: magic (int), version (short), then records of marker (short),
+ * body length (short), body, CRC32 of the body (int). Body: round (int),
+ * timestamp (long), upgrade levels (4 shorts), profile length (byte), profile
+ * (UTF-8). Version 1 logs have bare bodies; they are read with sanity checks
+ * in place of the checksum and rewritten as version 2.
+ */
+public class Leaderboard {
+    public static final String LOG_FILE = "leaderboard.log";
+    public static final String DEFAULT_PROFILE = "default";
+    private static final String LEGACY_HIGH_SCORE_FILE = "highscore.txt";
+
+    private static final int MAGIC = 0x4D4C4244; // "MLBD"
+    private static final short VERSION = 2;
+    private static final short MIN_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 2;
+    private static final int RECORD_FIXED_SIZE = 4 + 8 + 4 * 2 + 1; // Body without the profile
+    private static final short RECORD_MARKER = 0x4C52;              // "LR"
+    private static final int RECORD_FRAMING_SIZE = 2 + 2 + 4;       // Marker, body length, CRC
+    private static final int MAX_BODY_SIZE = RECORD_FIXED_SIZE + 255;
+    private static final int UPGRADE_TYPES = 4;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final long MIN_TIMESTAMP = 946_684_800_000L; // 2000-01-01; earlier is a damaged record
+
+    // Record parse results other than a record's length
+    private static final int INCOMPLETE = 0; // Needs more bytes than the chunk holds
+    private static final int CORRUPT = -1;   // Not a record at this position
+
+    // Retention: compact once a profile passes the limit by the slack amount
+    private static final int MAX_ENTRIES_PER_PROFILE = 500_000;
+    private static final int COMPACTION_SLACK = 50_000;
+
+    private static Leaderboard instance;
+
+    /**
+     * A single finished run. Ordered best first: highest round, then earliest.
+     */
+    public static final class Entry implements Comparable<Entry> {
+        public final String profile;
+        public final int round;
+        public final long timestamp;
+        private final short[] upgradeLevels;
+        private final long sequence; // Keeps equal runs distinct in the index
+
+        Entry(String profile, int round, long timestamp, short[] upgradeLevels, long sequence) {
+            this.profile = profile;
+            this.round = round;
+            this.timestamp = timestamp;
+            this.upgradeLevels = upgradeLevels;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Upgrade level reached in the run, indexed like GameLogic.applyUpgrade.
+         */
+        public int getUpgradeLevel(int upgradeType) {
+            return upgradeLevels[upgradeType];
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (round != other.round) return Integer.compare(other.round, round);
+            if (timestamp != other.timestamp) return Long.compare(timestamp, other.timestamp);
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * One profile's index. The skip list's size() is linear, so the count is kept separately.
+     */
+    private static final class Board {
+        final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+        final AtomicInteger size = new AtomicInteger();
+    }
+
+    private final ConcurrentHashMap<String, Board> boards = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Path logPath;
+    private volatile boolean loaded = false;
+
+    // All file access happens on this thread, in submission order
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "leaderboard-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private FileChannel log;
+
+    private Leaderboard(Path logPath) {
+        this.logPath = logPath;
+        io.execute(this::load);
+    }
+
+    /**
+     * Returns the shared leaderboard, starting to load the log in the background on first use.
+     */
+    public static synchronized Leaderboard getInstance() {
+        if (instance == null) {
+            instance = new Leaderboard(Paths.get(LOG_FILE));
+        }
+        return instance;
+    }
+
+    /**
+     * The profile runs are recorded under, set with -Dmarrow.profile=name.
+     */
+    public static String currentProfile() {
+        return System.getProperty("marrow.profile", DEFAULT_PROFILE);
+    }
+
+    // Queries; safe from any thread and never block on disk
+
+    /**
+     * Highest round reached by the profile, or 0 if it has no runs.
+     */
+    public int getHighestRound(String profile) {
+        Board board = boards.get(profile);
+        if (board == null) return 0;
+        Iterator<Entry> it = board.entries.iterator();
+        return it.hasNext() ? it.next().round : 0;
+    }
+
+    /**
+     * The profile's best runs, best first.
+     */
+    public List<Entry> getTop(String profile, int count) {
+        List<Entry> top = new ArrayList<>(count);
+        Board board = boards.get(profile);
+        if (board == null) return top;
+
+        Iterator<Entry> it = board.entries.iterator();
+        while (top.size() < count && it.hasNext()) {
+            top.add(it.next());
+        }
+        return top;
+    }
+
+    /**
+     * Looks up the profile's best rounds, best first, on the leaderboard
+     * thread and passes them to the callback there. The lookup follows any
+     * runs recorded before the call and the loading of the log, so callers on
+     * the EDT get a complete list without waiting on it.
+     */
+    public void fetchTopRounds(String profile, int count, Consumer<int[]> callback) {
+        io.execute(() -> {
+            List<Entry> top = getTop(profile, count);
+            int[] rounds = new int[top.size()];
+            for (int i = 0; i < rounds.length; i++) {
+                rounds[i] = top.get(i).round;
+            }
+            callback.accept(rounds);
+        });
+    }
+
+    public int getEntryCount(String profile) {
+        Board board = boards.get(profile);
+        return board != null ? board.size.get() : 0;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Records a finished run. The index is updated immediately; the log write
+     * happens on the background thread.
+     * @param upgradeLevels Upgrade levels indexed like GameLogic.applyUpgrade
+     */
+    public void record(String profile, int round, int[] upgradeLevels) {
+        short[] levels = new short[UPGRADE_TYPES];
+        for (int i = 0; i < UPGRADE_TYPES && i < upgradeLevels.length; i++) {
+            levels[i] = (short)Math.min(upgradeLevels[i], Short.MAX_VALUE);
+        }
+        Entry entry = new Entry(profile, round, System.currentTimeMillis(), levels, sequence.incrementAndGet());
+        add(entry);
+        io.execute(() -> {
+            append(entry);
+            compactIfNeeded();
+        });
+    }
+
+    private void add(Entry entry) {
+        Board board = boards.computeIfAbsent(entry.profile, p -> new Board());
+        if (board.entries.add(entry)) {
+            board.size.incrementAndGet();
+        }
+    }
+
+    // Background thread
+
+    private void load() {
+        try {
+            if (!Files.exists(logPath)) {
+                createLog();
+                importLegacyHighScore();
+            } else if (readLog()) {
+                rewriteLog();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        loaded = true;
+        compactIfNeeded();
+    }
+
+    private void createLog() throws IOException {
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.flip();
+        log.write(header, 0);
+        log.position(HEADER_SIZE);
+    }
+
+    /**
+     * Reads every intact record into the index, a chunk at a time. Damaged
+     * records are skipped; a torn record at the end, left by a crash
+     * mid-write, is cut off.
+     * @return Whether the log should be rewritten: it is version 1 or had damaged records
+     */
+    private boolean readLog() throws IOException {
+        log = FileChannel.open(logPath, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        long size = log.size();
+        if (size < HEADER_SIZE) {
+            log.close();
+            Files.delete(logPath);
+            createLog();
+            return false;
+        }
+
+        // Plain reads rather than a mapping, so the file can be truncated afterwards on every platform
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        chunk.limit(HEADER_SIZE);
+        readFully(chunk, 0);
+        chunk.flip();
+        short version = chunk.remaining() == HEADER_SIZE && chunk.getInt() == MAGIC ? chunk.getShort() : -1;
+        if (version < MIN_VERSION || version > VERSION) {
+            throw new IOException("Unrecognised leaderboard log: " + logPath);
+        }
+
+        CRC32 crc = new CRC32();
+        long chunkStart = HEADER_SIZE; // File offset of the chunk's first byte
+        long valid = HEADER_SIZE;      // End of the last intact record
+        long skipped = 0;              // Damaged bytes before it
+        long skipping = 0;             // Damaged bytes since it
+        chunk.clear();
+        boolean end = false;
+        while (!end) {
+            end = readFully(chunk, chunkStart + chunk.position());
+            chunk.flip();
+            while (true) {
+                int length = version == 1 ? readRecordV1(chunk) : readRecord(chunk, crc);
+                if (length == INCOMPLETE) break;
+                if (length == CORRUPT) {
+                    chunk.position(chunk.position() + 1); // Resynchronise a byte further on
+                    skipping++;
+                    continue;
+                }
+                valid = chunkStart + chunk.position();
+                skipped += skipping;
+                skipping = 0;
+            }
+            chunkStart += chunk.position();
+            chunk.compact();
+        }
+
+        if (skipped > 0) {
+            System.out.println("Leaderboard: skipped " + skipped + " bytes of damaged records");
+        }
+        if (valid < size) {
+            System.out.println("Leaderboard: dropping " + (size - valid) + " bytes of incomplete record");
+            log.truncate(valid);
+        }
+        log.position(valid);
+        return version != VERSION || skipped > 0;
+    }
+
+    /**
+     * Fills the buffer from the log starting at the offset.
+     * @return Whether the end of the log was reached
+     */
+    private boolean readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = log.read(buffer, offset);
+            if (read < 0) return true;
+            offset += read;
+        }
+        return false;
+    }
+
+    /**
+     * Reads a framed record at the buffer's position into the index and moves past it.
+     * @return The record's length, INCOMPLETE or CORRUPT
+     */
+    private int readRecord(ByteBuffer buffer, CRC32 crc) {
+        int start = buffer.position();
+        if (buffer.remaining() < 4) return INCOMPLETE;
+        if (buffer.getShort(start) != RECORD_MARKER) return CORRUPT;
+        int bodyLength = buffer.getShort(start + 2) & 0xFFFF;
+        if (bodyLength < RECORD_FIXED_SIZE || bodyLength > MAX_BODY_SIZE) return CORRUPT;
+        int length = RECORD_FRAMING_SIZE + bodyLength;
+        if (buffer.remaining() < length) return INCOMPLETE;
+
+        ByteBuffer body = buffer.duplicate();
+        body.position(start + 4).limit(start + 4 + bodyLength);
+        crc.reset();
+        crc.update(body);
+        if ((int)crc.getValue() != buffer.getInt(start + 4 + bodyLength)) return CORRUPT;
+
+        buffer.position(start + 4);
+        Entry entry = readBody(buffer);
+        if (entry == null || buffer.position() != start + 4 + bodyLength) {
+            buffer.position(start);
+            return CORRUPT;
+        }
+        buffer.position(start + length);
+        add(entry);
+        return length;
+    }
+
+    /**
+     * Reads a version 1 record at the buffer's position, which has no
+     * checksum: values no run could have mark it as damaged.
+     * @return The record's length, INCOMPLETE or CORRUPT
+     */
+    private int readRecordV1(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < RECORD_FIXED_SIZE) return INCOMPLETE;
+        int profileLength = buffer.get(start + RECORD_FIXED_SIZE - 1) & 0xFF;
+        if (buffer.remaining() < RECORD_FIXED_SIZE + profileLength) return INCOMPLETE;
+
+        Entry entry = readBody(buffer);
+        if (entry == null) {
+            buffer.position(start);
+            return CORRUPT;
+        }
+        add(entry);
+        return RECORD_FIXED_SIZE + profileLength;
+    }
+
+    /**
+     * Reads a record body, whose bytes must all be in the buffer.
+     * @return The entry, or null if its values cannot be a run's
+     */
+    private Entry readBody(ByteBuffer buffer) {
+        int round = buffer.getInt();
+        long timestamp = buffer.getLong();
+        short[] levels = new short[UPGRADE_TYPES];
+        boolean plausible = round >= 0 && timestamp >= MIN_TIMESTAMP
+                && timestamp <= System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+        for (int i = 0; i < UPGRADE_TYPES; i++) {
+            levels[i] = buffer.getShort();
+            plausible &= levels[i] >= 0;
+        }
+        int profileLength = buffer.get() & 0xFF;
+        byte[] profileBytes = new byte[profileLength];
+        buffer.get(profileBytes);
+        if (!plausible || profileLength == 0) return null;
+        try {
+            String profile = StandardCharsets.UTF_8.newDecoder()
+                    .decode(ByteBuffer.wrap(profileBytes)).toString();
+            for (int i = 0; i < profile.length(); i++) {
+                if (Character.isISOControl(profile.charAt(i))) return null;
+            }
+            return new Entry(profile, round, timestamp, levels, sequence.incrementAndGet());
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Seeds the default profile with the score from the old single-value high score file.
+     */
+    private void importLegacyHighScore() {
+        File file = new File(LEGACY_HIGH_SCORE_FILE);
+        if (!file.exists()) return;
+        try (Scanner scanner = new Scanner(file)) {
+            if (scanner.hasNextInt()) {
+                Entry entry = new Entry(DEFAULT_PROFILE, scanner.nextInt(), file.lastModified(),
+                                        new short[UPGRADE_TYPES], sequence.incrementAndGet());
+                add(entry);
+                append(entry);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void append(Entry entry) {
+        if (log == null) return;
+        try {
+            ByteBuffer record = encode(entry);
+            while (record.hasRemaining()) {
+                log.write(record);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static ByteBuffer encode(Entry entry) {
+        byte[] profile = entry.profile.getBytes(StandardCharsets.UTF_8);
+        int profileLength = Math.min(profile.length, 255);
+        int bodyLength = RECORD_FIXED_SIZE + profileLength;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_FRAMING_SIZE + bodyLength);
+        record.putShort(RECORD_MARKER);
+        record.putShort((short)bodyLength);
+        record.putInt(entry.round);
+        record.putLong(entry.timestamp);
+        for (int i = 0; i < UPGRADE_TYPES; i++) {
+            record.putShort(entry.upgradeLevels[i]);
+        }
+        record.put((byte)profileLength);
+        record.put(profile, 0, profileLength);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, bodyLength);
+        record.putInt((int)crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Drops each oversized profile's worst runs and rewrites the log with what is left.
+     */
+    private void compactIfNeeded() {
+        boolean needed = false;
+        for (Board board : boards.values()) {
+            if (board.size.get() > MAX_ENTRIES_PER_PROFILE + COMPACTION_SLACK) {
+                needed = true;
+                break;
+            }
+        }
+        if (!needed || log == null) return;
+
+        for (Board board : boards.values()) {
+            while (board.size.get() > MAX_ENTRIES_PER_PROFILE && board.entries.pollLast() != null) {
+                board.size.decrementAndGet();
+            }
+        }
+        rewriteLog();
+        System.out.println("Leaderboard compacted");
+    }
+
+    /**
+     * Replaces the log with the runs in the index, in the current version.
+     */
+    private void rewriteLog() {
+        Path temp = Paths.get(logPath + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.flip();
+            out.write(header);
+            for (Board board : boards.values()) {
+                for (Entry entry : board.entries) {
+                    ByteBuffer record = encode(entry);
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                }
+            }
+            out.force(true);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            log.close();
+            Files.move(temp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log = FileChannel.open(logPath, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            log.position(log.size());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
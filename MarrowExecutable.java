@@ -8,19 +8,25 @@ public class MarrowExecutable extends JFrame {
     private static final int INIT_HEIGHT = 810;
     private static final double WINDOW_SCALE_FACTOR = 0.5; // 50% of screen size
     private static final double MAX_HEIGHT_RATIO = 0.7;    // 70% of screen height
+    private static final int TRAINING_GAME_MILLIS = 2000;  // How long a training run shows the game
 
     private CardLayout cardLayout;
     private JPanel mainPanel;
     private MenuPanel menuPanel;
-    private GamePanel gamePanel;
-    private GameLogic gameLogic;
+    private GamePanel gamePanel;             // Built in the background while the menu is up, or on first start
+    private TournamentPanel tournamentPanel; // Created the first time the tournament is opened
+    private GameLogic gameLogic;             // Guarded by this until loaded
+    private boolean menuShown = false;
+    private final boolean training = Boolean.getBoolean("marrow.startupTraining");
 
-    // Main constructor and window setup
+    // Main constructor and window setup. Only the menu is built here; the game loads behind it
     public MarrowExecutable() {
-        gameLogic = GameLogic.getInstance();
+        StartupTimer.mark("window constructor");
         setupWindow();
         setupContent();
         setupWindowStateListener();
+        StartupTimer.mark("menu built");
+        preloadGame();
     }
 
     private void setupWindow() {
@@ -34,35 +40,104 @@ public class MarrowExecutable extends JFrame {
         mainPanel = new JPanel(cardLayout);
         
         menuPanel = new MenuPanel(this);
-        gamePanel = new GamePanel();
-        
         mainPanel.add(menuPanel, "MENU");
-        mainPanel.add(gamePanel, "GAME");
         
         setContentPane(mainPanel);
         setExtendedState(JFrame.MAXIMIZED_BOTH);
         setVisible(true);
     }
 
+    /**
+     * Loads the game state on a background thread, then builds the game panel
+     * on the EDT, so neither delays the menu.
+     */
+    private void preloadGame() {
+        Thread loader = new Thread(() -> {
+            StartupTimer.markJvmStart();
+            loadGameLogic();
+            SwingUtilities.invokeLater(this::getGamePanel);
+        }, "game-preload");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // First use of the singleton reads the data files and the saved run
+    private synchronized GameLogic loadGameLogic() {
+        if (gameLogic == null) {
+            gameLogic = GameLogic.getInstance();
+            gameLogic.setSpectatorFeed(SpectatorFeed.fromSystemProperty());
+            StartupTimer.mark("game state loaded");
+        }
+        return gameLogic;
+    }
+
+    // Builds the game panel on first use; on the EDT
+    private GamePanel getGamePanel() {
+        if (gamePanel == null) {
+            loadGameLogic(); // Waits for the loader if Start was clicked before it finished
+            gamePanel = new GamePanel();
+            mainPanel.add(gamePanel, "GAME");
+            gamePanel.preloadAssets();
+            StartupTimer.mark("game panel built");
+            if (training && menuShown) {
+                train();
+            }
+        }
+        return gamePanel;
+    }
+
+    /**
+     * Called by the menu when it is first painted, which ends startup.
+     */
+    public void menuShown() {
+        StartupTimer.mark("menu painted");
+        menuShown = true;
+        if (training && gamePanel != null) {
+            train();
+        }
+    }
+
+    // A class data sharing training run: shows the game for a moment, then exits so the JVM writes the archive
+    private void train() {
+        startGame();
+        Timer exit = new Timer(TRAINING_GAME_MILLIS, e -> System.exit(0));
+        exit.setRepeats(false);
+        exit.start();
+    }
+
     public void startGame() {
+        getGamePanel();
         cardLayout.show(mainPanel, "GAME");
+        gamePanel.start();
         gamePanel.initializeCenterSpriteAnimation();
         gamePanel.requestFocusInWindow();
     }
 
     public void returnToMenu() {
+        // Stop the game panel while the menu is up
+        gamePanel.pause();
         // Reset game state completely
         gameLogic.completeReset();
-        // Reset the game panel
-        gamePanel = new GamePanel();
-        mainPanel.removeAll();
-        mainPanel.add(menuPanel, "MENU");
-        mainPanel.add(gamePanel, "GAME");
+        // Reuse the same panel for the next run
+        gamePanel.reset();
         // Show menu
         cardLayout.show(mainPanel, "MENU");
-        // Force layout update
-        mainPanel.revalidate();
-        mainPanel.repaint();
+    }
+
+    public void startTournament() {
+        if (tournamentPanel == null) {
+            tournamentPanel = new TournamentPanel(this, Tournament.boardsFromSystemProperty());
+            mainPanel.add(tournamentPanel, "TOURNAMENT");
+        }
+        cardLayout.show(mainPanel, "TOURNAMENT");
+        tournamentPanel.start();
+        tournamentPanel.requestFocusInWindow();
+    }
+
+    public void leaveTournament() {
+        // The boards wait where they are until the tournament is opened again
+        tournamentPanel.pause();
+        cardLayout.show(mainPanel, "MENU");
     }
 
     private void setupWindowStateListener() {
@@ -95,6 +170,7 @@ public class MarrowExecutable extends JFrame {
     }
 
     public static void main(String[] args) {
+        StartupTimer.mark("main");
         SwingUtilities.invokeLater(MarrowExecutable::new);
     }
 }
@@ -4,6 +4,7 @@ import java.awt.event.*;
 
 public class MenuPanel extends JPanel {
     private MarrowExecutable parent;
+    private boolean painted = false;
 
     public MenuPanel(MarrowExecutable parent) {
         this.parent = parent;
@@ -12,30 +13,42 @@ public class MenuPanel extends JPanel {
     }
 
     private void setupButton() {
-        JButton startButton = new JButton("Start Game");
-        startButton.setFont(new Font("Arial", Font.BOLD, 24));
-        startButton.setPreferredSize(new Dimension(200, 60));
-        startButton.setFocusPainted(false);
-        startButton.setBackground(Color.WHITE);
-        startButton.setForeground(Color.BLACK);
+        GridBagConstraints constraints = new GridBagConstraints();
+        constraints.gridx = 0;
+        constraints.insets = new Insets(10, 0, 10, 0);
+        add(createButton("Start Game", e -> parent.startGame()), constraints);
+        add(createButton("Tournament", e -> parent.startTournament()), constraints);
+    }
+
+    private JButton createButton(String text, ActionListener action) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 24));
+        button.setPreferredSize(new Dimension(200, 60));
+        button.setFocusPainted(false);
+        button.setBackground(Color.WHITE);
+        button.setForeground(Color.BLACK);
         
         // Add hover effect
-        startButton.addMouseListener(new MouseAdapter() {
+        button.addMouseListener(new MouseAdapter() {
             public void mouseEntered(MouseEvent e) {
-                startButton.setBackground(Color.LIGHT_GRAY);
+                button.setBackground(Color.LIGHT_GRAY);
             }
             public void mouseExited(MouseEvent e) {
-                startButton.setBackground(Color.WHITE);
+                button.setBackground(Color.WHITE);
             }
         });
 
-        startButton.addActionListener(e -> parent.startGame());
-        add(startButton);
+        button.addActionListener(action);
+        return button;
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         setBackground(Color.BLACK);
+        if (!painted) {
+            painted = true;
+            parent.menuShown();
+        }
     }
 } 
\ No newline at end of file
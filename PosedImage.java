@@ -0,0 +1,90 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * PosedImage draws one image scaled to a size and rotated about its centre,
+ * like drawImage(image, x, y, width, height) under a rotate. Java2D allocates
+ * transforms on every scaled or rotated draw, so once the same image, size and
+ * angle are asked for twice in a row, the image is drawn once into a copy at
+ * exactly that pose and later frames only copy it 1:1, wherever it is placed.
+ * While the pose keeps changing, e.g. during a hover animation, it is drawn
+ * directly as before. No copy is made under nearest-neighbour interpolation
+ * (draft frames), so a rough copy never outlives the draft.
+ */
+public class PosedImage {
+    private BufferedImage source; // Pose of the last draw
+    private int width;
+    private int height;
+    private double rotation;
+
+    private BufferedImage posed;  // Copy at that pose, null until the pose repeats
+    private int offsetX;          // Position of the copy relative to the draw position
+    private int offsetY;
+
+    /**
+     * Draws the image scaled to width x height at x, y.
+     */
+    public void draw(Graphics2D g, BufferedImage image, int x, int y, int width, int height) {
+        draw(g, image, x, y, width, height, 0);
+    }
+
+    /**
+     * Draws the image scaled to width x height at x, y, rotated by the given
+     * degrees about the centre of that rectangle.
+     */
+    public void draw(Graphics2D g, BufferedImage image, int x, int y, int width, int height, double rotation) {
+        if (image == null || width <= 0 || height <= 0) return;
+
+        if (image == source && width == this.width && height == this.height && rotation == this.rotation) {
+            if (posed == null && g.getRenderingHint(RenderingHints.KEY_INTERPOLATION)
+                    != RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR) {
+                build(g);
+            }
+            if (posed != null) {
+                g.drawImage(posed, x + offsetX, y + offsetY, null);
+                return;
+            }
+        } else {
+            source = image;
+            this.width = width;
+            this.height = height;
+            this.rotation = rotation;
+            posed = null;
+        }
+
+        if (rotation == 0) {
+            g.drawImage(image, x, y, width, height, null);
+            return;
+        }
+        AffineTransform oldTransform = g.getTransform();
+        g.rotate(Math.toRadians(rotation), x + width / 2, y + height / 2);
+        g.drawImage(image, x, y, width, height, null);
+        g.setTransform(oldTransform);
+    }
+
+    /**
+     * Forgets the pose and drops the copy.
+     */
+    public void clear() {
+        source = null;
+        posed = null;
+    }
+
+    // Draws the source at the current pose, with the target's hints, into a copy just big enough for it
+    private void build(Graphics2D target) {
+        AffineTransform pose = AffineTransform.getRotateInstance(Math.toRadians(rotation), width / 2, height / 2);
+        Rectangle bounds = pose.createTransformedShape(new Rectangle(0, 0, width, height)).getBounds();
+        bounds.grow(1, 1); // Room for the smoothed edges
+        offsetX = bounds.x;
+        offsetY = bounds.y;
+
+        posed = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = posed.createGraphics();
+        g.setRenderingHints(target.getRenderingHints());
+        g.translate(-offsetX, -offsetY);
+        g.transform(pose);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+    }
+}
@@ -0,0 +1,272 @@
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseMotionListener;
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import javax.swing.SwingUtilities;
+
+/**
+ * RenderAllocationCheck renders frames headlessly in every visual state (idle,
+ * hover with parallax, hit and enemy flash, damage number, death screen,
+ * upgrade overlay) and measures the bytes the render thread allocates per
+ * frame. The EDT's side of a frame is measured too, on a GamePanel:
+ * publishing a snapshot, and a mouse move that publishes one. Each state is measured a few times and the lowest count is kept, so a
+ * JIT recompilation mid-run is not mistaken for an allocation every frame
+ * makes. States over the budget are rendered again under a JFR recording and
+ * their top allocation sites are printed. Exits with status 1 if any state is
+ * over the budget.
+ *
+ * Run from the game directory so the sprites load, with -Djava.awt.headless=true.
+ *
+ * Usage: java RenderAllocationCheck [frames] [budget bytes per frame]
+ */
+public class RenderAllocationCheck {
+    private static final int WIDTH = 1024;
+    private static final int HEIGHT = 768;
+    private static final int WARMUP_FRAMES = 500;
+    private static final double BASE_ROTATION = 7.0; // Resting card tilt, as in GamePanel
+    private static final double HOVER_SCALE = 1.1;
+    private static final int VARIATIONS = 120; // Distinct snapshots per state, cycled
+    private static final int ROUNDS = 3;
+    private static final int SAMPLED_ROUNDS = 10; // Enough TLAB refills for JFR to sample small per-frame allocations
+    private static final int TOP_SITES = 10;
+    private static final long SEED = 1;
+    private static final int[] TOP_ROUNDS = {12, 11, 9, 9, 8, 6, 5, 4, 4, 2}; // Death screen list
+
+    private interface State {
+        FrameSnapshot frame(int i);
+    }
+
+    private interface Frames {
+        void run(int count);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        long budget = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        if (!AllocationGuard.isSupported()) {
+            System.out.println("This JVM cannot count allocated bytes per thread");
+            System.exit(2);
+        }
+
+        CardCatalog cards = CardCatalog.load(CardCatalog.DEFAULT_CATALOG_FILE);
+        GameLogic game = new GameLogic(BalanceConfig.defaults(), SEED);
+        GameRenderer renderer = new GameRenderer(cards);
+        BufferedImage buffer = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = buffer.createGraphics();
+
+        Map<String, State> states = new LinkedHashMap<>();
+        // Cards hold their resting or hovered pose; the mouse, hit and fade vary per frame
+        states.put("idle", i -> snapshot(game, false, false, -1, -1, WIDTH / 2, HEIGHT / 2, false, false, 0));
+        states.put("hover", i -> snapshot(game, false, false, -1, 2, (i * 37) % WIDTH, (i * 53) % HEIGHT, false, false, 0));
+        states.put("flash", i -> snapshot(game, false, false, -1, -1, WIDTH / 2, HEIGHT / 2, true, i % 2 == 0, 0));
+        states.put("damage", i -> snapshot(game, false, false, -1, -1, WIDTH / 2, HEIGHT / 2, false, false, 1f - (float)i / VARIATIONS));
+        states.put("death", i -> snapshot(game, true, false, -1, -1, WIDTH / 2, HEIGHT / 2, false, false, 0));
+        states.put("upgrade", i -> snapshot(game, false, true, i % (GameRenderer.UPGRADE_COUNT + 1) - 1, -1,
+                WIDTH / 2, HEIGHT / 2, false, false, 0));
+
+        System.out.println("=== Render Allocation Check ===");
+        System.out.println(WIDTH + "x" + HEIGHT + ", " + frames + " frames per state, budget " + budget + " bytes/frame");
+        System.out.printf("%-10s %14s %14s%n", "state", "bytes/frame", "total bytes");
+
+        // Warm every state up first, so the JIT has compiled the shared drawing code before anything is measured
+        Map<String, FrameSnapshot[]> frameSets = new LinkedHashMap<>();
+        for (Map.Entry<String, State> entry : states.entrySet()) {
+            FrameSnapshot[] snapshots = new FrameSnapshot[VARIATIONS];
+            for (int i = 0; i < VARIATIONS; i++) {
+                snapshots[i] = entry.getValue().frame(i);
+            }
+            frameSets.put(entry.getKey(), snapshots);
+            renderFrames(renderer, g2d, snapshots, WARMUP_FRAMES);
+        }
+
+        List<String> over = new ArrayList<>();
+        for (Map.Entry<String, FrameSnapshot[]> entry : frameSets.entrySet()) {
+            FrameSnapshot[] snapshots = entry.getValue();
+            check(entry.getKey(), count -> renderFrames(renderer, g2d, snapshots, count), false, frames, budget, over);
+        }
+        g2d.dispose();
+        renderer.dispose();
+
+        // The EDT side, on a panel that is not started, so no timers publish between the measured
+        // frames and the snapshots are not drawn; the game's own output is hidden
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        GamePanel[] panel = new GamePanel[1];
+        SwingUtilities.invokeAndWait(() -> {
+            panel[0] = new GamePanel();
+            panel[0].setSize(WIDTH, HEIGHT);
+        });
+        System.setOut(out);
+        MouseMotionListener motion = panel[0].getMouseMotionListeners()[0];
+        MouseEvent[] moves = new MouseEvent[VARIATIONS];
+        for (int i = 0; i < VARIATIONS; i++) {
+            moves[i] = new MouseEvent(panel[0], MouseEvent.MOUSE_MOVED, 0, 0, (i * 37) % WIDTH, (i * 53) % HEIGHT, 0, false);
+        }
+        Map<String, Frames> edtStates = new LinkedHashMap<>();
+        edtStates.put("publish", count -> {
+            for (int i = 0; i < count; i++) {
+                panel[0].publishFrame();
+            }
+        });
+        edtStates.put("mouse move", count -> {
+            for (int i = 0; i < count; i++) {
+                motion.mouseMoved(moves[i % moves.length]);
+            }
+        });
+        for (Frames state : edtStates.values()) {
+            runOn(true, () -> state.run(WARMUP_FRAMES));
+        }
+        for (Map.Entry<String, Frames> entry : edtStates.entrySet()) {
+            check(entry.getKey(), entry.getValue(), true, frames, budget, over);
+        }
+        SwingUtilities.invokeAndWait(panel[0]::dispose);
+
+        if (!over.isEmpty()) {
+            System.out.println("Over budget: " + String.join(", ", over));
+            System.exit(1);
+        }
+        System.out.println("All states within budget");
+    }
+
+    /**
+     * Measures the frames a few times, prints the lowest bytes per frame, and
+     * the top allocation sites if that is over the budget.
+     * @param edt Whether the frames run on the EDT rather than this thread
+     */
+    private static void check(String name, Frames frames, boolean edt, int count, long budget, List<String> over)
+            throws Exception {
+        long total = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long[] bytes = new long[1];
+            runOn(edt, () -> {
+                long start = AllocationGuard.currentThreadAllocatedBytes();
+                frames.run(count);
+                bytes[0] = AllocationGuard.currentThreadAllocatedBytes() - start;
+            });
+            total = Math.min(total, bytes[0]);
+        }
+        double perFrame = (double)total / count;
+        System.out.printf("%-10s %14.1f %14d%s%n", name, perFrame, total, perFrame > budget ? "  OVER" : "");
+        if (perFrame > budget) {
+            over.add(name);
+            printTopSites(frames, edt, count);
+        }
+    }
+
+    private static void runOn(boolean edt, Runnable action) throws Exception {
+        if (edt) {
+            SwingUtilities.invokeAndWait(action);
+        } else {
+            action.run();
+        }
+    }
+
+    private static FrameSnapshot snapshot(GameLogic game, boolean death, boolean upgrade, int hoveredUpgrade,
+                                          int hoveredCard, int mouseX, int mouseY, boolean flashing, boolean armorBreak,
+                                          float damageAlpha) {
+        int[] hand = new int[GameLogic.HAND_SIZE];
+        double[] scales = new double[hand.length];
+        double[] rotations = new double[hand.length];
+        double[] alphas = new double[hand.length];
+        for (int i = 0; i < hand.length; i++) {
+            hand[i] = game.getHandCard(i);
+            boolean hovered = i == hoveredCard;
+            scales[i] = hovered ? HOVER_SCALE : 1.0;
+            rotations[i] = hovered ? 0 : (i < 2 ? -BASE_ROTATION : BASE_ROTATION);
+            alphas[i] = 1.0;
+        }
+        return new FrameSnapshot(WIDTH, HEIGHT, game, 12, TOP_ROUNDS, death, upgrade, hoveredUpgrade,
+                hand, scales, rotations, alphas, 1.0, mouseX, mouseY,
+                flashing, armorBreak, flashing, flashing ? 3 : 0, flashing ? -2 : 0,
+                7 + mouseX % 20, damageAlpha, 0);
+    }
+
+    private static void renderFrames(GameRenderer renderer, Graphics2D g2d, FrameSnapshot[] snapshots, int frames) {
+        for (int i = 0; i < frames; i++) {
+            renderer.render(g2d, snapshots[i % snapshots.length]);
+        }
+    }
+
+    /**
+     * Runs the frames again, several times over, while JFR samples allocations, and prints where
+     * the most bytes were allocated: the first frame in game code, and the JDK
+     * method that allocated if that is a different one. JFR samples on TLAB
+     * refills, so the shares are estimates.
+     */
+    private static void printTopSites(Frames frames, boolean edt, int count) throws Exception {
+        Path file = Files.createTempFile("render-alloc", ".jfr");
+        long[] threadId = new long[1];
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.ObjectAllocationInNewTLAB").withStackTrace();
+            recording.enable("jdk.ObjectAllocationOutsideTLAB").withStackTrace();
+            recording.start();
+            runOn(edt, () -> {
+                threadId[0] = Thread.currentThread().getId();
+                for (int i = 0; i < SAMPLED_ROUNDS; i++) {
+                    frames.run(count);
+                }
+            });
+            recording.stop();
+            recording.dump(file);
+        }
+
+        long thread = threadId[0];
+        Map<String, Long> sites = new HashMap<>();
+        long sampled = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            if (event.getThread() == null || event.getThread().getJavaThreadId() != thread) continue;
+            long bytes = event.hasField("tlabSize") ? event.getLong("tlabSize") : event.getLong("allocationSize");
+            String site = event.getClass("objectClass").getName() + " " + describe(event.getStackTrace());
+            sites.merge(site, bytes, Long::sum);
+            sampled += bytes;
+        }
+        Files.deleteIfExists(file);
+
+        if (sampled == 0) {
+            System.out.println("    (too little allocated for JFR to sample)");
+            return;
+        }
+        final long total = sampled;
+        sites.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP_SITES)
+                .forEach(site -> System.out.printf("    %5.1f%%  %s%n", 100.0 * site.getValue() / total, site.getKey()));
+    }
+
+    // "at GameRenderer.drawHPCard:512 (via AlphaComposite.getInstance)"
+    private static String describe(RecordedStackTrace stack) {
+        if (stack == null || stack.getFrames().isEmpty()) return "at (unknown)";
+        List<RecordedFrame> frames = stack.getFrames();
+        RecordedFrame top = frames.get(0);
+        for (RecordedFrame frame : frames) {
+            if (!frame.isJavaFrame() || isJdkClass(frame.getMethod().getType().getName())) continue;
+            String at = "at " + name(frame) + ":" + frame.getLineNumber();
+            return frame == top ? at : at + " (via " + name(top) + ")";
+        }
+        return "at " + name(top) + ":" + top.getLineNumber();
+    }
+
+    private static String name(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.substring(type.lastIndexOf('.') + 1) + "." + frame.getMethod().getName();
+    }
+
+    private static boolean isJdkClass(String name) {
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.")
+                || name.startsWith("jdk.") || name.startsWith("com.sun.");
+    }
+}
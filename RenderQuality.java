@@ -0,0 +1,106 @@
+/**
+ * RenderQuality decides, frame by frame, whether the render thread draws at
+ * full quality or in draft quality (see GameRenderer.render). Draft is used:
+ *
+ *   - while the window is being resized, until no resize has been seen for
+ *     RESIZE_SETTLE_NANOS, so intermediate sizes are not drawn and cached at
+ *     full quality only to be thrown away, and
+ *   - while full quality frames take longer than the frame budget on average,
+ *     so slow machines keep their frame rate instead of stuttering.
+ *
+ * After dropping to draft for load, full quality is tried again once draft
+ * frames are well within the budget, first after a second and then after
+ * twice as long each time it fails, up to half a minute.
+ *
+ * The budget is -Dmarrow.frameBudgetMs (16 by default);
+ * -Dmarrow.adaptiveQuality=false always draws at full quality.
+ * resized may be called from any thread, the rest only from the render thread.
+ */
+public class RenderQuality {
+    public static final long DEFAULT_FRAME_BUDGET_MS = 16;
+
+    private static final long RESIZE_SETTLE_NANOS = 250_000_000L;
+    private static final long FIRST_RETRY_NANOS = 1_000_000_000L;
+    private static final long MAX_RETRY_NANOS = 30_000_000_000L;
+    private static final double SMOOTHING = 0.1;   // Weight of the newest frame in the averages
+    private static final int MIN_SAMPLES = 10;     // Full quality frames averaged before judging them
+    private static final double RECOVERY_RATIO = 0.5; // Draft frames must be this far within the budget to retry
+
+    private final boolean adaptive;
+    private final long budgetNanos;
+    private volatile boolean everResized = false;
+    private volatile long lastResize;
+
+    // Render thread only
+    private boolean overBudget = false;
+    private double fullAverage = 0;
+    private int fullSamples = 0;
+    private double draftAverage = 0;
+    private long draftSince = 0;
+    private long retryDelay = FIRST_RETRY_NANOS;
+
+    public RenderQuality(boolean adaptive, long budgetNanos) {
+        this.adaptive = adaptive;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * The controller configured by -Dmarrow.adaptiveQuality and -Dmarrow.frameBudgetMs.
+     */
+    public static RenderQuality fromSystemProperties() {
+        boolean adaptive = !"false".equalsIgnoreCase(System.getProperty("marrow.adaptiveQuality"));
+        return new RenderQuality(adaptive, Long.getLong("marrow.frameBudgetMs", DEFAULT_FRAME_BUDGET_MS) * 1_000_000L);
+    }
+
+    /**
+     * Notes that the surface changed size.
+     */
+    public void resized() {
+        lastResize = System.nanoTime();
+        everResized = true;
+    }
+
+    /**
+     * Whether the frame starting now should be drawn in draft quality.
+     */
+    public boolean useDraft(long now) {
+        if (!adaptive) return false;
+        if (overBudget && now - draftSince >= retryDelay && draftAverage < budgetNanos * RECOVERY_RATIO) {
+            overBudget = false;
+            fullSamples = 0;
+            retryDelay = Math.min(retryDelay * 2, MAX_RETRY_NANOS);
+            System.out.println("Render quality: trying full quality again");
+        }
+        return overBudget || isResizing(now);
+    }
+
+    /**
+     * Whether a resize was seen within the settle time.
+     */
+    public boolean isResizing(long now) {
+        return everResized && now - lastResize < RESIZE_SETTLE_NANOS;
+    }
+
+    /**
+     * Records how long a frame took to draw.
+     */
+    public void frameRendered(long now, long nanos, boolean draft) {
+        if (!adaptive) return;
+        if (draft) {
+            draftAverage = draftAverage == 0 ? nanos : draftAverage + (nanos - draftAverage) * SMOOTHING;
+            return;
+        }
+        fullAverage = fullSamples == 0 ? nanos : fullAverage + (nanos - fullAverage) * SMOOTHING;
+        fullSamples++;
+        if (fullSamples < MIN_SAMPLES) return;
+        if (fullAverage > budgetNanos) {
+            overBudget = true;
+            draftSince = now;
+            draftAverage = 0;
+            System.out.printf("Render quality: draft, frames take %.1f ms against a budget of %.1f ms%n",
+                    fullAverage / 1e6, budgetNanos / 1e6);
+        } else if (fullSamples >= MIN_SAMPLES * 10) {
+            retryDelay = FIRST_RETRY_NANOS; // Full quality has held, so the next drop starts over
+        }
+    }
+}
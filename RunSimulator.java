@@ -0,0 +1,29 @@
+/**
+ * RunSimulator plays complete runs on headless GameLogic instances, resolving
+ * enemy attacks immediately instead of on a timer.
+ */
+public class RunSimulator {
+    // Guards against configs where neither side can ever win
+    public static final int DEFAULT_MAX_TURNS = 100_000;
+
+    private RunSimulator() {
+    }
+
+    /**
+     * Plays one run to the player's death.
+     * @return The round the player died in, as shown on the death screen
+     */
+    public static int playRun(GameLogic game, SimulationPolicy policy, int maxTurns) {
+        for (int turn = 0; turn < maxTurns && !game.isPlayerDead(); turn++) {
+            game.handleCardClick(policy.chooseCard(game));
+            if (game.isGameOver() && !game.isPlayerDead()) {
+                // Enemy defeated: next enemy, then the upgrade, as the victory dialog does
+                game.resetGame();
+                game.applyUpgrade(policy.chooseUpgrade(game));
+            } else {
+                game.handleEnemyAttack();
+            }
+        }
+        return game.getEnemiesDefeated() + 1;
+    }
+}
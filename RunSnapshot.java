@@ -0,0 +1,165 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+/**
+ * RunSnapshot captures and restores a full run as a small versioned binary blob.
+ * Capture and restore work on byte arrays in memory, so they are cheap enough to
+ * use for state copies; saving to disk happens on a background thread and goes
+ * through a temp file and an atomic rename so a crash never leaves a torn save.
+ *
+ * Layout: magic (int), version (short), payload length (int), CRC32 of payload (long), payload.
+ */
+public class RunSnapshot {
+    public static final String SAVE_FILE = "run.sav";
+    private static final String TEMP_FILE = SAVE_FILE + ".tmp";
+
+    private static final int MAGIC = 0x4D52554E; // "MRUN"
+    private static final short VERSION = 2;          // 2 adds the next enemy
+    private static final short MIN_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 2 + 4 + 8;
+
+    // Marks a pending delete in place of snapshot data
+    private static final byte[] DELETE = new byte[0];
+
+    // Latest snapshot waiting to be written; older ones are skipped
+    private static final AtomicReference<byte[]> pending = new AtomicReference<>();
+
+    // Single writer thread keeps saves in order
+    private static final ExecutorService saveExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "run-save");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private RunSnapshot() {
+    }
+
+    /**
+     * Captures the current run.
+     */
+    public static byte[] capture(GameLogic logic) {
+        int payloadSize = logic.getStateSize();
+        byte[] data = new byte[HEADER_SIZE + payloadSize];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+
+        buffer.position(HEADER_SIZE);
+        logic.writeState(buffer);
+        int payloadLength = buffer.position() - HEADER_SIZE;
+
+        CRC32 crc = new CRC32();
+        crc.update(data, HEADER_SIZE, payloadLength);
+
+        buffer.position(0);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(payloadLength);
+        buffer.putLong(crc.getValue());
+        return data;
+    }
+
+    /**
+     * Restores a run captured by capture.
+     * @throws IOException If the data is not a valid snapshot of this version
+     */
+    public static void restore(GameLogic logic, byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (data.length < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a run snapshot");
+        }
+        short version = buffer.getShort();
+        if (version < MIN_VERSION || version > VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        int payloadLength = buffer.getInt();
+        long expectedCrc = buffer.getLong();
+        if (payloadLength < 0 || payloadLength > data.length - HEADER_SIZE) {
+            throw new IOException("Truncated snapshot");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, HEADER_SIZE, payloadLength);
+        if (crc.getValue() != expectedCrc) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+
+        try {
+            logic.readState(buffer, version);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid snapshot contents", e);
+        }
+    }
+
+    /**
+     * Writes a snapshot to the save file on the background thread. If saves come
+     * in faster than the disk can take them, only the latest one is written.
+     */
+    public static void saveAsync(byte[] data) {
+        submit(data);
+    }
+
+    /**
+     * Removes the save file on the background thread, replacing any pending save.
+     */
+    public static void deleteSaveAsync() {
+        submit(DELETE);
+    }
+
+    private static void submit(byte[] data) {
+        if (pending.getAndSet(data) == null) {
+            saveExecutor.execute(RunSnapshot::flushPending);
+        }
+    }
+
+    private static void flushPending() {
+        byte[] data = pending.getAndSet(null);
+        if (data == null) return;
+        try {
+            if (data == DELETE) {
+                Files.deleteIfExists(Paths.get(SAVE_FILE));
+            } else {
+                writeAtomically(data);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the save file.
+     * @return The saved snapshot, or null if there is none
+     */
+    public static byte[] loadSave() {
+        try {
+            return Files.readAllBytes(Paths.get(SAVE_FILE));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static void writeAtomically(byte[] data) throws IOException {
+        Path temp = Paths.get(TEMP_FILE);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, Paths.get(SAVE_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,275 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * RunTelemetry records per-run combat statistics without slowing the game down.
+ *
+ * The game thread (the only writer) packs each event into a long and drops it
+ * into a preallocated ring buffer; it never locks or allocates. A background
+ * thread drains the ring, aggregates the current run into primitive counters and
+ * fixed-bucket histograms, and appends one fixed-size record per finished run to
+ * the telemetry file. TelemetryReport reads that file back.
+ */
+public class RunTelemetry {
+    public static final String TELEMETRY_FILE = "telemetry.bin";
+
+    // File format
+    static final int MAGIC = 0x4D54454C; // "MTEL"
+    static final short VERSION = 1;
+    static final int FILE_HEADER_SIZE = 4 + 2;
+    static final int HISTOGRAM_BUCKETS = 32; // 0..30, last bucket is 31+
+    static final int UPGRADE_TYPES = 4;
+    static final int RECORD_SIZE = (7 + UPGRADE_TYPES) * 4 + 2 * HISTOGRAM_BUCKETS * 2;
+
+    // Event types
+    private static final int EVENT_DAMAGE_DEALT = 1;  // value = damage, aux = crit
+    private static final int EVENT_DAMAGE_TAKEN = 2;  // value = HP damage, aux = absorbed by defense
+    private static final int EVENT_ARMOR_BREAK = 3;
+    private static final int EVENT_UPGRADE = 4;       // value = upgrade type
+    private static final int EVENT_RUN_END = 5;       // value = round of death
+    private static final int EVENT_DEFENSE_GAINED = 6; // value = defense gained
+    private static final int EVENT_RUN_ABANDONED = 7; // Run left without dying; nothing is written
+
+    // Ring buffer
+    private static final int RING_SIZE = 1 << 14;
+    private static final int RING_MASK = RING_SIZE - 1;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static RunTelemetry instance;
+    private static final RunTelemetry DISABLED = new RunTelemetry();
+
+    private final long[] ring = new long[RING_SIZE];
+    private long writeSequence;                              // Writer thread only
+    private final AtomicLong published = new AtomicLong();   // Last sequence visible to the reader
+    private final AtomicLong consumed = new AtomicLong();    // Last sequence the reader has finished with
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Current run, owned by the flush thread
+    private int turns;
+    private int attacks;
+    private int crits;
+    private int armorBreaks;
+    private int defenseGained;
+    private int defenseAbsorbed;
+    private final int[] upgrades = new int[UPGRADE_TYPES];
+    private final short[] damageDealt = new short[HISTOGRAM_BUCKETS];
+    private final short[] damageTaken = new short[HISTOGRAM_BUCKETS];
+
+    private final boolean enabled;
+    private final File file;
+    private DataOutputStream out;
+    private long lastFlush;
+    private boolean dirty;
+
+    private RunTelemetry(File file) {
+        this.enabled = true;
+        this.file = file;
+        Thread flusher = new Thread(this::runFlusher, "telemetry-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> drainAndFlush(true), "telemetry-shutdown"));
+    }
+
+    // Recorder that drops every event, without a file or flush thread
+    private RunTelemetry() {
+        this.enabled = false;
+        this.file = null;
+    }
+
+    /**
+     * Returns the shared telemetry recorder, starting its flush thread on first use.
+     */
+    public static synchronized RunTelemetry getInstance() {
+        if (instance == null) {
+            instance = new RunTelemetry(new File(TELEMETRY_FILE));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns a recorder that ignores every event, for headless simulations.
+     */
+    public static RunTelemetry disabled() {
+        return DISABLED;
+    }
+
+    // Recording, called from the game thread
+
+    public void damageDealt(int damage, boolean critical) {
+        publish(EVENT_DAMAGE_DEALT, damage, critical ? 1 : 0);
+    }
+
+    public void defenseGained(int defense) {
+        publish(EVENT_DEFENSE_GAINED, defense, 0);
+    }
+
+    public void damageTaken(int hpDamage, int absorbed) {
+        publish(EVENT_DAMAGE_TAKEN, hpDamage, absorbed);
+    }
+
+    public void armorBreak() {
+        publish(EVENT_ARMOR_BREAK, 0, 0);
+    }
+
+    public void upgrade(int upgradeType) {
+        publish(EVENT_UPGRADE, upgradeType, 0);
+    }
+
+    public void runEnded(int round) {
+        publish(EVENT_RUN_END, round, 0);
+    }
+
+    /**
+     * Drops the current run's counters without writing a record, for a run
+     * left before it ended, so they do not carry into the next run.
+     */
+    public void discardRun() {
+        publish(EVENT_RUN_ABANDONED, 0, 0);
+    }
+
+    /**
+     * Number of events lost because the ring was full.
+     */
+    public long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    private void publish(int type, int value, int aux) {
+        if (!enabled) return;
+        if (writeSequence - consumed.get() >= RING_SIZE) {
+            dropped.incrementAndGet();
+            return;
+        }
+        ring[(int)(writeSequence & RING_MASK)] =
+            ((long)type << 56) | ((long)(aux & 0xFFFFFF) << 32) | (value & 0xFFFFFFFFL);
+        writeSequence++;
+        published.lazySet(writeSequence);
+    }
+
+    // Flush thread
+
+    private void runFlusher() {
+        while (true) {
+            drainAndFlush(false);
+            LockSupport.parkNanos(POLL_INTERVAL_NANOS);
+        }
+    }
+
+    private synchronized void drainAndFlush(boolean force) {
+        long available = published.get();
+        long next = consumed.get();
+        while (next < available) {
+            aggregate(ring[(int)(next & RING_MASK)]);
+            next++;
+            consumed.lazySet(next);
+        }
+
+        long now = System.nanoTime();
+        if (dirty && (force || now - lastFlush >= FLUSH_INTERVAL_NANOS)) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            dirty = false;
+            lastFlush = now;
+        }
+    }
+
+    private void aggregate(long event) {
+        int type = (int)(event >>> 56);
+        int aux = (int)((event >>> 32) & 0xFFFFFF);
+        int value = (int)event;
+
+        switch (type) {
+            case EVENT_DAMAGE_DEALT:
+                turns++;
+                attacks++;
+                crits += aux;
+                addToHistogram(damageDealt, value);
+                break;
+            case EVENT_DEFENSE_GAINED:
+                turns++;
+                defenseGained += value;
+                break;
+            case EVENT_DAMAGE_TAKEN:
+                defenseAbsorbed += aux;
+                addToHistogram(damageTaken, value);
+                break;
+            case EVENT_ARMOR_BREAK:
+                armorBreaks++;
+                break;
+            case EVENT_UPGRADE:
+                if (value >= 0 && value < UPGRADE_TYPES) {
+                    upgrades[value]++;
+                }
+                break;
+            case EVENT_RUN_END:
+                writeRecord(value);
+                clearRun();
+                break;
+            case EVENT_RUN_ABANDONED:
+                clearRun();
+                break;
+        }
+    }
+
+    private static void addToHistogram(short[] histogram, int value) {
+        int bucket = Math.max(0, Math.min(value, HISTOGRAM_BUCKETS - 1));
+        if (histogram[bucket] < Short.MAX_VALUE) {
+            histogram[bucket]++;
+        }
+    }
+
+    private void writeRecord(int round) {
+        try {
+            if (out == null) {
+                boolean isNew = !file.exists() || file.length() == 0;
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+                if (isNew) {
+                    out.writeInt(MAGIC);
+                    out.writeShort(VERSION);
+                }
+            }
+            out.writeInt(round);
+            out.writeInt(turns);
+            out.writeInt(attacks);
+            out.writeInt(crits);
+            out.writeInt(armorBreaks);
+            out.writeInt(defenseGained);
+            out.writeInt(defenseAbsorbed);
+            for (int count : upgrades) {
+                out.writeInt(count);
+            }
+            for (short count : damageDealt) {
+                out.writeShort(count);
+            }
+            for (short count : damageTaken) {
+                out.writeShort(count);
+            }
+            dirty = true;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void clearRun() {
+        turns = 0;
+        attacks = 0;
+        crits = 0;
+        armorBreaks = 0;
+        defenseGained = 0;
+        defenseAbsorbed = 0;
+        Arrays.fill(upgrades, 0);
+        Arrays.fill(damageDealt, (short)0);
+        Arrays.fill(damageTaken, (short)0);
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+/**
+ * ScalingTable stores enemy stats for every round, indexed by enemies defeated.
+ * Rows are computed ahead of time and the table doubles in size when a run
+ * outlasts it, so looking up a round is a plain array read.
+ */
+public class ScalingTable {
+    private static final int INITIAL_ROUNDS = 64;
+
+    // Scaling rules
+    private final int baseEnemyHP;
+    private final int hpInterval;
+    private final int hpAmount;
+    private final int damageInterval;
+    private final int armorInterval;
+    private final int penetrationInterval;
+
+    // Precomputed rows
+    private int[] enemyHP = new int[0];
+    private int[] damageBonus = new int[0];
+    private int[] armor = new int[0];
+    private boolean[] armorPenetration = new boolean[0];
+
+    /**
+     * @param baseEnemyHP Enemy HP before any scaling
+     * @param hpInterval Enemies between HP increases
+     * @param hpAmount HP added at each increase
+     * @param damageInterval Enemies between damage range increases
+     * @param armorInterval Enemies between armored enemies
+     * @param penetrationInterval Enemies between armored enemies with penetration
+     */
+    public ScalingTable(int baseEnemyHP, int hpInterval, int hpAmount, int damageInterval,
+                        int armorInterval, int penetrationInterval) {
+        this.baseEnemyHP = baseEnemyHP;
+        this.hpInterval = hpInterval;
+        this.hpAmount = hpAmount;
+        this.damageInterval = damageInterval;
+        this.armorInterval = armorInterval;
+        this.penetrationInterval = penetrationInterval;
+        ensureCapacity(INITIAL_ROUNDS);
+    }
+
+    /**
+     * Makes sure rows up to the given round exist, doubling the table as needed.
+     */
+    private void ensureCapacity(int round) {
+        int filled = enemyHP.length;
+        if (round < filled) return;
+
+        int capacity = Math.max(INITIAL_ROUNDS, filled);
+        while (capacity <= round) {
+            capacity *= 2;
+        }
+        enemyHP = Arrays.copyOf(enemyHP, capacity);
+        damageBonus = Arrays.copyOf(damageBonus, capacity);
+        armor = Arrays.copyOf(armor, capacity);
+        armorPenetration = Arrays.copyOf(armorPenetration, capacity);
+
+        for (int r = filled; r < capacity; r++) {
+            enemyHP[r] = baseEnemyHP + (r / hpInterval) * hpAmount;
+            damageBonus[r] = r / damageInterval;
+            if (r > 0 && r % armorInterval == 0) {
+                // Start at 1 armor, then add 1 every armored enemy
+                armor[r] = 1 + (r - armorInterval) / armorInterval;
+                armorPenetration[r] = (r % penetrationInterval == armorInterval % penetrationInterval);
+            }
+        }
+    }
+
+    public int getEnemyHP(int round) {
+        ensureCapacity(round);
+        return enemyHP[round];
+    }
+
+    public int getDamageBonus(int round) {
+        ensureCapacity(round);
+        return damageBonus[round];
+    }
+
+    public int getArmor(int round) {
+        ensureCapacity(round);
+        return armor[round];
+    }
+
+    public boolean hasArmorPenetration(int round) {
+        ensureCapacity(round);
+        return armorPenetration[round];
+    }
+}
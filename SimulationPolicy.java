@@ -0,0 +1,63 @@
+import java.util.Random;
+
+/**
+ * SimulationPolicy stands in for the player in headless runs: it picks the
+ * card to play each turn and the upgrade to take after each win.
+ */
+public interface SimulationPolicy {
+    /**
+     * Returns the hand slot to play.
+     */
+    int chooseCard(GameLogic game);
+
+    /**
+     * Returns the upgrade type to apply, as passed to GameLogic.applyUpgrade.
+     */
+    int chooseUpgrade(GameLogic game);
+
+    /**
+     * Creates a policy by name.
+     * random: plays any card and takes any upgrade.
+     * greedy: defends only when the next enemy hit could get through, and
+     * alternates attack and health upgrades.
+     * @throws IllegalArgumentException If the name is unknown
+     */
+    static SimulationPolicy byName(String name, long seed) {
+        switch (name) {
+            case "random": {
+                Random random = new Random(seed);
+                return new SimulationPolicy() {
+                    @Override
+                    public int chooseCard(GameLogic game) {
+                        return random.nextInt(GameLogic.HAND_SIZE);
+                    }
+
+                    @Override
+                    public int chooseUpgrade(GameLogic game) {
+                        return random.nextInt(4);
+                    }
+                };
+            }
+            case "greedy":
+                return new SimulationPolicy() {
+                    @Override
+                    public int chooseCard(GameLogic game) {
+                        CardCatalog cards = game.getCardCatalog();
+                        boolean wantDefense = game.getDefCounter() < game.getConfig().maxEnemyDamage;
+                        for (int slot = 0; slot < GameLogic.HAND_SIZE; slot++) {
+                            int card = game.getHandCard(slot);
+                            if (card >= 0 && cards.isDefense(card) == wantDefense) return slot;
+                        }
+                        return 0;
+                    }
+
+                    @Override
+                    public int chooseUpgrade(GameLogic game) {
+                        return game.getEnemiesDefeated() % 2 == 0 ? 2 : 0;
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown policy: " + name);
+        }
+    }
+}
@@ -0,0 +1,523 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SimulationService plays headless simulation jobs for other local tools over
+ * HTTP on localhost. A job is a BalanceSweep point: balance values, a policy,
+ * a run count and a base seed, playing seeds seed to seed + runs - 1. Jobs
+ * run on a fixed pool of workers, one job per worker.
+ *
+ * A job's id is its BalanceSweep cache key, and finished results are written
+ * to the same cache, so a job already played here or by a sweep is answered
+ * at once, and submitting a job that is queued or running returns the same
+ * job. At most threads + queue jobs wait or run at a time; submissions past
+ * that get 429 with Retry-After rather than queueing without bound.
+ *
+ * Jobs are sent as properties text:
+ *   policy=greedy        random or greedy (default greedy)
+ *   runs=1000            Runs to play (default 1000)
+ *   seed=1               Base seed (default 1)
+ *   initialPlayerHP=12   Any other key overrides that balance value
+ *
+ * Endpoints, all answering JSON:
+ *   POST /jobs               Submit a job: 202, or 200 if it is already done
+ *   POST /batch              Several jobs separated by --- lines, admitted all or none
+ *   GET  /jobs/{id}          State, progress and, when done, the round distribution
+ *   GET  /jobs/{id}/events   One line per progress change until the job ends
+ *   GET  /stats              Workers, queue and cache counts
+ *
+ * The data files are hashed at startup; restart the service after editing them.
+ *
+ * Usage: java SimulationService [options]
+ *   --port N                 Port (default 8765)
+ *   --base file              Balance values jobs start from (default data/balance.properties)
+ *   --threads N              Worker threads (default: available processors)
+ *   --queue N                Jobs that may wait for a worker (default 64)
+ *   --cache-dir dir          Result cache (default sweep-cache), --no-cache to disable
+ */
+public class SimulationService {
+    private static final int DEFAULT_PORT = 8765;
+    private static final int DEFAULT_QUEUE = 64;
+    private static final int DEFAULT_RUNS = 1000;
+    private static final int MAX_RUNS = 1_000_000;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int MAX_FINISHED_JOBS = 1000; // Older results are still answered from the cache
+    private static final long PROGRESS_INTERVAL_MILLIS = 250;
+    private static final int RETRY_AFTER_SECONDS = 5;
+    private static final String BATCH_SEPARATOR = "---";
+
+    private static final String QUEUED = "queued";
+    private static final String RUNNING = "running";
+    private static final String DONE = "done";
+    private static final String FAILED = "failed";
+
+    /**
+     * A submitted job and its progress.
+     */
+    private static final class Job {
+        final String id;
+        final BalanceConfig config;
+        final String policy;
+        final int runs;
+        final long seed;
+        final AtomicInteger done = new AtomicInteger();
+        volatile String state = QUEUED;
+        volatile BalanceSweep.Result result;
+        volatile String error;
+
+        Job(String id, BalanceConfig config, String policy, int runs, long seed) {
+            this.id = id;
+            this.config = config;
+            this.policy = policy;
+            this.runs = runs;
+            this.seed = seed;
+        }
+
+        boolean isFinished() {
+            return state == DONE || state == FAILED;
+        }
+    }
+
+    private final BalanceConfig base;
+    private final File cacheDir;
+    private final long dataHash;
+    private final int capacity;
+    private final ExecutorService workers;
+    private final Semaphore slots; // One per job queued or running
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger played = new AtomicInteger();
+    private final AtomicInteger cacheHits = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    private SimulationService(BalanceConfig base, File cacheDir, int threads, int queue) {
+        this.base = base;
+        this.cacheDir = cacheDir;
+        this.dataHash = BalanceSweep.hashDataFiles();
+        this.capacity = threads + queue;
+        this.slots = new Semaphore(capacity);
+        AtomicInteger workerCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "simulation-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = DEFAULT_PORT;
+        String basePath = BalanceConfig.DEFAULT_CONFIG_FILE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queue = DEFAULT_QUEUE;
+        String cacheDir = BalanceSweep.DEFAULT_CACHE_DIR;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--base": basePath = args[++i]; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--queue": queue = Integer.parseInt(args[++i]); break;
+                case "--cache-dir": cacheDir = args[++i]; break;
+                case "--no-cache": cacheDir = null; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        SimulationService service = new SimulationService(BalanceConfig.load(basePath),
+                cacheDir != null ? new File(cacheDir) : null, Math.max(1, threads), Math.max(0, queue));
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/jobs", service::handleJobs);
+        server.createContext("/batch", service::handleBatch);
+        server.createContext("/stats", service::handleStats);
+        // Handler threads only parse and answer; progress streams hold one each while they last
+        server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "simulation-http");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        System.out.println("Simulation service on localhost:" + server.getAddress().getPort() + ", "
+                + Math.max(1, threads) + " workers, " + service.capacity + " jobs at most, cache "
+                + (cacheDir != null ? cacheDir : "disabled"));
+    }
+
+    // Requests
+
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+            if (path.length == 2 && method.equals("POST")) {
+                Job job = parseJob(readBody(exchange));
+                List<Job> admitted = admit(List.of(job));
+                if (admitted == null) {
+                    reject(exchange);
+                    return;
+                }
+                Job current = admitted.get(0);
+                exchange.getResponseHeaders().set("Location", "/jobs/" + current.id);
+                respond(exchange, current.state == DONE ? 200 : 202, jobJson(current));
+            } else if (path.length == 3 && method.equals("GET")) {
+                getJob(exchange, path[2]);
+            } else if (path.length == 4 && path[3].equals("events") && method.equals("GET")) {
+                streamEvents(exchange, path[2]);
+            } else {
+                respond(exchange, 404, errorJson("No such endpoint"));
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, errorJson(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, errorJson("Use POST"));
+                return;
+            }
+            List<Job> specs = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            for (String line : (readBody(exchange) + "\n" + BATCH_SEPARATOR).split("\n")) {
+                if (line.trim().equals(BATCH_SEPARATOR)) {
+                    if (text.toString().trim().length() > 0) {
+                        specs.add(parseJob(text.toString()));
+                    }
+                    text.setLength(0);
+                } else {
+                    text.append(line).append('\n');
+                }
+            }
+            if (specs.isEmpty()) {
+                throw new IllegalArgumentException("No jobs in batch");
+            }
+            List<Job> admitted = admit(specs);
+            if (admitted == null) {
+                reject(exchange);
+                return;
+            }
+            StringBuilder json = new StringBuilder("{\"jobs\":[");
+            for (int i = 0; i < admitted.size(); i++) {
+                json.append(i > 0 ? "," : "").append(jobJson(admitted.get(i)));
+            }
+            respond(exchange, 202, json.append("]}").toString());
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, errorJson(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            int active = capacity - slots.availablePermits();
+            respond(exchange, 200, "{\"running\":" + running.get() + ",\"queued\":" + (active - running.get())
+                    + ",\"capacity\":" + capacity + ",\"jobsPlayed\":" + played.get() + ",\"cacheHits\":" + cacheHits.get()
+                    + ",\"rejected\":" + rejected.get() + ",\"jobsInMemory\":" + jobs.size() + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void getJob(HttpExchange exchange, String id) throws IOException {
+        Job job = jobs.get(id);
+        if (job != null) {
+            respond(exchange, 200, jobJson(job));
+            return;
+        }
+        BalanceSweep.Result result = readCache(id);
+        if (result == null) {
+            respond(exchange, 404, errorJson("No such job"));
+        } else {
+            respond(exchange, 200, cachedJson(id, result));
+        }
+    }
+
+    /**
+     * Writes the job's state whenever it changes, one JSON object per line,
+     * and ends the response when the job is done or failed.
+     */
+    private void streamEvents(HttpExchange exchange, String id) throws IOException {
+        Job job = jobs.get(id);
+        BalanceSweep.Result result = job == null ? readCache(id) : null;
+        if (job == null && result == null) {
+            respond(exchange, 404, errorJson("No such job"));
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0); // Chunked
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (job == null) {
+                out.write((cachedJson(id, result) + "\n").getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            String last = null;
+            while (true) {
+                boolean ended = job.isFinished(); // Read before the line, so the last line has the result
+                String line = jobJson(job);
+                if (!line.equals(last)) {
+                    out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    last = line;
+                }
+                if (ended) return;
+                Thread.sleep(PROGRESS_INTERVAL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The client went away; the job carries on
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                body.write(buffer, 0, read);
+                if (body.size() > MAX_BODY_BYTES) {
+                    throw new IllegalArgumentException("Request body over " + MAX_BODY_BYTES + " bytes");
+                }
+            }
+            return body.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private void reject(HttpExchange exchange) throws IOException {
+        rejected.incrementAndGet();
+        exchange.getResponseHeaders().set("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+        respond(exchange, 429, errorJson("Queue full, " + capacity + " jobs queued or running"));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Jobs
+
+    /**
+     * Reads a job from properties text.
+     * @throws IllegalArgumentException If a value is missing, malformed or not a balance key
+     */
+    private Job parseJob(String text) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new StringReader(text));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed job: " + e.getMessage());
+        }
+        String policy = properties.getProperty("policy", "greedy").trim();
+        int runs;
+        long seed;
+        BalanceConfig config = base;
+        try {
+            runs = Integer.parseInt(properties.getProperty("runs", String.valueOf(DEFAULT_RUNS)).trim());
+            seed = Long.parseLong(properties.getProperty("seed", "1").trim());
+            for (String key : properties.stringPropertyNames()) {
+                if (key.equals("policy") || key.equals("runs") || key.equals("seed")) continue;
+                config = config.with(key, Double.parseDouble(properties.getProperty(key).trim()));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad number: " + e.getMessage());
+        }
+        if (runs < 1 || runs > MAX_RUNS) {
+            throw new IllegalArgumentException("runs must be 1 to " + MAX_RUNS);
+        }
+        SimulationPolicy.byName(policy, seed); // Fail on a bad name now rather than on a worker
+        String id = String.format("%016x", BalanceSweep.cacheKey(config, policy, runs, seed, dataHash));
+        return new Job(id, config, policy, runs, seed);
+    }
+
+    /**
+     * Admits jobs all or none. A job already known, or cached, is answered
+     * with what there is; the others each take a slot and are queued.
+     * @return The jobs in the order given, or null if there are not enough free slots
+     */
+    private synchronized List<Job> admit(List<Job> specs) {
+        List<Job> admitted = new ArrayList<>(specs.size());
+        List<Job> fresh = new ArrayList<>();
+        Map<String, Job> pending = new LinkedHashMap<>();
+        for (Job spec : specs) {
+            Job known = jobs.get(spec.id);
+            if (known == null) {
+                known = pending.get(spec.id);
+            }
+            if (known != null && known.state != FAILED) {
+                admitted.add(known);
+                continue;
+            }
+            BalanceSweep.Result result = readCache(spec.id);
+            if (result != null) {
+                spec.result = result;
+                spec.done.set(spec.runs);
+                spec.state = DONE;
+                cacheHits.incrementAndGet();
+            } else {
+                fresh.add(spec);
+            }
+            pending.put(spec.id, spec);
+            admitted.add(spec);
+        }
+        if (!slots.tryAcquire(fresh.size())) {
+            return null;
+        }
+        for (Job job : pending.values()) {
+            jobs.put(job.id, job);
+            if (job.state == DONE) {
+                retire(job);
+            }
+        }
+        for (Job job : fresh) {
+            workers.execute(() -> play(job));
+        }
+        return admitted;
+    }
+
+    /**
+     * Worker body: plays every run of the job, then caches the result.
+     */
+    private void play(Job job) {
+        job.state = RUNNING;
+        running.incrementAndGet();
+        try {
+            int[] rounds = new int[job.runs];
+            int timeouts = 0;
+            for (int i = 0; i < job.runs; i++) {
+                GameLogic game = new GameLogic(job.config, job.seed + i);
+                SimulationPolicy policy = SimulationPolicy.byName(job.policy, job.seed + i);
+                rounds[i] = RunSimulator.playRun(game, policy, RunSimulator.DEFAULT_MAX_TURNS);
+                if (!game.isPlayerDead()) timeouts++;
+                job.done.incrementAndGet();
+            }
+            BalanceSweep.Result result = BalanceSweep.summarize(rounds, timeouts);
+            if (cacheDir != null) {
+                BalanceSweep.writeCache(cacheFile(job.id), result);
+            }
+            job.result = result;
+            job.state = DONE;
+            played.incrementAndGet();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            job.error = e.toString();
+            job.state = FAILED;
+        } finally {
+            running.decrementAndGet();
+            slots.release();
+            retire(job);
+        }
+    }
+
+    // Keeps the most recent finished jobs in memory; the cache answers for the rest
+    private void retire(Job job) {
+        finished.add(job.id);
+        while (finished.size() > MAX_FINISHED_JOBS) {
+            String id = finished.poll();
+            if (id != null) {
+                jobs.computeIfPresent(id, (key, old) -> old.isFinished() ? null : old);
+            }
+        }
+    }
+
+    private File cacheFile(String id) {
+        return new File(cacheDir, id + ".txt");
+    }
+
+    // Null if caching is off, the id is not one of ours or nothing is cached under it
+    private BalanceSweep.Result readCache(String id) {
+        if (cacheDir == null || !id.matches("[0-9a-f]{16}")) return null;
+        File file = cacheFile(id);
+        if (!file.exists()) return null;
+        try {
+            return BalanceSweep.Result.decode(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // JSON
+
+    private static String jobJson(Job job) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"id\":\"").append(job.id).append("\",\"state\":\"").append(job.state)
+            .append("\",\"policy\":").append(quote(job.policy))
+            .append(",\"runs\":").append(job.runs)
+            .append(",\"seed\":").append(job.seed)
+            .append(",\"done\":").append(job.done.get());
+        BalanceSweep.Result result = job.result;
+        if (result != null) {
+            json.append(",\"cached\":").append(result.cached);
+            appendResult(json, result);
+        }
+        if (job.error != null) {
+            json.append(",\"error\":").append(quote(job.error));
+        }
+        return json.append('}').toString();
+    }
+
+    private static String cachedJson(String id, BalanceSweep.Result result) {
+        StringBuilder json = new StringBuilder("{\"id\":\"").append(id).append("\",\"state\":\"").append(DONE)
+                .append("\",\"cached\":true");
+        appendResult(json, result);
+        return json.append('}').toString();
+    }
+
+    private static void appendResult(StringBuilder json, BalanceSweep.Result result) {
+        json.append(",\"result\":{\"mean\":").append(String.format(Locale.ROOT, "%.3f", result.mean))
+            .append(",\"median\":").append(result.median)
+            .append(",\"p10\":").append(result.p10)
+            .append(",\"p90\":").append(result.p90)
+            .append(",\"max\":").append(result.max)
+            .append(",\"timeouts\":").append(result.timeouts).append('}');
+    }
+
+    private static String errorJson(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : String.valueOf(text).toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int)c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,198 @@
+import javax.swing.SwingUtilities;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+/**
+ * SoakCheck plays one GamePanel through many runs headlessly, the way a
+ * player does: every card is clicked as soon as its slot is back and an
+ * upgrade is picked whenever the enemy falls, until the player dies. Once the
+ * death screen has run out, the run goes back to the menu as
+ * MarrowExecutable.returnToMenu does (pause, completeReset, reset) and the
+ * next one starts. So each run starts and finishes the hit flash, death
+ * screen and enemy attack timers.
+ *
+ * Every SAMPLE_INTERVAL runs, once the last death screen has run out, it samples:
+ *   timers   the panel's running timers plus GameLogic's pending enemy
+ *            attacks, which by then should be just the animation and death
+ *            check timers
+ *   threads  the live thread count
+ *   heap     the heap used after a GC, less the images resident in the image
+ *            cache: sprite frames are decoded as they are first drawn, so the
+ *            cache fills at its own pace up to its budget
+ * Exits with status 1 if any of them grew past the first sample, meaning
+ * runs leave timers, threads or state behind.
+ *
+ * The game's own delays set the pace: a card slot comes back a second after
+ * it is played, so a run takes around 15 seconds and a long soak is a matter
+ * of hours. Every run is recorded in the leaderboard and completeReset
+ * deletes the saved run, so run it from a copy of the game directory if
+ * leaderboard.log or run.sav matter. The game's own output is hidden while
+ * the runs play.
+ *
+ * Run from the game directory so the data files load, with -Djava.awt.headless=true.
+ *
+ * Usage: java SoakCheck [runs] [heap slack MB]
+ */
+public class SoakCheck {
+    private static final int WIDTH = 1024;
+    private static final int HEIGHT = 768;
+    private static final int SAMPLE_INTERVAL = 10;
+    private static final int WARMUP_RUNS = 10;
+    private static final long CLICK_INTERVAL_MILLIS = 50;
+    private static final long DEATH_SCREEN_MILLIS = 2500;  // Until the death screen's own timer has fired
+    private static final long RUN_TIMEOUT_MILLIS = 120_000;
+    private static final long SEED = 1;
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        long slackBytes = (args.length > 1 ? Long.parseLong(args[1]) : 4) * 1024 * 1024;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        PrintStream out = System.out;
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+
+        GameLogic game = GameLogic.getInstance();
+        GamePanel[] panel = new GamePanel[1];
+        SwingUtilities.invokeAndWait(() -> {
+            panel[0] = new GamePanel();
+            panel[0].setSize(WIDTH, HEIGHT);
+        });
+        Player player = new Player(game, panel[0]);
+
+        out.println("=== Soak Check ===");
+        out.println(runs + " runs, heap slack " + slackBytes / (1024 * 1024) + " MB");
+        out.printf("%8s %8s %10s %12s %12s%n", "runs", "timers", "threads", "heap MB", "images MB");
+
+        System.setOut(quiet);
+        player.playRuns(WARMUP_RUNS); // Let lazily started threads and caches settle
+        ImageCache images = panel[0].getImageCache();
+        int baseTimers = liveTimers(game, panel[0]);
+        int baseThreads = threads.getThreadCount();
+        long baseHeap = usedHeapAfterGc() - images.getResidentBytes();
+        sample(out, 0, baseTimers, baseThreads, baseHeap, images);
+
+        int maxTimers = baseTimers;
+        int maxThreads = baseThreads;
+        long maxHeap = baseHeap;
+        for (int done = 0; done < runs; ) {
+            int batch = Math.min(SAMPLE_INTERVAL, runs - done);
+            System.setOut(quiet);
+            player.playRuns(batch);
+            done += batch;
+            int timers = liveTimers(game, panel[0]);
+            int threadCount = threads.getThreadCount();
+            long heap = usedHeapAfterGc() - images.getResidentBytes();
+            sample(out, done, timers, threadCount, heap, images);
+            maxTimers = Math.max(maxTimers, timers);
+            maxThreads = Math.max(maxThreads, threadCount);
+            maxHeap = Math.max(maxHeap, heap);
+        }
+        SwingUtilities.invokeAndWait(panel[0]::dispose);
+
+        boolean timersGrew = maxTimers > baseTimers;
+        boolean threadsGrew = maxThreads > baseThreads;
+        boolean heapGrew = maxHeap > baseHeap + slackBytes;
+        if (timersGrew || threadsGrew || heapGrew) {
+            System.out.println("Grew over the soak:" + (timersGrew ? " timers " + baseTimers + " -> " + maxTimers : "")
+                    + (threadsGrew ? " threads " + baseThreads + " -> " + maxThreads : "")
+                    + (heapGrew ? String.format(" heap %.1f -> %.1f MB", baseHeap / 1048576.0, maxHeap / 1048576.0) : ""));
+            System.exit(1);
+        }
+        System.out.println("Timers, thread count and heap stayed flat");
+        System.exit(0);
+    }
+
+    // Plays runs by clicking, as a player would
+    private static final class Player {
+        final GameLogic game;
+        final GamePanel panel;
+        final MouseListener mouse;
+        final Random random = new Random(SEED);
+        final Rectangle[] cards = new Rectangle[GameLogic.HAND_SIZE];
+        final Rectangle[] upgrades = new Rectangle[GameRenderer.UPGRADE_COUNT];
+
+        Player(GameLogic game, GamePanel panel) {
+            this.game = game;
+            this.panel = panel;
+            mouse = panel.getMouseListeners()[0];
+            DrawingArea area = GameRenderer.layout(WIDTH, HEIGHT);
+            for (int i = 0; i < cards.length; i++) {
+                cards[i] = GameRenderer.cardArea(area, i);
+            }
+            for (int i = 0; i < upgrades.length; i++) {
+                upgrades[i] = GameRenderer.upgradeButtonArea(area, i);
+            }
+        }
+
+        /**
+         * Plays runs, each until the player dies and the death screen has run out.
+         */
+        void playRuns(int runs) throws Exception {
+            for (int i = 0; i < runs; i++) {
+                playRun();
+            }
+        }
+
+        private void playRun() throws Exception {
+            SwingUtilities.invokeAndWait(() -> {
+                panel.pause();
+                game.completeReset();
+                panel.reset();
+                panel.start();
+                panel.initializeCenterSpriteAnimation();
+            });
+            long deadline = System.currentTimeMillis() + RUN_TIMEOUT_MILLIS;
+            boolean[] dead = new boolean[1];
+            while (!dead[0]) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("A run did not end within " + RUN_TIMEOUT_MILLIS + " ms");
+                }
+                SwingUtilities.invokeAndWait(() -> {
+                    dead[0] = game.isPlayerDead();
+                    if (dead[0]) return;
+                    if (game.isGameOver()) {
+                        click(upgrades[random.nextInt(upgrades.length)]);
+                    } else {
+                        for (Rectangle card : cards) {
+                            click(card); // Slots still fading out ignore the click
+                        }
+                    }
+                });
+                Thread.sleep(CLICK_INTERVAL_MILLIS);
+            }
+            Thread.sleep(DEATH_SCREEN_MILLIS);
+        }
+
+        private void click(Rectangle area) {
+            mouse.mouseClicked(new MouseEvent(panel, MouseEvent.MOUSE_CLICKED, System.currentTimeMillis(), 0,
+                    (int)area.getCenterX(), (int)area.getCenterY(), 1, false));
+        }
+    }
+
+    private static int liveTimers(GameLogic game, GamePanel panel) throws Exception {
+        int[] count = new int[1];
+        SwingUtilities.invokeAndWait(() -> count[0] = panel.getLiveTimerCount() + game.getPendingAttackCount());
+        return count[0];
+    }
+
+    private static void sample(PrintStream out, int runs, int timers, int threadCount, long heap, ImageCache images) {
+        System.setOut(out);
+        System.out.printf("%8d %8d %10d %12.1f %12.1f%n", runs, timers, threadCount, heap / 1048576.0,
+                images.getResidentBytes() / 1048576.0);
+    }
+
+    // Read straight after the last collection, before the EDT and render thread allocate again
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(50);
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,194 @@
+import javax.swing.*;
+import java.awt.*;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * SpectatorClient follows a game over its SpectatorFeed and shows it in a
+ * window of its own, drawn by the same GameRenderer as the game, or prints
+ * each state with --print. The state is rebuilt from the feed's keyframes and
+ * deltas; a delta that does not follow the last frame means frames were
+ * dropped, so nothing is shown from then until the next keyframe. The client
+ * reconnects when the game restarts.
+ *
+ * Run from the game directory so the catalogs and sprites load.
+ *
+ * Usage: java SpectatorClient port [--print]
+ */
+public class SpectatorClient {
+    private static final long RECONNECT_MILLIS = 1000;
+    private static final double BASE_ROTATION = 7.0; // Resting card tilt, as in GamePanel
+
+    private final CardCatalog cards = CardCatalog.load(CardCatalog.DEFAULT_CATALOG_FILE);
+    private final EnemyCatalog enemies = EnemyCatalog.load(EnemyCatalog.DEFAULT_CATALOG_FILE);
+    private final int port;
+    private final boolean print;
+    private JFrame frame;
+    private SpectatorView view;
+
+    // The view: the latest state drawn at the window's size
+    private final class SpectatorView extends JPanel {
+        private final GameRenderer renderer = new GameRenderer(cards);
+        private final double[] scales = new double[GameLogic.HAND_SIZE];
+        private final double[] rotations = new double[GameLogic.HAND_SIZE];
+        private final double[] alphas = new double[GameLogic.HAND_SIZE];
+        private final int[] hand = new int[GameLogic.HAND_SIZE];
+        private int[] state; // Null until the first keyframe
+
+        SpectatorView() {
+            for (int i = 0; i < GameLogic.HAND_SIZE; i++) {
+                scales[i] = 1.0;
+                rotations[i] = i < 2 ? -BASE_ROTATION : BASE_ROTATION;
+                alphas[i] = 1.0;
+            }
+            setPreferredSize(new Dimension(800, 600));
+        }
+
+        void show(int[] state) {
+            this.state = state;
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (state == null) {
+                g.setColor(Color.BLACK);
+                g.fillRect(0, 0, getWidth(), getHeight());
+                return;
+            }
+            System.arraycopy(state, SpectatorFeed.HAND, hand, 0, hand.length);
+            int enemy = state[SpectatorFeed.ENEMY];
+            boolean dead = (state[SpectatorFeed.FLAGS] & SpectatorFeed.FLAG_PLAYER_DEAD) != 0;
+            boolean won = !dead && (state[SpectatorFeed.FLAGS] & SpectatorFeed.FLAG_GAME_OVER) != 0;
+            int round = state[SpectatorFeed.ENEMIES_DEFEATED] + 1;
+            FrameSnapshot snapshot = new FrameSnapshot(getWidth(), getHeight(), spritePath(enemy), enemyName(enemy),
+                    state[SpectatorFeed.HP], state[SpectatorFeed.DEF], state[SpectatorFeed.ENEMY_HP], round,
+                    round, null, dead, won, -1,
+                    hand, scales, rotations, alphas,
+                    1.0, getWidth() / 2, getHeight() / 2,
+                    false, false, false, 0, 0, 0, 0, 0);
+            renderer.render((Graphics2D)g, snapshot);
+        }
+    }
+
+    private SpectatorClient(int port, boolean print) {
+        this.port = port;
+        this.print = print;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java SpectatorClient port [--print]");
+            System.exit(2);
+        }
+        boolean print = args.length > 1 && args[1].equals("--print");
+        new SpectatorClient(Integer.parseInt(args[0]), print).run();
+    }
+
+    private void run() {
+        if (!print) {
+            SwingUtilities.invokeLater(() -> {
+                view = new SpectatorView();
+                frame = new JFrame("Marrow spectator");
+                frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                frame.setContentPane(view);
+                frame.pack();
+                frame.setVisible(true);
+            });
+        }
+        while (true) {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                System.out.println("Connected to localhost:" + port);
+                follow(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+            } catch (EOFException e) {
+                System.out.println("The game closed the spectator feed, reconnecting");
+            } catch (IOException e) {
+                System.out.println("Spectator feed unavailable (" + e.getMessage() + "), retrying");
+            }
+            try {
+                Thread.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies frames until the connection ends.
+     */
+    private void follow(DataInputStream in) throws IOException {
+        SpectatorFeed.readHeader(in);
+        int[] state = new int[SpectatorFeed.FIELD_COUNT];
+        int[] fields = new int[SpectatorFeed.FIELD_COUNT]; // The frame just read, applied only if it is newer
+        long[] header = new long[2];
+        long last = -1;
+        boolean synced = false;
+        while (true) {
+            byte type = SpectatorFeed.readFrame(in, fields, header);
+            long sequence = header[0];
+            if (type == SpectatorFeed.KEYFRAME) {
+                if (synced && sequence <= last) continue; // Periodic keyframe with nothing new
+                synced = true;
+            } else if (sequence <= last) {
+                continue; // Queued before a keyframe that already showed it
+            } else if (synced && sequence > last + 1) {
+                System.out.println("Missed frames " + (last + 1) + " to " + (sequence - 1) + ", waiting for a keyframe");
+                synced = false;
+            }
+            last = sequence;
+            if (!synced) continue;
+            SpectatorFeed.apply(fields, header[1], state);
+
+            if (print) {
+                System.out.println(describe(type, sequence, state));
+            } else {
+                int[] copy = state.clone();
+                SwingUtilities.invokeLater(() -> {
+                    view.show(copy);
+                    frame.setTitle("Marrow spectator - round " + (copy[SpectatorFeed.ENEMIES_DEFEATED] + 1)
+                            + " - armor " + copy[SpectatorFeed.ENEMY_ARMOR]
+                            + " - next " + cardName(copy[SpectatorFeed.NEXT_CARD]));
+                });
+            }
+        }
+    }
+
+    private String describe(byte type, long sequence, int[] state) {
+        StringBuilder line = new StringBuilder();
+        line.append((char)type).append(sequence)
+                .append(" round ").append(state[SpectatorFeed.ENEMIES_DEFEATED] + 1)
+                .append(" hp ").append(state[SpectatorFeed.HP])
+                .append(" def ").append(state[SpectatorFeed.DEF])
+                .append(" enemy ").append(enemyName(state[SpectatorFeed.ENEMY]))
+                .append(" hp ").append(state[SpectatorFeed.ENEMY_HP])
+                .append(" armor ").append(state[SpectatorFeed.ENEMY_ARMOR])
+                .append(" next ").append(cardName(state[SpectatorFeed.NEXT_CARD]))
+                .append(" hand");
+        for (int slot = 0; slot < GameLogic.HAND_SIZE; slot++) {
+            line.append(slot == 0 ? " " : ", ").append(cardName(state[SpectatorFeed.HAND + slot]));
+        }
+        if ((state[SpectatorFeed.FLAGS] & SpectatorFeed.FLAG_PLAYER_DEAD) != 0) {
+            line.append(" (dead)");
+        } else if ((state[SpectatorFeed.FLAGS] & SpectatorFeed.FLAG_GAME_OVER) != 0) {
+            line.append(" (won)");
+        }
+        return line.toString();
+    }
+
+    private String cardName(int id) {
+        return id >= 0 && id < cards.size() ? cards.getName(id) : "-";
+    }
+
+    // Sprite of an enemy id; out of range ids, as from a newer catalog, get GameLogic's default
+    private String spritePath(int id) {
+        return id >= 0 && id < enemies.size() ? enemies.getSpritePath(id) : "sprites/Enemies/yellow frederick.png";
+    }
+
+    private String enemyName(int id) {
+        return id >= 0 && id < enemies.size() ? enemies.getName(id) : "yellow frederick";
+    }
+}
@@ -0,0 +1,324 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SpectatorFeed broadcasts the game's state to spectator processes over a
+ * localhost socket, so stream and overlay displays can follow one running
+ * game (see SpectatorClient). GameLogic publishes after every change; only
+ * the fields that changed are sent, as a delta of a few bytes. Each client
+ * gets a keyframe with every field when it connects, whenever it falls
+ * behind, and every KEYFRAME_INTERVAL_MILLIS, which also shows the
+ * connection is alive.
+ *
+ * Enabled with -Dmarrow.spectatorPort=port. Each client has its own writer
+ * thread and a bounded queue, so a slow spectator never blocks the game: when
+ * its queue is full the queued deltas are dropped for a keyframe.
+ *
+ * Stream: magic (int), version (short), field count (byte), then frames.
+ * Frame: type (byte, KEYFRAME or DELTA), sequence number (varint), mask of
+ * the fields present (varint, bit i for field i), then each present field as
+ * a zigzag varint. A delta applies to the state at the previous sequence
+ * number; a keyframe carries every field. A keyframe can be written ahead of
+ * deltas already queued, so readers drop frames no newer than the last one
+ * they applied.
+ */
+public class SpectatorFeed {
+    static final int MAGIC = 0x4D535046; // "MSPF"
+    static final short VERSION = 1;
+    static final byte KEYFRAME = 'K';
+    static final byte DELTA = 'D';
+
+    // Fields, by index
+    static final int HP = 0;
+    static final int DEF = 1;
+    static final int ENEMY_HP = 2;
+    static final int ENEMY_ARMOR = 3;
+    static final int ENEMIES_DEFEATED = 4;
+    static final int ENEMY = 5;          // EnemyCatalog id, -1 for the default sprite
+    static final int NEXT_CARD = 6;      // CardCatalog id on top of the draw pile, -1 if empty
+    static final int FLAGS = 7;
+    static final int HAND = 8;           // HAND_SIZE card ids, -1 for an empty slot
+    static final int FIELD_COUNT = HAND + GameLogic.HAND_SIZE;
+    static final int FLAG_GAME_OVER = 1;
+    static final int FLAG_PLAYER_DEAD = 2;
+
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long KEYFRAME_INTERVAL_MILLIS = 2000;
+    private static final int ALL_FIELDS = (1 << FIELD_COUNT) - 1;
+
+    private final ServerSocket server;
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private volatile boolean open = true;
+
+    // Guarded by this
+    private final int[] state = new int[FIELD_COUNT];
+    private final int[] current = new int[FIELD_COUNT];
+    private long sequence = 0;
+    private byte[] keyframe;
+    private long deltaBytes = 0;
+    private long deltas = 0;
+
+    // A connected spectator and the frames waiting to be written to it
+    private final class Client implements Runnable {
+        final Socket socket;
+        final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        byte[] firstKeyframe; // Taken when the client was added, so every queued delta is newer
+
+        Client(Socket socket) {
+            this.socket = socket;
+        }
+
+        void send(byte[] delta, byte[] keyframe) {
+            if (!queue.offer(delta)) {
+                // Too far behind: the keyframe replaces everything it has not been sent
+                queue.clear();
+                queue.offer(keyframe);
+            }
+        }
+
+        @Override
+        public void run() {
+            try (Socket s = socket; OutputStream out = new BufferedOutputStream(s.getOutputStream())) {
+                DataOutputStream header = new DataOutputStream(out);
+                header.writeInt(MAGIC);
+                header.writeShort(VERSION);
+                header.writeByte(FIELD_COUNT);
+                out.write(firstKeyframe);
+                out.flush();
+                while (open) {
+                    byte[] frame = queue.poll(KEYFRAME_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    out.write(frame != null ? frame : nextOrKeyframe(this));
+                    if (queue.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Spectator disconnected: " + socket.getRemoteSocketAddress());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                clients.remove(this);
+            }
+        }
+    }
+
+    private SpectatorFeed(ServerSocket server) {
+        this.server = server;
+        keyframe = encode(KEYFRAME, ALL_FIELDS);
+        Thread acceptor = new Thread(this::acceptLoop, "spectator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Opens a feed on a localhost port.
+     * @throws IOException If the port cannot be bound
+     */
+    public static SpectatorFeed open(int port) throws IOException {
+        return new SpectatorFeed(new ServerSocket(port, 8, InetAddress.getLoopbackAddress()));
+    }
+
+    /**
+     * Opens the feed on -Dmarrow.spectatorPort.
+     * @return The feed, or null if the property is not set or the port cannot be bound
+     */
+    public static SpectatorFeed fromSystemProperty() {
+        Integer port = Integer.getInteger("marrow.spectatorPort");
+        if (port == null) return null;
+        try {
+            SpectatorFeed feed = open(port);
+            System.out.println("Spectator feed on localhost:" + feed.getPort());
+            return feed;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public int getPort() { return server.getLocalPort(); }
+    public int getClientCount() { return clients.size(); }
+
+    private void acceptLoop() {
+        while (open) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Client client = new Client(socket);
+                synchronized (this) {
+                    client.firstKeyframe = keyframe;
+                    clients.add(client);
+                }
+                Thread writer = new Thread(client, "spectator-" + socket.getPort());
+                writer.setDaemon(true);
+                writer.start();
+                System.out.println("Spectator connected: " + socket.getRemoteSocketAddress());
+            } catch (IOException e) {
+                if (open) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends whatever changed in the game since the last publish to every
+     * spectator. Does nothing, and allocates nothing, if nothing changed.
+     */
+    public synchronized void publish(GameLogic game) {
+        current[HP] = game.getHpCounter();
+        current[DEF] = game.getDefCounter();
+        current[ENEMY_HP] = game.getEnemyHP();
+        current[ENEMY_ARMOR] = game.getEnemyArmor();
+        current[ENEMIES_DEFEATED] = game.getEnemiesDefeated();
+        current[ENEMY] = game.getCurrentEnemyId();
+        current[NEXT_CARD] = game.getNextCard();
+        current[FLAGS] = (game.isGameOver() ? FLAG_GAME_OVER : 0) | (game.isPlayerDead() ? FLAG_PLAYER_DEAD : 0);
+        for (int slot = 0; slot < GameLogic.HAND_SIZE; slot++) {
+            current[HAND + slot] = game.getHandCard(slot);
+        }
+
+        int mask = 0;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if (current[i] != state[i]) {
+                mask |= 1 << i;
+                state[i] = current[i];
+            }
+        }
+        if (mask == 0) return;
+
+        sequence++;
+        byte[] delta = encode(DELTA, mask);
+        keyframe = encode(KEYFRAME, ALL_FIELDS);
+        deltas++;
+        deltaBytes += delta.length;
+        for (Client client : clients) {
+            client.send(delta, keyframe);
+        }
+    }
+
+    // A frame publish queued since the client's poll timed out, or else the keyframe, which is then the newest
+    private synchronized byte[] nextOrKeyframe(Client client) {
+        byte[] frame = client.queue.poll();
+        return frame != null ? frame : keyframe;
+    }
+
+    private byte[] encode(byte type, int mask) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + 5 + 5 * FIELD_COUNT);
+        out.write(type);
+        writeVarint(out, sequence);
+        writeVarint(out, mask);
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if ((mask & (1 << i)) != 0) {
+                writeVarint(out, ((state[i] << 1) ^ (state[i] >> 31)) & 0xFFFFFFFFL); // Zigzag, so -1 takes one byte
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int)(value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int)value);
+    }
+
+    /**
+     * Average delta size so far, for the log.
+     */
+    public synchronized String getStats() {
+        return deltas + " deltas, " + (deltas > 0 ? String.format("%.1f", (double)deltaBytes / deltas) : "0")
+                + " bytes each, keyframe " + keyframe.length + " bytes, " + clients.size() + " spectators";
+    }
+
+    /**
+     * Stops accepting spectators and disconnects the connected ones.
+     */
+    public void close() {
+        open = false;
+        try {
+            server.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (Client client : clients) {
+            try {
+                client.socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Reads the stream header.
+     * @throws IOException If the stream is not a spectator feed of this version
+     */
+    static void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a spectator feed");
+        }
+        short version = in.readShort();
+        int fields = in.readUnsignedByte();
+        if (version != VERSION || fields != FIELD_COUNT) {
+            throw new IOException("Unsupported spectator feed version " + version + " with " + fields + " fields");
+        }
+    }
+
+    /**
+     * Reads one frame without applying it: the fields it carries go into
+     * fields, its sequence number and field mask into header[0] and header[1].
+     * @return The frame's type, KEYFRAME or DELTA
+     * @throws EOFException At the end of the stream
+     */
+    static byte readFrame(DataInputStream in, int[] fields, long[] header) throws IOException {
+        byte type = in.readByte();
+        if (type != KEYFRAME && type != DELTA) {
+            throw new IOException("Bad spectator frame type " + type);
+        }
+        header[0] = readVarint(in);
+        long mask = readVarint(in);
+        header[1] = mask;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if ((mask & (1L << i)) != 0) {
+                int value = (int)readVarint(in);
+                fields[i] = (value >>> 1) ^ -(value & 1);
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Copies the fields a frame carried, as read by readFrame, into the state.
+     */
+    static void apply(int[] fields, long mask, int[] state) {
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if ((mask & (1L << i)) != 0) {
+                state[i] = fields[i];
+            }
+        }
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Varint too long");
+    }
+}
@@ -0,0 +1,34 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * StartupTimer logs how long each startup phase took, measured from the
+ * first mark (main), so time to first frame can be followed across changes.
+ * Each phase is printed with the time since the previous one.
+ */
+public class StartupTimer {
+    private static final long ORIGIN_NANOS = System.nanoTime();
+    private static final long ORIGIN_MILLIS = System.currentTimeMillis();
+    private static long lastNanos = ORIGIN_NANOS;
+
+    private StartupTimer() {}
+
+    /**
+     * Logs that a phase of startup has finished.
+     */
+    public static synchronized void mark(String phase) {
+        long now = System.nanoTime();
+        System.out.printf("Startup: %-20s %6.0f ms (+%.0f ms)%n", phase, (now - ORIGIN_NANOS) / 1e6,
+                (now - lastNanos) / 1e6);
+        lastNanos = now;
+    }
+
+    /**
+     * Logs how long the JVM ran before the first mark. Reading the JVM's start
+     * time loads the management classes, tens of milliseconds, so this is
+     * called off the startup path.
+     */
+    public static void markJvmStart() {
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.out.println("Startup: JVM started " + (ORIGIN_MILLIS - jvmStart) + " ms before main");
+    }
+}
@@ -0,0 +1,193 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * TelemetryReport summarises a telemetry file written by RunTelemetry.
+ * The file is memory-mapped and read record by record into primitive
+ * aggregates, so millions of runs take seconds.
+ *
+ * Usage: java TelemetryReport [telemetry.bin] [--csv out.csv]
+ */
+public class TelemetryReport {
+    private static final int MAX_ROUND = 4096;
+    private static final long CHUNK_RECORDS = (64L << 20) / RunTelemetry.RECORD_SIZE;
+    private static final String[] UPGRADE_NAMES = {"Health", "Defense", "Attack", "Shield"};
+
+    // Aggregates
+    private long runs;
+    private long turns;
+    private long attacks;
+    private long crits;
+    private long armorBreaks;
+    private long defenseGained;
+    private long defenseAbsorbed;
+    private final long[] upgrades = new long[RunTelemetry.UPGRADE_TYPES];
+    private final long[] roundOfDeath = new long[MAX_ROUND + 1];
+    private final long[] damageDealt = new long[RunTelemetry.HISTOGRAM_BUCKETS];
+    private final long[] damageTaken = new long[RunTelemetry.HISTOGRAM_BUCKETS];
+
+    public static void main(String[] args) throws IOException {
+        String path = RunTelemetry.TELEMETRY_FILE;
+        String csvPath = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--csv") && i + 1 < args.length) {
+                csvPath = args[++i];
+            } else {
+                path = args[i];
+            }
+        }
+
+        TelemetryReport report = new TelemetryReport();
+        long start = System.nanoTime();
+        report.read(path);
+        long elapsed = System.nanoTime() - start;
+
+        report.print(path, elapsed);
+        if (csvPath != null) {
+            report.writeCsv(csvPath);
+            System.out.println("CSV written to " + csvPath);
+        }
+    }
+
+    /**
+     * Reads every complete record in the file. A partially written trailing record is ignored.
+     */
+    public void read(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < RunTelemetry.FILE_HEADER_SIZE) return;
+
+            ByteBuffer header = ByteBuffer.allocate(RunTelemetry.FILE_HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != RunTelemetry.MAGIC) {
+                throw new IOException("Not a telemetry file: " + path);
+            }
+            short version = header.getShort();
+            if (version != RunTelemetry.VERSION) {
+                throw new IOException("Unsupported telemetry version: " + version);
+            }
+
+            long records = (size - RunTelemetry.FILE_HEADER_SIZE) / RunTelemetry.RECORD_SIZE;
+            for (long first = 0; first < records; first += CHUNK_RECORDS) {
+                long count = Math.min(CHUNK_RECORDS, records - first);
+                long offset = RunTelemetry.FILE_HEADER_SIZE + first * RunTelemetry.RECORD_SIZE;
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, offset, count * RunTelemetry.RECORD_SIZE);
+                for (long r = 0; r < count; r++) {
+                    readRecord(chunk);
+                }
+            }
+        }
+    }
+
+    private void readRecord(ByteBuffer in) {
+        runs++;
+        int round = in.getInt();
+        roundOfDeath[Math.max(0, Math.min(round, MAX_ROUND))]++;
+        turns += in.getInt();
+        attacks += in.getInt();
+        crits += in.getInt();
+        armorBreaks += in.getInt();
+        defenseGained += in.getInt();
+        defenseAbsorbed += in.getInt();
+        for (int i = 0; i < upgrades.length; i++) {
+            upgrades[i] += in.getInt();
+        }
+        for (int i = 0; i < damageDealt.length; i++) {
+            damageDealt[i] += in.getShort();
+        }
+        for (int i = 0; i < damageTaken.length; i++) {
+            damageTaken[i] += in.getShort();
+        }
+    }
+
+    private void print(String path, long elapsedNanos) {
+        System.out.println("=== Telemetry Report ===");
+        System.out.println("File: " + path);
+        System.out.printf("Runs: %d (read in %.1f ms)%n", runs, elapsedNanos / 1e6);
+        if (runs == 0) return;
+
+        System.out.printf("Round of death: mean %.2f, median %d, p90 %d, p99 %d, max %d%n",
+            mean(roundOfDeath), percentile(roundOfDeath, 0.5), percentile(roundOfDeath, 0.9),
+            percentile(roundOfDeath, 0.99), max(roundOfDeath));
+        System.out.printf("Turns per run: %.2f%n", (double)turns / runs);
+        System.out.printf("Crit frequency: %.3f%% (%d of %d attacks)%n",
+            attacks > 0 ? 100.0 * crits / attacks : 0.0, crits, attacks);
+        System.out.printf("Armor breaks per run: %.2f%n", (double)armorBreaks / runs);
+        System.out.printf("Defense gained per run: %.2f, absorbed per run: %.2f%n",
+            (double)defenseGained / runs, (double)defenseAbsorbed / runs);
+
+        long totalUpgrades = 0;
+        for (long count : upgrades) {
+            totalUpgrades += count;
+        }
+        System.out.println("Upgrade choices:");
+        for (int i = 0; i < upgrades.length; i++) {
+            System.out.printf("  %-8s %d (%.1f%%)%n", UPGRADE_NAMES[i], upgrades[i],
+                totalUpgrades > 0 ? 100.0 * upgrades[i] / totalUpgrades : 0.0);
+        }
+
+        System.out.printf("Damage dealt per turn: mean %.2f, median %d, p90 %d, p99 %d%n",
+            mean(damageDealt), percentile(damageDealt, 0.5), percentile(damageDealt, 0.9), percentile(damageDealt, 0.99));
+        System.out.printf("Damage taken per turn: mean %.2f, median %d, p90 %d, p99 %d%n",
+            mean(damageTaken), percentile(damageTaken, 0.5), percentile(damageTaken, 0.9), percentile(damageTaken, 0.99));
+    }
+
+    private void writeCsv(String path) throws IOException {
+        try (PrintWriter writer = new PrintWriter(path)) {
+            writer.println("metric,bucket,count");
+            writeHistogram(writer, "round_of_death", roundOfDeath);
+            writeHistogram(writer, "damage_dealt", damageDealt);
+            writeHistogram(writer, "damage_taken", damageTaken);
+            for (int i = 0; i < upgrades.length; i++) {
+                writer.println("upgrade," + UPGRADE_NAMES[i] + "," + upgrades[i]);
+            }
+        }
+    }
+
+    private static void writeHistogram(PrintWriter writer, String metric, long[] histogram) {
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] > 0) {
+                writer.println(metric + "," + i + "," + histogram[i]);
+            }
+        }
+    }
+
+    // Histogram helpers; the bucket index is the value
+
+    private static double mean(long[] histogram) {
+        long count = 0;
+        double sum = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            count += histogram[i];
+            sum += (double)i * histogram[i];
+        }
+        return count > 0 ? sum / count : 0.0;
+    }
+
+    private static int percentile(long[] histogram, double fraction) {
+        long count = 0;
+        for (long c : histogram) {
+            count += c;
+        }
+        long target = (long)Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= target && seen > 0) return i;
+        }
+        return 0;
+    }
+
+    private static int max(long[] histogram) {
+        for (int i = histogram.length - 1; i >= 0; i--) {
+            if (histogram[i] > 0) return i;
+        }
+        return 0;
+    }
+}
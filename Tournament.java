@@ -0,0 +1,452 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tournament plays many headless games side by side for the tiled tournament
+ * view. Bots play every board on one shared clock, with the same enemy attack
+ * delay and hit, flash and death screen timings as GamePanel, and each board
+ * is drawn by GameRenderer at thumbnail size into its own tile.
+ *
+ * Tiles are only redrawn while their picture changes: after a card, an enemy
+ * attack or an upgrade, and every EFFECT_STEP_MILLIS while a flash or damage
+ * number is fading. Every frame then just copies the tiles into place. Each board keeps its own
+ * renderer, so its posed card and sprite copies stay valid between frames,
+ * but all renderers share one ImageCache, so each sprite is decoded once, at
+ * tile size, for every board. Tiles narrower than MIN_CANVAS_WIDTH are drawn
+ * at that width and scaled down once per redraw, since the game's text is
+ * sized for a full window.
+ *
+ * Changed tiles are drawn in parallel on a fixed pool, since each board's
+ * renderer and tile are only touched by one thread at a time; the calling
+ * thread then copies the tiles into the frame. Not thread safe otherwise:
+ * advance and render are called from one thread.
+ */
+public class Tournament {
+    public static final int MAX_BOARDS = 64;
+    public static final int DEFAULT_BOARDS = 16;
+    public static final String DEFAULT_POLICY = "greedy";
+
+    private static final long TURN_MILLIS = 1200;        // Time between a board's cards
+    private static final long TURN_JITTER_MILLIS = 600;  // Random extra, so boards do not move in step
+    private static final long ENEMY_ATTACK_DELAY = 500;  // As in GameLogic
+    private static final long FLASH_DURATION = 100;      // Timings below as in GamePanel
+    private static final long ENEMY_FLASH_DURATION = 200;
+    private static final long DAMAGE_DISPLAY_DURATION = 300;
+    private static final long DEATH_SCREEN_DURATION = 2000;
+    private static final long UPGRADE_DISPLAY_MILLIS = 800; // How long the bot "looks at" the upgrades
+    private static final int SHAKE_INTENSITY = 2;
+    private static final int SHAKE_FREQUENCY = 2;
+    private static final double BASE_ROTATION = 7.0;
+    private static final long EFFECT_STEP_MILLIS = 33;  // Flashes and fades step at 30 fps, plenty at tile size
+    private static final int TILE_GAP = 2;
+    private static final int MIN_CANVAS_WIDTH = 400; // Smaller tiles are drawn at this width and scaled down, so text fits
+
+    // One game on the board, with its effect timings and tile
+    private static final class Board {
+        final GameRenderer renderer;
+        final SimulationPolicy policy;
+        final Random timing;
+        GameLogic game;
+        int bestRound = 1;
+
+        long nextTurn;
+        long enemyAttackAt = -1;
+        long upgradeUntil = -1;
+        long deathUntil = -1;
+        long flashStart = -1;
+        long enemyFlashStart = -1;
+        long damageStart = -1;
+        int defBeforeCard;
+        boolean armorBreak;
+        int lastDamage;
+
+        // Reused for each snapshot, which is drawn before they are refilled
+        final int[] hand = new int[GameLogic.HAND_SIZE];
+        final double[] scales = new double[GameLogic.HAND_SIZE];
+        final double[] rotations = new double[GameLogic.HAND_SIZE];
+        final double[] alphas = new double[GameLogic.HAND_SIZE];
+
+        BufferedImage tile;
+        BufferedImage canvas;       // Drawn into first when the tile is too small for the game's text
+        Graphics2D canvasGraphics;
+        boolean dirty = true;      // Picture changed since the tile was drawn
+        boolean draftTile = false; // Tile was last drawn in draft quality
+        boolean animated = false;  // Tile was last drawn mid-effect, so it changes again
+        long drawnAt;
+        int tileWidth;             // How to draw it this frame
+        int tileHeight;
+        boolean draftTarget;
+
+        Board(GameRenderer renderer, SimulationPolicy policy, Random timing) {
+            this.renderer = renderer;
+            this.policy = policy;
+            this.timing = timing;
+            for (int i = 0; i < GameLogic.HAND_SIZE; i++) {
+                scales[i] = 1.0;
+                rotations[i] = i < 2 ? -BASE_ROTATION : BASE_ROTATION;
+                alphas[i] = 1.0;
+            }
+        }
+
+        boolean isAnimating(long now) {
+            return (flashStart >= 0 && now - flashStart < FLASH_DURATION)
+                    || (enemyFlashStart >= 0 && now - enemyFlashStart < ENEMY_FLASH_DURATION)
+                    || (damageStart >= 0 && now - damageStart < DAMAGE_DISPLAY_DURATION);
+        }
+    }
+
+    private final BalanceConfig config;
+    private final ImageCache images;
+    private final Board[] boards;
+    private final ExecutorService tilePool; // Null when drawing on the calling thread only
+    private final List<Callable<Void>> tileTasks = new ArrayList<>();
+    private final Board[] changed;           // Boards to redraw this frame, first changedCount used
+    private int changedCount;
+    private long nextSeed;
+    private long now = 0;
+    private int runsFinished = 0;
+
+    // Tile layout of the last frame
+    private int frameWidth = -1;
+    private int frameHeight = -1;
+    private int columns;
+    private int cellWidth;
+    private int cellHeight;
+    private int offsetX;
+    private int offsetY;
+
+    /**
+     * Creates the boards, each starting its first run.
+     * @param boardCount Number of boards, 1 to MAX_BOARDS
+     * @param policyName Bot policy, as for SimulationPolicy.byName
+     * @param seed Seed for the runs and turn timings
+     * @param threads Threads drawing changed tiles, 1 to draw on the calling thread only
+     * @throws IllegalArgumentException If the count is out of range or the policy is unknown
+     */
+    public Tournament(int boardCount, String policyName, long seed, int threads) {
+        if (boardCount < 1 || boardCount > MAX_BOARDS) {
+            throw new IllegalArgumentException("Boards must be between 1 and " + MAX_BOARDS + ": " + boardCount);
+        }
+        config = BalanceConfig.load(BalanceConfig.DEFAULT_CONFIG_FILE);
+        images = new ImageCache(ImageCache.DEFAULT_BUDGET_BYTES);
+        nextSeed = seed;
+        boards = new Board[boardCount];
+        changed = new Board[boardCount];
+        for (int i = 0; i < boardCount; i++) {
+            GameLogic game = new GameLogic(config, nextSeed++);
+            Board board = new Board(new GameRenderer(game.getCardCatalog(), images),
+                    SimulationPolicy.byName(policyName, seed + i), new Random(seed + i));
+            board.game = game;
+            board.nextTurn = turnDelay(board);
+            boards[i] = board;
+        }
+
+        if (threads > 1) {
+            tilePool = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "tournament-tiles");
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                tileTasks.add(() -> {
+                    // Every threads-th changed board, so neighbouring effects spread across threads
+                    for (int i = first; i < changedCount; i += threads) {
+                        drawTile(changed[i]);
+                    }
+                    return null;
+                });
+            }
+        } else {
+            tilePool = null;
+        }
+    }
+
+    /**
+     * The board count from -Dmarrow.tournamentBoards, clamped to 1..MAX_BOARDS.
+     */
+    public static int boardsFromSystemProperty() {
+        int boards = Integer.getInteger("marrow.tournamentBoards", DEFAULT_BOARDS);
+        return Math.max(1, Math.min(MAX_BOARDS, boards));
+    }
+
+    /**
+     * The tile drawing threads from -Dmarrow.tournamentThreads, one per core by default.
+     */
+    public static int threadsFromSystemProperty() {
+        return Math.max(1, Integer.getInteger("marrow.tournamentThreads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    public int size() { return boards.length; }
+    public int getRunsFinished() { return runsFinished; }
+    public ImageCache getImageCache() { return images; }
+
+    /**
+     * The best round reached on any board so far.
+     */
+    public int getBestRound() {
+        int best = 0;
+        for (Board board : boards) {
+            best = Math.max(best, Math.max(board.bestRound, board.game.getEnemiesDefeated() + 1));
+        }
+        return best;
+    }
+
+    /**
+     * Moves the tournament clock forward and plays whatever each board's bot
+     * has due by then: at most one card, attack or upgrade per board per call.
+     * @param nowMillis The tournament clock, never going back
+     */
+    public void advance(long nowMillis) {
+        now = nowMillis;
+        for (Board board : boards) {
+            advance(board);
+        }
+    }
+
+    private void advance(Board board) {
+        GameLogic game = board.game;
+        if (board.deathUntil >= 0) {
+            if (now >= board.deathUntil) {
+                startRun(board);
+            }
+            return;
+        }
+        if (board.upgradeUntil >= 0) {
+            if (now >= board.upgradeUntil) {
+                // Next enemy, then the upgrade, as GamePanel.chooseUpgrade does
+                board.upgradeUntil = -1;
+                game.resetGame();
+                game.applyUpgrade(board.policy.chooseUpgrade(game));
+                board.nextTurn = now + turnDelay(board);
+                board.dirty = true;
+                prefetch(game);
+            }
+            return;
+        }
+        if (board.enemyAttackAt >= 0) {
+            if (now >= board.enemyAttackAt) {
+                board.enemyAttackAt = -1;
+                game.handleEnemyAttack();
+                board.armorBreak = board.defBeforeCard > 0 && game.getDefCounter() == 0;
+                board.flashStart = now;
+                board.dirty = true;
+                if (game.isPlayerDead()) {
+                    endRun(board);
+                }
+            }
+            return;
+        }
+        if (now >= board.nextTurn) {
+            board.defBeforeCard = game.getDefCounter();
+            int enemyHP = game.getEnemyHP();
+            game.handleCardClick(board.policy.chooseCard(game));
+            int damage = enemyHP - game.getEnemyHP();
+            if (damage > 0) {
+                board.lastDamage = damage;
+                board.damageStart = now;
+                board.enemyFlashStart = now;
+            }
+            board.dirty = true;
+            if (game.isPlayerDead()) {
+                endRun(board);
+            } else if (game.isGameOver()) {
+                board.upgradeUntil = now + UPGRADE_DISPLAY_MILLIS;
+            } else {
+                board.enemyAttackAt = now + ENEMY_ATTACK_DELAY;
+            }
+            board.nextTurn = now + turnDelay(board);
+        }
+    }
+
+    private void endRun(Board board) {
+        board.bestRound = Math.max(board.bestRound, board.game.getEnemiesDefeated() + 1);
+        board.deathUntil = now + DEATH_SCREEN_DURATION;
+        runsFinished++;
+    }
+
+    private void startRun(Board board) {
+        board.game = new GameLogic(config, nextSeed++);
+        board.deathUntil = -1;
+        board.flashStart = -1;
+        board.enemyFlashStart = -1;
+        board.damageStart = -1;
+        board.nextTurn = now + turnDelay(board);
+        board.dirty = true;
+        prefetch(board.game);
+    }
+
+    private long turnDelay(Board board) {
+        return TURN_MILLIS + board.timing.nextInt((int)TURN_JITTER_MILLIS + 1);
+    }
+
+    // Every renderer shares the cache and the tile size, so one loads the next sprite for all of them
+    private void prefetch(GameLogic game) {
+        boards[0].renderer.prefetchSprite(game.getNextSpritePath());
+    }
+
+    /**
+     * Draws every board into a width x height frame: boards whose picture
+     * changed are redrawn into their tiles, then all tiles are copied in.
+     * @param draft Whether changed tiles are drawn in draft quality
+     * @return The number of tiles redrawn
+     */
+    public int render(Graphics2D g, int width, int height, boolean draft) {
+        if (width != frameWidth || height != frameHeight) {
+            layout(width, height);
+        }
+        int tileWidth = cellWidth - TILE_GAP;
+        int tileHeight = cellHeight - TILE_GAP;
+
+        changedCount = 0;
+        for (Board board : boards) {
+            if (tileWidth > 0 && tileHeight > 0
+                    && (board.dirty || board.tile == null || (board.draftTile && !draft)
+                        || (board.animated && now - board.drawnAt >= EFFECT_STEP_MILLIS))) {
+                board.dirty = false;
+                board.animated = board.isAnimating(now); // One more draw once the effect has ended
+                board.drawnAt = now;
+                board.draftTarget = draft;
+                board.tileWidth = tileWidth;
+                board.tileHeight = tileHeight;
+                changed[changedCount++] = board;
+            }
+        }
+        if (tilePool == null || changedCount <= 1) {
+            for (int i = 0; i < changedCount; i++) {
+                drawTile(changed[i]);
+            }
+        } else {
+            try {
+                tilePool.invokeAll(tileTasks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+        for (int i = 0; i < boards.length; i++) {
+            if (boards[i].tile == null) continue;
+            int x = offsetX + (i % columns) * cellWidth;
+            int y = offsetY + (i / columns) * cellHeight;
+            g.drawImage(boards[i].tile, x, y, null);
+        }
+        return changedCount;
+    }
+
+    /**
+     * Picks the column count that gives the largest 4:3 game area per board,
+     * and centres the grid in the frame.
+     */
+    private void layout(int width, int height) {
+        frameWidth = width;
+        frameHeight = height;
+        int bestArea = -1;
+        for (int cols = 1; cols <= boards.length; cols++) {
+            int rows = (boards.length + cols - 1) / cols;
+            DrawingArea area = GameRenderer.layout(width / cols, height / rows);
+            if (area.width > bestArea) {
+                bestArea = area.width;
+                columns = cols;
+            }
+        }
+        int rows = (boards.length + columns - 1) / columns;
+        DrawingArea area = GameRenderer.layout(width / columns, height / rows);
+        cellWidth = area.width;
+        cellHeight = area.height;
+        offsetX = (width - columns * cellWidth + TILE_GAP) / 2;
+        offsetY = (height - rows * cellHeight + TILE_GAP) / 2;
+    }
+
+    private void drawTile(Board board) {
+        int width = board.tileWidth;
+        int height = board.tileHeight;
+        boolean draft = board.draftTarget;
+        if (board.tile == null || board.tile.getWidth() != width || board.tile.getHeight() != height) {
+            board.tile = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            releaseCanvas(board);
+            int canvasWidth = Math.max(width, MIN_CANVAS_WIDTH);
+            int canvasHeight = (int)((long)height * canvasWidth / width);
+            board.canvas = canvasWidth == width ? board.tile
+                    : new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_RGB);
+        }
+        if (board.canvasGraphics == null) {
+            board.canvasGraphics = board.canvas.createGraphics();
+        }
+        try {
+            board.renderer.render(board.canvasGraphics,
+                    snapshot(board, board.canvas.getWidth(), board.canvas.getHeight()), draft);
+        } catch (Exception e) {
+            e.printStackTrace();
+            releaseCanvas(board); // Start the next draw from a clean state
+        }
+        if (board.canvas != board.tile) {
+            Graphics2D g = board.tile.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, draft
+                    ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(board.canvas, 0, 0, width, height, null);
+            g.dispose();
+        }
+        board.draftTile = draft;
+    }
+
+    private static void releaseCanvas(Board board) {
+        if (board.canvasGraphics != null) {
+            board.canvasGraphics.dispose();
+            board.canvasGraphics = null;
+        }
+    }
+
+    private FrameSnapshot snapshot(Board board, int width, int height) {
+        GameLogic game = board.game;
+        for (int i = 0; i < board.hand.length; i++) {
+            board.hand[i] = game.getHandCard(i);
+        }
+
+        boolean enemyFlashing = board.enemyFlashStart >= 0 && now - board.enemyFlashStart < ENEMY_FLASH_DURATION;
+        int shakeX = 0;
+        int shakeY = 0;
+        if (enemyFlashing) {
+            double progress = (double)(now - board.enemyFlashStart) / ENEMY_FLASH_DURATION;
+            double shakeProgress = progress * SHAKE_FREQUENCY * Math.PI * 2;
+            shakeX = (int)(Math.sin(shakeProgress) * SHAKE_INTENSITY);
+            shakeY = (int)(Math.cos(shakeProgress) * SHAKE_INTENSITY);
+        }
+        float damageAlpha = 0;
+        if (board.damageStart >= 0 && now - board.damageStart < DAMAGE_DISPLAY_DURATION) {
+            damageAlpha = 1.0f - (float)(now - board.damageStart) / DAMAGE_DISPLAY_DURATION;
+        }
+        boolean flashing = board.flashStart >= 0 && now - board.flashStart < FLASH_DURATION;
+
+        return new FrameSnapshot(width, height, game, board.bestRound, null, board.deathUntil >= 0,
+                board.upgradeUntil >= 0, -1,
+                board.hand, board.scales, board.rotations, board.alphas,
+                1.0, width / 2, height / 2,
+                flashing, board.armorBreak, enemyFlashing, shakeX, shakeY,
+                board.lastDamage, damageAlpha, 0);
+    }
+
+    /**
+     * Releases the tiles, the drawing threads, the renderers' prefetch threads and the shared cache.
+     */
+    public void dispose() {
+        if (tilePool != null) {
+            tilePool.shutdownNow();
+        }
+        for (Board board : boards) {
+            releaseCanvas(board);
+            board.tile = null;
+            board.canvas = null;
+            board.renderer.dispose();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * TournamentBenchmark plays a tournament headlessly on a simulated 60 fps
+ * clock and times every frame: the bots' moves, redrawing the changed tiles
+ * and copying all tiles into the frame, as TournamentPanel's render thread
+ * does. Frames are timed in full and in draft quality. Tiles are drawn on
+ * one thread per core unless a thread count is given.
+ *
+ * Run from the game directory so the sprites load, with -Djava.awt.headless=true.
+ *
+ * Usage: java TournamentBenchmark [boards] [seconds] [width] [height] [threads]
+ */
+public class TournamentBenchmark {
+    private static final double FRAME_MILLIS = 1000.0 / 60;
+    private static final double WARMUP_SECONDS = 10;
+    private static final long SEED = 1;
+
+    public static void main(String[] args) {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : Tournament.MAX_BOARDS;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 30;
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 1920;
+        int height = args.length > 3 ? Integer.parseInt(args[3]) : 1080;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Tournament.threadsFromSystemProperty();
+
+        System.out.println("=== Tournament Benchmark ===");
+        System.out.println(boards + " boards, " + width + "x" + height + ", " + seconds + " s of play at 60 fps, "
+                + threads + " drawing threads");
+        System.out.printf("%-6s %10s %10s %10s %10s %12s %10s%n",
+                "", "mean ms", "p99 ms", "max ms", "tiles", "over 16.7ms", "max fps");
+        measure("full", boards, seconds, width, height, threads, false);
+        measure("draft", boards, seconds, width, height, threads, true);
+    }
+
+    private static void measure(String name, int boards, double seconds, int width, int height, int threads,
+                                boolean draft) {
+        Tournament tournament = new Tournament(boards, Tournament.DEFAULT_POLICY, SEED, threads);
+        BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+
+        int warmup = (int)(WARMUP_SECONDS * 60);
+        int frames = (int)(seconds * 60);
+        long[] times = new long[frames];
+        long tiles = 0;
+        for (int i = 0; i < warmup + frames; i++) {
+            long start = System.nanoTime();
+            tournament.advance((long)(i * FRAME_MILLIS));
+            int redrawn = tournament.render(g, width, height, draft);
+            long elapsed = System.nanoTime() - start;
+            if (i >= warmup) {
+                times[i - warmup] = elapsed;
+                tiles += redrawn;
+            }
+        }
+        g.dispose();
+
+        long total = 0;
+        int over = 0;
+        for (long time : times) {
+            total += time;
+            if (time > FRAME_MILLIS * 1e6) over++;
+        }
+        Arrays.sort(times);
+        double mean = total / 1e6 / frames;
+        System.out.printf("%-6s %10.2f %10.2f %10.2f %10.1f %11.1f%% %10.0f%n", name, mean,
+                times[(int)(frames * 0.99)] / 1e6, times[frames - 1] / 1e6, (double)tiles / frames,
+                100.0 * over / frames, 1000 / mean);
+        System.out.println("       runs finished " + tournament.getRunsFinished() + ", best round " + tournament.getBestRound()
+                + ", " + tournament.getImageCache().getStats());
+        tournament.dispose();
+    }
+}
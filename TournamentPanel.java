@@ -0,0 +1,233 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TournamentPanel shows a Tournament: many bot games tiled in one window.
+ * One render thread runs the tournament clock at 60 fps, plays the bots'
+ * moves and draws each frame into a buffer, swapped and blitted on the EDT
+ * as in GamePanel; there are no per-board timers or panels. Frames drop to
+ * draft quality under RenderQuality like the game's.
+ *
+ * Click or press Escape to go back to the menu.
+ */
+public class TournamentPanel extends JPanel {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    private static final long MAX_STEP_NANOS = 100_000_000L; // Longer stalls pause the tournament clock
+    private static final int BUFFER_COUNT = 3; // Front, on screen and one being drawn
+
+    private final MarrowExecutable parent;
+    private final Tournament tournament;
+    private final RenderQuality quality = RenderQuality.fromSystemProperties();
+
+    // Frame buffers shared with the EDT, as in GamePanel
+    private final Object swapLock = new Object();
+    private final BufferedImage[] buffers = new BufferedImage[BUFFER_COUNT];
+    private final Graphics2D[] bufferGraphics = new Graphics2D[BUFFER_COUNT]; // Render thread only
+    private int frontBuffer = -1;    // Guarded by swapLock
+    private int onScreenBuffer = -1; // Guarded by swapLock
+    private Thread renderThread;
+    private volatile boolean rendering = false;
+    private volatile boolean running = false;
+    private volatile int surfaceWidth;
+    private volatile int surfaceHeight;
+
+    // Render thread only
+    private long clockNanos = 0;
+    private long frames = 0;
+    private long tilesDrawn = 0;
+    private long renderNanos = 0;
+
+    public TournamentPanel(MarrowExecutable parent, int boards) {
+        this.parent = parent;
+        tournament = new Tournament(boards, System.getProperty("marrow.tournamentPolicy", Tournament.DEFAULT_POLICY),
+                System.nanoTime(), Tournament.threadsFromSystemProperty());
+        setBackground(Color.BLACK);
+        setFocusable(true);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                parent.leaveTournament();
+            }
+        });
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    parent.leaveTournament();
+                }
+            }
+        });
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                surfaceWidth = getWidth();
+                surfaceHeight = getHeight();
+                quality.resized();
+            }
+        });
+    }
+
+    /**
+     * Starts or resumes the tournament. Called when the view is shown.
+     */
+    public void start() {
+        surfaceWidth = getWidth();
+        surfaceHeight = getHeight();
+        running = true;
+        if (renderThread == null) {
+            rendering = true;
+            renderThread = new Thread(this::renderLoop, "tournament-render");
+            renderThread.setDaemon(true);
+            renderThread.start();
+        } else {
+            LockSupport.unpark(renderThread);
+        }
+    }
+
+    /**
+     * Stops the clock, so the boards wait where they are while the view is hidden.
+     */
+    public void pause() {
+        running = false;
+    }
+
+    /**
+     * Stops the render thread for good and releases the tournament.
+     */
+    public void dispose() {
+        running = false;
+        rendering = false;
+        if (renderThread != null) {
+            LockSupport.unpark(renderThread);
+            renderThread = null;
+        }
+    }
+
+    /**
+     * Render thread body: steps the clock, plays the bots, draws the frame
+     * into a free buffer and swaps it to the front, once per frame interval.
+     */
+    private void renderLoop() {
+        long lastTick = System.nanoTime();
+        long nextFrame = lastTick;
+        while (rendering) {
+            if (!running) {
+                if (frames > 0) {
+                    report();
+                }
+                LockSupport.park(this);
+                lastTick = System.nanoTime();
+                nextFrame = lastTick;
+                continue;
+            }
+            long frameStart = System.nanoTime();
+            clockNanos += Math.min(frameStart - lastTick, MAX_STEP_NANOS);
+            lastTick = frameStart;
+            tournament.advance(clockNanos / 1_000_000);
+
+            int width = surfaceWidth;
+            int height = surfaceHeight;
+            if (width > 0 && height > 0) {
+                drawFrame(width, height, frameStart);
+            }
+
+            nextFrame += FRAME_NANOS;
+            long now = System.nanoTime();
+            if (nextFrame < now) {
+                nextFrame = now; // Behind: start the next frame at once rather than bursting to catch up
+            }
+            LockSupport.parkNanos(this, nextFrame - now);
+        }
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            releaseGraphics(i);
+        }
+        tournament.dispose();
+    }
+
+    private void drawFrame(int width, int height, long frameStart) {
+        boolean draft = quality.useDraft(frameStart);
+        int index = 0;
+        synchronized (swapLock) {
+            while (index == frontBuffer || index == onScreenBuffer) {
+                index++;
+            }
+        }
+        BufferedImage buffer = buffers[index];
+        if (buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+            buffer = createBuffer(width, height);
+            releaseGraphics(index);
+        }
+        if (bufferGraphics[index] == null) {
+            bufferGraphics[index] = buffer.createGraphics();
+        }
+
+        try {
+            tilesDrawn += tournament.render(bufferGraphics[index], width, height, draft);
+        } catch (Exception e) {
+            e.printStackTrace();
+            releaseGraphics(index);
+        }
+        long renderEnd = System.nanoTime();
+        quality.frameRendered(renderEnd, renderEnd - frameStart, draft);
+        renderNanos += renderEnd - frameStart;
+        frames++;
+
+        synchronized (swapLock) {
+            buffers[index] = buffer;
+            frontBuffer = index;
+        }
+        repaint();
+    }
+
+    private void report() {
+        System.out.printf("Tournament: %d boards, %d frames, %.2f ms per frame, %.1f tiles redrawn per frame, "
+                        + "%d runs finished, best round %d%n",
+                tournament.size(), frames, renderNanos / 1e6 / frames, (double)tilesDrawn / frames,
+                tournament.getRunsFinished(), tournament.getBestRound());
+        frames = 0;
+        tilesDrawn = 0;
+        renderNanos = 0;
+    }
+
+    private void releaseGraphics(int index) {
+        if (bufferGraphics[index] != null) {
+            bufferGraphics[index].dispose();
+            bufferGraphics[index] = null;
+        }
+    }
+
+    private BufferedImage createBuffer(int width, int height) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Blits the newest finished frame. All drawing happens on the render thread.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        BufferedImage frame;
+        synchronized (swapLock) {
+            onScreenBuffer = frontBuffer;
+            frame = frontBuffer >= 0 ? buffers[frontBuffer] : null;
+        }
+        try {
+            if (frame == null) {
+                g.setColor(Color.BLACK);
+                g.fillRect(0, 0, getWidth(), getHeight());
+                return;
+            }
+            g.drawImage(frame, 0, 0, null);
+        } finally {
+            synchronized (swapLock) {
+                onScreenBuffer = -1;
+            }
+        }
+    }
+}